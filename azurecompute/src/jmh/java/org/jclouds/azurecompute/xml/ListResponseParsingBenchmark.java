@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.azurecompute.xml;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.azurecompute.xml.stream.DiskStreamParser;
+import org.jclouds.azurecompute.xml.stream.OSImageStreamParser;
+import org.jclouds.azurecompute.xml.stream.StreamingListParser;
+import org.jclouds.azurecompute.xml.stream.VMImageStreamParser;
+import org.jclouds.http.functions.ParseSax;
+import org.jclouds.http.functions.config.SaxParserModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.common.io.Resources;
+import com.google.inject.Guice;
+
+/**
+ * Parses the recorded OS image, disk and VM image listings with the {@code ParseSax} handlers and with the streaming
+ * parsers. The items of each recorded response are repeated to build large listings. Run with {@code -prof gc} to
+ * compare the allocation rates as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ListResponseParsingBenchmark {
+
+   @Param({"OSImage", "Disk", "VMImage"})
+   public String item;
+
+   @Param({"1", "1000"})
+   public int copies;
+
+   private byte[] response;
+
+   private ParseSax.Factory factory;
+
+   private StreamingListParser<?> streamingParser;
+
+   @Setup(Level.Trial)
+   public void setUp() throws IOException {
+      factory = Guice.createInjector(new SaxParserModule()).getInstance(ParseSax.Factory.class);
+      final String resource;
+      if ("OSImage".equals(item)) {
+         resource = "/images.xml";
+         streamingParser = new OSImageStreamParser();
+      } else if ("Disk".equals(item)) {
+         resource = "/disks.xml";
+         streamingParser = new DiskStreamParser();
+      } else {
+         resource = "/vmimages.xml";
+         streamingParser = new VMImageStreamParser();
+      }
+      response = repeatItems(Resources.toString(getClass().getResource(resource), UTF_8), item, copies)
+              .getBytes(UTF_8);
+   }
+
+   @Benchmark
+   public void saxHandler(final Blackhole blackhole) {
+      for (Object parsed : factory.create(newHandler()).parse(input())) {
+         blackhole.consume(parsed);
+      }
+   }
+
+   @Benchmark
+   public void streaming(final Blackhole blackhole) {
+      for (Object parsed : streamingParser.parse(input())) {
+         blackhole.consume(parsed);
+      }
+   }
+
+   private InputStream input() {
+      return new ByteArrayInputStream(response);
+   }
+
+   private ParseSax.HandlerWithResult<? extends List<?>> newHandler() {
+      if ("OSImage".equals(item)) {
+         return new ListOSImagesHandler(new OSImageHandler());
+      } else if ("Disk".equals(item)) {
+         return new ListDisksHandler(new DiskHandler());
+      }
+      return new ListVMImagesHandler(new VMImageHandler(new DataVirtualHardDiskHandler(), new OSConfigHandler()));
+   }
+
+   /** Repeats everything between the first start tag and the last end tag of the items. */
+   private static String repeatItems(final String document, final String item, final int copies) {
+      final int start = document.indexOf("<" + item + ">");
+      final String endTag = "</" + item + ">";
+      final int end = document.lastIndexOf(endTag) + endTag.length();
+      final String items = document.substring(start, end);
+      final StringBuilder repeated = new StringBuilder(document.length() + items.length() * (copies - 1));
+      repeated.append(document, 0, start);
+      for (int i = 0; i < copies; i++) {
+         repeated.append(items);
+      }
+      return repeated.append(document.substring(end)).toString();
+   }
+}
@@ -17,6 +17,9 @@
 package org.jclouds.azurecompute;
 
 import static org.jclouds.azurecompute.config.AzureComputeProperties.DEALLOCATE_WHEN_SUSPENDING;
+import static org.jclouds.azurecompute.config.AzureComputeProperties.DEPLOYMENTS_CACHE_TTL;
+import static org.jclouds.azurecompute.config.AzureComputeProperties.IMAGES_CACHE_TTL;
+import static org.jclouds.azurecompute.config.AzureComputeProperties.LIST_NODES_CONCURRENCY;
 import static org.jclouds.azurecompute.config.AzureComputeProperties.OPERATION_POLL_INITIAL_PERIOD;
 import static org.jclouds.azurecompute.config.AzureComputeProperties.OPERATION_POLL_MAX_PERIOD;
 import static org.jclouds.azurecompute.config.AzureComputeProperties.OPERATION_TIMEOUT;
@@ -55,6 +58,9 @@ public class AzureComputeProviderMetadata extends BaseProviderMetadata {
       properties.setProperty(TCP_RULE_FORMAT, "tcp_%s-%s");
       properties.setProperty(TCP_RULE_REGEXP, "tcp_\\d{1,5}-\\d{1,5}");
       properties.setProperty(DEALLOCATE_WHEN_SUSPENDING, "true");
+      properties.setProperty(LIST_NODES_CONCURRENCY, "10");
+      properties.setProperty(DEPLOYMENTS_CACHE_TTL, "5000");
+      properties.setProperty(IMAGES_CACHE_TTL, "3600000");
       return properties;
    }
 
@@ -22,8 +22,14 @@ import static java.lang.String.format;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.jclouds.util.Predicates2.retry;
 import java.net.URI;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.annotation.Resource;
 import javax.inject.Inject;
@@ -34,6 +40,7 @@ import org.jclouds.azurecompute.AzureComputeApi;
 import org.jclouds.azurecompute.compute.config.AzureComputeServiceContextModule.AzureComputeConstants;
 import org.jclouds.azurecompute.compute.functions.OSImageToImage;
 import org.jclouds.azurecompute.compute.options.AzureComputeTemplateOptions;
+import org.jclouds.azurecompute.compute.suppliers.OSImageCatalog;
 import org.jclouds.azurecompute.config.AzureComputeProperties;
 import org.jclouds.azurecompute.domain.CloudService;
 import org.jclouds.azurecompute.domain.Deployment;
@@ -45,6 +52,8 @@ import org.jclouds.azurecompute.domain.OSImage;
 import org.jclouds.azurecompute.domain.Role;
 import org.jclouds.azurecompute.domain.RoleSize;
 import org.jclouds.azurecompute.util.ConflictManagementPredicate;
+import org.jclouds.azurecompute.util.OperationTracker;
+import org.jclouds.Constants;
 import org.jclouds.compute.ComputeServiceAdapter;
 import org.jclouds.compute.domain.OsFamily;
 import org.jclouds.compute.domain.Template;
@@ -55,11 +64,17 @@ import org.jclouds.logging.Logger;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
-import com.google.common.base.Splitter;
+import com.google.common.base.Throwables;
 import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
 
 /**
  * Defines the connection between the {@link AzureComputeApi} implementation and the jclouds
@@ -80,17 +95,35 @@ public class AzureComputeServiceAdapter implements ComputeServiceAdapter<Deploym
 
    private final AzureComputeApi api;
 
-   private final Predicate<String> operationSucceededPredicate;
+   private final OperationTracker operationTracker;
 
    private final AzureComputeConstants azureComputeConstants;
 
+   private final OSImageCatalog imageCatalog;
+
+   private final ListeningExecutorService userExecutor;
+
+   private final Object deploymentsLock = new Object();
+
+   /** Deployments by name, as of the last listing. */
+   private volatile DeploymentsSnapshot deployments;
+
+   /**
+    * Bumped when a node is created or destroyed. A listing fetched under an older generation may miss the change, so it
+    * is never reused.
+    */
+   private final AtomicLong deploymentsGeneration = new AtomicLong();
+
    @Inject
    AzureComputeServiceAdapter(final AzureComputeApi api,
-           final Predicate<String> operationSucceededPredicate, final AzureComputeConstants azureComputeConstants) {
+           final OperationTracker operationTracker, final AzureComputeConstants azureComputeConstants,
+           final OSImageCatalog imageCatalog, @Named(Constants.PROPERTY_USER_THREADS) final ListeningExecutorService userExecutor) {
 
       this.api = api;
-      this.operationSucceededPredicate = operationSucceededPredicate;
+      this.operationTracker = operationTracker;
       this.azureComputeConstants = azureComputeConstants;
+      this.imageCatalog = imageCatalog;
+      this.userExecutor = userExecutor;
    }
 
    @Override
@@ -110,7 +143,7 @@ public class AzureComputeServiceAdapter implements ComputeServiceAdapter<Deploym
       String message = String.format("Creating a cloud service with name '%s', label '%s' in location '%s'", name, name, location);
       logger.debug(message);
       final String createCloudServiceRequestId = api.getCloudServiceApi().createWithLabelInLocation(name, name, location);
-      if (!operationSucceededPredicate.apply(createCloudServiceRequestId)) {
+      if (!operationTracker.apply(createCloudServiceRequestId)) {
          final String exceptionMessage = generateIllegalStateExceptionMessage(message, createCloudServiceRequestId, azureComputeConstants.operationTimeout());
          logger.warn(exceptionMessage);
          throw new IllegalStateException(exceptionMessage);
@@ -144,7 +177,7 @@ public class AzureComputeServiceAdapter implements ComputeServiceAdapter<Deploym
       message = String.format("Creating a deployment with params '%s' ...", params);
       logger.debug(message);
 
-      if (!new ConflictManagementPredicate(api) {
+      if (!new ConflictManagementPredicate(api, operationTracker, azureComputeConstants.operationTimeout()) {
          @Override
          protected String operation() {
             return api.getDeploymentApiForService(name).create(params);
@@ -182,6 +215,7 @@ public class AzureComputeServiceAdapter implements ComputeServiceAdapter<Deploym
       }
 
       final Deployment deployment = deployments.iterator().next();
+      invalidateDeployments();
 
       // check if the role inside the deployment is ready
       checkRoleStatusInDeployment(name, deployment);
@@ -197,72 +231,12 @@ public class AzureComputeServiceAdapter implements ComputeServiceAdapter<Deploym
 
    @Override
    public Iterable<OSImage> listImages() {
-      final List<OSImage> osImages = Lists.newArrayList();
-      for (OSImage osImage : api.getOSImageApi().list()) {
-         if (osImage.location() == null) {
-            osImages.add(OSImage.create(
-                    osImage.name(),
-                    null,
-                    osImage.affinityGroup(),
-                    osImage.label(),
-                    osImage.description(),
-                    osImage.imageFamily(),
-                    osImage.category(),
-                    osImage.os(),
-                    osImage.publisherName(),
-                    osImage.mediaLink(),
-                    osImage.logicalSizeInGB(),
-                    osImage.eula()
-            ));
-         } else {
-            for (String actualLocation : Splitter.on(';').split(osImage.location())) {
-               osImages.add(OSImage.create(
-                       OSImageToImage.toGeoName(osImage.name(), actualLocation),
-                       actualLocation,
-                       osImage.affinityGroup(),
-                       osImage.label(),
-                       osImage.description(),
-                       osImage.imageFamily(),
-                       osImage.category(),
-                       osImage.os(),
-                       osImage.publisherName(),
-                       osImage.mediaLink(),
-                       osImage.logicalSizeInGB(),
-                       osImage.eula()
-               ));
-            }
-         }
-      }
-      return osImages;
+      return imageCatalog.list();
    }
 
    @Override
    public OSImage getImage(final String id) {
-      final String[] idParts = OSImageToImage.fromGeoName(id);
-      final OSImage image = Iterables.find(api.getOSImageApi().list(), new Predicate<OSImage>() {
-         @Override
-         public boolean apply(final OSImage input) {
-            return idParts[0].equals(input.name());
-         }
-      });
-
-      return image == null
-              ? null
-              : idParts[1] == null
-                      ? image
-                      : OSImage.create(
-                              id,
-                              idParts[1],
-                              image.affinityGroup(),
-                              image.label(),
-                              image.description(),
-                              image.imageFamily(),
-                              image.category(),
-                              image.os(),
-                              image.publisherName(),
-                              image.mediaLink(),
-                              image.logicalSizeInGB(),
-                              image.eula());
+      return imageCatalog.get(id);
    }
 
    @Override
@@ -293,12 +267,21 @@ public class AzureComputeServiceAdapter implements ComputeServiceAdapter<Deploym
          return isSettled(deployment);
       }
 
-      return FluentIterable.from(api.getCloudServiceApi().list()).
-              transform(new Function<CloudService, Deployment>() {
+      final Deployment listed = deployments().get(id);
+      if (listed != null) {
+         return isSettled(listed);
+      }
+
+      return FluentIterable.from(fetchDeployments(api.getCloudServiceApi().list(), new Function<CloudService, Deployment>() {
                  @Override
                  public Deployment apply(final CloudService input) {
-                    final Deployment deployment = api.getDeploymentApiForService(input.name()).get(id);
-                    return isSettled(deployment);
+                    return api.getDeploymentApiForService(input.name()).get(id);
+                 }
+              })).
+              transform(new Function<Deployment, Deployment>() {
+                 @Override
+                 public Deployment apply(final Deployment input) {
+                    return isSettled(input);
                  }
               }).
               firstMatch(notNull()).
@@ -306,7 +289,7 @@ public class AzureComputeServiceAdapter implements ComputeServiceAdapter<Deploym
    }
 
    private void trackRequest(final String requestId) {
-      if (!operationSucceededPredicate.apply(requestId)) {
+      if (!operationTracker.apply(requestId)) {
          final String message = generateIllegalStateExceptionMessage(
                  "tracking request", requestId, azureComputeConstants.operationTimeout());
          logger.warn(message);
@@ -314,57 +297,115 @@ public class AzureComputeServiceAdapter implements ComputeServiceAdapter<Deploym
       }
    }
 
+   /**
+    * Destroys the deployment and the cloud service of the node, then deletes its OS disks concurrently once their
+    * leases are released. Destroys of other nodes don't wait for each other, so the nodes of a group being destroyed
+    * in parallel delete their disks as soon as their own deployment is gone.
+    */
    public Deployment internalDestroyNode(final String nodeId) {
+      final Deployment deployment = destroyDeployment(nodeId);
+      if (deployment != null) {
+         final List<String> diskNames = Lists.newArrayList();
+         for (Role role : deployment.roleList()) {
+            final Role.OSVirtualHardDisk disk = role.osVirtualHardDisk();
+            if (disk != null) {
+               diskNames.add(disk.diskName());
+            }
+         }
+         deleteDisks(diskNames);
+      }
+      return deployment;
+   }
 
-      Deployment deployment = getDeploymentFromNodeId(nodeId);
+   private Deployment destroyDeployment(final String nodeId) {
+      final Deployment deployment = getDeploymentFromNodeId(nodeId);
 
       if (deployment == null) return null;
 
+      invalidateDeployments();
       final String deploymentName = deployment.name();
-      String message = String.format("Deleting deployment(%s) of cloud service (%s)", nodeId, deploymentName);
-      logger.debug(message);
+      logger.debug("Deleting deployment(%s) of cloud service (%s)", nodeId, deploymentName);
 
-         if (deployment != null) {
-            for (Role role : deployment.roleList()) {
-               trackRequest(api.getVirtualMachineApiForDeploymentInService(deploymentName, role.roleName()).shutdown(nodeId, POST_SHUTDOWN_ACTION));
+      // shut down all the roles at once, the operation tracker polls them together
+      final List<String> shutdownRequests = Lists.newArrayList();
+      for (Role role : deployment.roleList()) {
+         shutdownRequests.add(api.getVirtualMachineApiForDeploymentInService(deploymentName, role.roleName())
+                 .shutdown(nodeId, POST_SHUTDOWN_ACTION));
+      }
+      for (String requestId : shutdownRequests) {
+         trackRequest(requestId);
+      }
+
+      deleteDeployment(deploymentName, nodeId);
+
+      logger.debug("Deleting cloud service (%s) ...", deploymentName);
+      deleteCloudService(deploymentName);
+      logger.debug("Cloud service (%s) deleted.", deploymentName);
+
+      invalidateDeployments();
+      return deployment;
+   }
+
+   /** Deletes the given disks concurrently and waits for them. */
+   private void deleteDisks(final List<String> diskNames) {
+      if (diskNames.isEmpty()) {
+         return;
+      }
+      final List<ListenableFuture<Boolean>> deletions = Lists.newArrayList();
+      for (final String diskName : diskNames) {
+         deletions.add(userExecutor.submit(new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+               return deleteDisk(diskName);
             }
+         }));
+      }
+      logger.debug("Deleting %s disks ...", deletions.size());
+      try {
+         Futures.allAsList(deletions).get();
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw Throwables.propagate(e);
+      } catch (ExecutionException e) {
+         throw Throwables.propagate(e.getCause());
+      }
+   }
 
-            deleteDeployment(deploymentName, nodeId);
-
-            logger.debug("Deleting cloud service (%s) ...", deploymentName);
-            trackRequest(api.getCloudServiceApi().delete(deploymentName));
-            logger.debug("Cloud service (%s) deleted.", deploymentName);
-
-            for (Role role : deployment.roleList()) {
-               final Role.OSVirtualHardDisk disk = role.osVirtualHardDisk();
-               if (disk != null) {
-                  if (!new ConflictManagementPredicate(api, operationSucceededPredicate) {
-
-                     @Override
-                     protected String operation() {
-                        return api.getDiskApi().delete(disk.diskName());
-                     }
-                  }.apply(nodeId)) {
-                     final String illegalStateExceptionMessage = generateIllegalStateExceptionMessage("Delete disk " + disk.diskName(),
-                             "Delete disk", azureComputeConstants.operationTimeout());
-                     logger.warn(illegalStateExceptionMessage);
-                  }
-               }
+   private boolean deleteDisk(final String diskName) {
+      try {
+         if (new ConflictManagementPredicate(api, operationTracker, azureComputeConstants.operationTimeout()) {
+
+            @Override
+            protected String operation() {
+               return api.getDiskApi().delete(diskName);
             }
+         }.apply(diskName)) {
+            return true;
          }
-      return deployment;
+         logger.warn(generateIllegalStateExceptionMessage("Delete disk " + diskName,
+                 "Delete disk", azureComputeConstants.operationTimeout()));
+      } catch (RuntimeException e) {
+         logger.warn(e, "Could not delete disk %s", diskName);
+      }
+      return false;
    }
 
+   /**
+    * Waits for the deployment of the node to settle. Returns {@code null} right away if the node has no deployment,
+    * instead of waiting for one to show up.
+    */
    public Deployment getDeploymentFromNodeId(final String nodeId) {
       final List<Deployment> nodes = Lists.newArrayList();
       retry(new Predicate<String>() {
          @Override
          public boolean apply(final String input) {
-            final Deployment deployment = getNode(nodeId);
+            // all nodes created by this provider will always have a cloud service name equal to deployment name
+            final Deployment own = api.getDeploymentApiForService(nodeId).get(nodeId);
+            final Deployment deployment = own != null ? isSettled(own) : getNode(nodeId);
             if (deployment != null) {
                nodes.add(deployment);
             }
-            return !nodes.isEmpty();
+            return !nodes.isEmpty() || own == null;
          }
       }, 30 * 60, 1, SECONDS).apply(nodeId);
 
@@ -432,25 +473,119 @@ public class AzureComputeServiceAdapter implements ComputeServiceAdapter<Deploym
 
    @Override
    public Iterable<Deployment> listNodes() {
-      return FluentIterable.from(api.getCloudServiceApi().list()).
-              transform(new Function<CloudService, Deployment>() {
-                 @Override
-                 public Deployment apply(final CloudService cloudService) {
-                    return api.getDeploymentApiForService(cloudService.name()).get(cloudService.name());
-                 }
-              }).
-              filter(notNull()).
-              toSet();
+      return ImmutableSet.copyOf(deployments().values());
    }
 
    @Override
    public Iterable<Deployment> listNodesByIds(final Iterable<String> ids) {
-      return Iterables.filter(listNodes(), new Predicate<Deployment>() {
-         @Override
-         public boolean apply(final Deployment input) {
-            return Iterables.contains(ids, input.name());
+      final Map<String, Deployment> listed = deployments();
+      final ImmutableSet.Builder<Deployment> nodes = ImmutableSet.builder();
+      for (String id : ImmutableSet.copyOf(ids)) {
+         final Deployment deployment = listed.get(id);
+         if (deployment != null) {
+            nodes.add(deployment);
          }
-      });
+      }
+      return nodes.build();
+   }
+
+   /**
+    * Returns the deployments of all the cloud services, keyed by name. The listing is reused by all callers until it is
+    * older than {@link AzureComputeProperties#DEPLOYMENTS_CACHE_TTL} or a node is created or destroyed through this
+    * adapter; concurrent callers of an expired listing wait for a single refresh. A listing started before a node was
+    * created or destroyed is returned to its caller but not reused, since it may miss the change.
+    */
+   private Map<String, Deployment> deployments() {
+      DeploymentsSnapshot snapshot = deployments;
+      if (!isCurrent(snapshot)) {
+         synchronized (deploymentsLock) {
+            snapshot = deployments;
+            if (!isCurrent(snapshot)) {
+               final long generation = deploymentsGeneration.get();
+               final Map<String, Deployment> byName = Maps.newLinkedHashMap();
+               for (Deployment deployment : fetchDeployments(api.getCloudServiceApi().list(),
+                       new Function<CloudService, Deployment>() {
+                          @Override
+                          public Deployment apply(final CloudService cloudService) {
+                             return api.getDeploymentApiForService(cloudService.name()).get(cloudService.name());
+                          }
+                       })) {
+                  if (!byName.containsKey(deployment.name())) {
+                     byName.put(deployment.name(), deployment);
+                  }
+               }
+               snapshot = new DeploymentsSnapshot(ImmutableMap.copyOf(byName), generation);
+               deployments = snapshot;
+            }
+         }
+      }
+      return snapshot.deployments;
+   }
+
+   private boolean isCurrent(final DeploymentsSnapshot snapshot) {
+      return snapshot != null && snapshot.generation == deploymentsGeneration.get()
+              && !snapshot.isExpired(azureComputeConstants.deploymentsCacheTtl());
+   }
+
+   private void invalidateDeployments() {
+      deploymentsGeneration.incrementAndGet();
+   }
+
+   /**
+    * Applies the given lookup to every cloud service on the user executor, with at most
+    * {@link AzureComputeProperties#LIST_NODES_CONCURRENCY} workers taking the cloud services in turn, and returns the
+    * deployments found in the order of the cloud services.
+    */
+   private List<Deployment> fetchDeployments(final List<CloudService> cloudServices,
+           final Function<CloudService, Deployment> lookup) {
+      final Deployment[] found = new Deployment[cloudServices.size()];
+      final AtomicInteger next = new AtomicInteger();
+      final int workers = Math.min(Math.max(1, azureComputeConstants.listNodesConcurrency()), cloudServices.size());
+      final List<ListenableFuture<Void>> futures = Lists.newArrayListWithCapacity(workers);
+      for (int i = 0; i < workers; i++) {
+         futures.add(userExecutor.submit(new Callable<Void>() {
+            @Override
+            public Void call() {
+               for (int index = next.getAndIncrement(); index < found.length
+                       && !Thread.currentThread().isInterrupted(); index = next.getAndIncrement()) {
+                  found[index] = lookup.apply(cloudServices.get(index));
+               }
+               return null;
+            }
+         }));
+      }
+      try {
+         Futures.allAsList(futures).get();
+         return FluentIterable.from(Arrays.asList(found)).filter(notNull()).toList();
+      } catch (InterruptedException e) {
+         cancel(futures);
+         Thread.currentThread().interrupt();
+         throw Throwables.propagate(e);
+      } catch (ExecutionException e) {
+         cancel(futures);
+         throw Throwables.propagate(e.getCause());
+      }
+   }
+
+   private static void cancel(final List<? extends ListenableFuture<?>> futures) {
+      for (ListenableFuture<?> future : futures) {
+         future.cancel(true);
+      }
+   }
+
+   private static final class DeploymentsSnapshot {
+      private final Map<String, Deployment> deployments;
+      private final long generation;
+      private final long created = System.currentTimeMillis();
+
+      private DeploymentsSnapshot(final Map<String, Deployment> deployments, final long generation) {
+         this.deployments = deployments;
+         this.generation = generation;
+      }
+
+      private boolean isExpired(final long ttl) {
+         return System.currentTimeMillis() - created >= ttl;
+      }
    }
 
    @VisibleForTesting
@@ -460,7 +595,7 @@ public class AzureComputeServiceAdapter implements ComputeServiceAdapter<Deploym
    }
 
    private void deleteCloudService(final String name) {
-      if (!new ConflictManagementPredicate(api) {
+      if (!new ConflictManagementPredicate(api, operationTracker, azureComputeConstants.operationTimeout()) {
 
          @Override
          protected String operation() {
@@ -476,7 +611,7 @@ public class AzureComputeServiceAdapter implements ComputeServiceAdapter<Deploym
    }
 
    private void deleteDeployment(final String id, final String cloudServiceName) {
-      if (!new ConflictManagementPredicate(api) {
+      if (!new ConflictManagementPredicate(api, operationTracker, azureComputeConstants.operationTimeout()) {
 
          @Override
          protected String operation() {
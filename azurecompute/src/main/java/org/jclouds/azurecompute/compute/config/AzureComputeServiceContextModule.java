@@ -17,16 +17,21 @@
 package org.jclouds.azurecompute.compute.config;
 
 import static org.jclouds.azurecompute.config.AzureComputeProperties.DEALLOCATE_WHEN_SUSPENDING;
+import static org.jclouds.azurecompute.config.AzureComputeProperties.DEPLOYMENTS_CACHE_TTL;
+import static org.jclouds.azurecompute.config.AzureComputeProperties.IMAGES_CACHE_TTL;
+import static org.jclouds.azurecompute.config.AzureComputeProperties.LIST_NODES_CONCURRENCY;
 import static org.jclouds.azurecompute.config.AzureComputeProperties.OPERATION_POLL_INITIAL_PERIOD;
 import static org.jclouds.azurecompute.config.AzureComputeProperties.OPERATION_POLL_MAX_PERIOD;
 import static org.jclouds.azurecompute.config.AzureComputeProperties.OPERATION_TIMEOUT;
 import static org.jclouds.azurecompute.config.AzureComputeProperties.TCP_RULE_FORMAT;
 import static org.jclouds.azurecompute.config.AzureComputeProperties.TCP_RULE_REGEXP;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import javax.inject.Named;
 import javax.inject.Singleton;
 
+import org.jclouds.Constants;
 import org.jclouds.azurecompute.AzureComputeApi;
 import org.jclouds.azurecompute.compute.AzureComputeServiceAdapter;
 import org.jclouds.azurecompute.compute.extensions.AzureComputeSecurityGroupExtension;
@@ -41,7 +46,7 @@ import org.jclouds.azurecompute.domain.Deployment;
 import org.jclouds.azurecompute.domain.Location;
 import org.jclouds.azurecompute.domain.OSImage;
 import org.jclouds.azurecompute.domain.RoleSize;
-import org.jclouds.azurecompute.util.ConflictManagementPredicate;
+import org.jclouds.azurecompute.util.OperationTracker;
 import org.jclouds.compute.ComputeServiceAdapter;
 import org.jclouds.compute.config.ComputeServiceAdapterContextModule;
 import org.jclouds.compute.domain.Hardware;
@@ -90,14 +95,21 @@ public class AzureComputeServiceContextModule
 
    @Provides
    @Singleton
-   protected Predicate<String> provideOperationSucceededPredicate(
-           final AzureComputeApi api, final AzureComputeConstants azureComputeConstants) {
-      return new ConflictManagementPredicate(
+   protected OperationTracker provideOperationTracker(final AzureComputeApi api,
+           @Named(Constants.PROPERTY_SCHEDULER_THREADS) final ScheduledExecutorService scheduler,
+           final AzureComputeConstants azureComputeConstants) {
+      return new OperationTracker(
               api,
+              scheduler,
               azureComputeConstants.operationTimeout(),
-              azureComputeConstants.operationPollInitialPeriod(),
-              azureComputeConstants.operationPollMaxPeriod(),
-              TimeUnit.MILLISECONDS);
+              TimeUnit.SECONDS.toMillis(azureComputeConstants.operationPollInitialPeriod()),
+              TimeUnit.SECONDS.toMillis(azureComputeConstants.operationPollMaxPeriod()));
+   }
+
+   @Provides
+   @Singleton
+   protected Predicate<String> provideOperationSucceededPredicate(final OperationTracker operationTracker) {
+      return operationTracker;
    }
 
    @Singleton
@@ -127,6 +139,18 @@ public class AzureComputeServiceContextModule
       @Inject
       private String deallocateWhenSuspending;
 
+      @Named(LIST_NODES_CONCURRENCY)
+      @Inject
+      private String listNodesConcurrencyProperty;
+
+      @Named(DEPLOYMENTS_CACHE_TTL)
+      @Inject
+      private String deploymentsCacheTtlProperty;
+
+      @Named(IMAGES_CACHE_TTL)
+      @Inject
+      private String imagesCacheTtlProperty;
+
       public Long operationTimeout() {
          return Long.parseLong(operationTimeoutProperty);
       }
@@ -150,6 +174,18 @@ public class AzureComputeServiceContextModule
       public boolean deallocateWhenSuspending() {
          return Boolean.parseBoolean(deallocateWhenSuspending);
       }
+
+      public Integer listNodesConcurrency() {
+         return Integer.parseInt(listNodesConcurrencyProperty);
+      }
+
+      public Long deploymentsCacheTtl() {
+         return Long.parseLong(deploymentsCacheTtlProperty);
+      }
+
+      public Long imagesCacheTtl() {
+         return Long.parseLong(imagesCacheTtlProperty);
+      }
    }
 
 }
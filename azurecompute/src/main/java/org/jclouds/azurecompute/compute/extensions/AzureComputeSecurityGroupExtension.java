@@ -184,7 +184,8 @@ public class AzureComputeSecurityGroupExtension implements SecurityGroupExtensio
                              id, subnetName);
 
                      // remove existing nsg from subnet
-                     if (!new ConflictManagementPredicate(api, operationSucceededPredicate) {
+                     if (!new ConflictManagementPredicate(api, operationSucceededPredicate,
+                             azureComputeConstants.operationTimeout()) {
                         @Override
                         protected String operation() {
                            return api.getNetworkSecurityGroupApi().removeFromSubnet(
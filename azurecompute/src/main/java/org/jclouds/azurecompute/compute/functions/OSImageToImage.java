@@ -18,6 +18,7 @@ package org.jclouds.azurecompute.compute.functions;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.util.Map;
 import java.util.Set;
 
 import org.jclouds.azurecompute.domain.OSImage;
@@ -26,12 +27,12 @@ import org.jclouds.compute.domain.Image;
 import org.jclouds.compute.domain.ImageBuilder;
 import org.jclouds.compute.domain.OperatingSystem;
 import org.jclouds.compute.domain.OsFamily;
-import org.jclouds.location.predicates.LocationPredicates;
 
 import com.google.common.base.Function;
 import com.google.common.base.Splitter;
 import com.google.common.base.Supplier;
-import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
 import com.google.inject.Inject;
 
 public class OSImageToImage implements Function<OSImage, Image> {
@@ -67,6 +68,8 @@ public class OSImageToImage implements Function<OSImage, Image> {
 
    private final Supplier<Set<? extends org.jclouds.domain.Location>> locations;
 
+   private volatile LocationIndex locationIndex;
+
    @Inject
    OSImageToImage(@Memoized final Supplier<Set<? extends org.jclouds.domain.Location>> locations) {
 
@@ -82,13 +85,45 @@ public class OSImageToImage implements Function<OSImage, Image> {
               .status(Image.Status.AVAILABLE)
               .uri(image.mediaLink())
               .providerId(image.name())
-              .location(FluentIterable.from(locations.get())
-                      .firstMatch(LocationPredicates.idEquals(image.location())).orNull());
+              .location(location(image.location()));
 
       final OperatingSystem.Builder osBuilder = osFamily().apply(image);
       return builder.operatingSystem(osBuilder.build()).build();
    }
 
+   /**
+    * Looks up a location by id. The image catalog converts every image once per location, so the memoized locations are
+    * indexed by id and the index is rebuilt only when the supplier returns a new set.
+    */
+   private org.jclouds.domain.Location location(final String id) {
+      if (id == null) {
+         return null;
+      }
+      final Set<? extends org.jclouds.domain.Location> current = locations.get();
+      LocationIndex index = locationIndex;
+      if (index == null || index.locations != current) {
+         index = new LocationIndex(current);
+         locationIndex = index;
+      }
+      return index.byId.get(id);
+   }
+
+   private static final class LocationIndex {
+      private final Set<? extends org.jclouds.domain.Location> locations;
+      private final Map<String, org.jclouds.domain.Location> byId;
+
+      private LocationIndex(final Set<? extends org.jclouds.domain.Location> locations) {
+         final Map<String, org.jclouds.domain.Location> byId = Maps.newHashMap();
+         for (org.jclouds.domain.Location location : locations) {
+            if (!byId.containsKey(location.getId())) {
+               byId.put(location.getId(), location);
+            }
+         }
+         this.locations = locations;
+         this.byId = ImmutableMap.copyOf(byId);
+      }
+   }
+
    public static Function<OSImage, OperatingSystem.Builder> osFamily() {
       return new Function<OSImage, OperatingSystem.Builder>() {
          @Override
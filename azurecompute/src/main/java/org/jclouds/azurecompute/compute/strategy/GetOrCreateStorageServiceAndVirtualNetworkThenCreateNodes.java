@@ -36,6 +36,7 @@ import org.jclouds.azurecompute.compute.predicates.StorageServicePredicates;
 import org.jclouds.azurecompute.config.AzureComputeProperties;
 import org.jclouds.azurecompute.domain.CreateStorageServiceParams;
 import org.jclouds.azurecompute.domain.StorageService;
+import org.jclouds.azurecompute.util.OperationTracker;
 import org.jclouds.compute.config.CustomizationResponse;
 import org.jclouds.compute.domain.NodeMetadata;
 import org.jclouds.compute.domain.Template;
@@ -60,7 +61,7 @@ public class GetOrCreateStorageServiceAndVirtualNetworkThenCreateNodes
    private static final String DEFAULT_STORAGE_SERVICE_TYPE = "Standard_GRS";
 
    private final AzureComputeApi api;
-   private final Predicate<String> operationSucceededPredicate;
+   private final OperationTracker operationTracker;
    private final AzureComputeConstants azureComputeConstants;
 
    @Inject
@@ -71,14 +72,14 @@ public class GetOrCreateStorageServiceAndVirtualNetworkThenCreateNodes
            @Named("jclouds.user-threads") ListeningExecutorService userExecutor,
            Factory customizeNodeAndAddToGoodMapOrPutExceptionIntoBadMapFactory,
            AzureComputeApi api,
-           Predicate<String> operationSucceededPredicate,
+           OperationTracker operationTracker,
            AzureComputeConstants azureComputeConstants) {
 
       super(addNodeWithGroupStrategy, listNodesStrategy, namingConvention, userExecutor,
               customizeNodeAndAddToGoodMapOrPutExceptionIntoBadMapFactory);
 
       this.api = api;
-      this.operationSucceededPredicate = operationSucceededPredicate;
+      this.operationTracker = operationTracker;
       this.azureComputeConstants = azureComputeConstants;
    }
 
@@ -159,7 +160,7 @@ public class GetOrCreateStorageServiceAndVirtualNetworkThenCreateNodes
                  .location(location)
                  .accountType(StorageService.AccountType.valueOf(type))
                  .build());
-         if (!operationSucceededPredicate.apply(createStorageServiceRequestId)) {
+         if (!operationTracker.apply(createStorageServiceRequestId)) {
             final String warnMessage = format("Create storage service account has not been completed within %sms.",
                     azureComputeConstants.operationTimeout());
             logger.warn(warnMessage);
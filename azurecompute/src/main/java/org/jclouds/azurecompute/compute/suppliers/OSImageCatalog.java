@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.azurecompute.compute.suppliers;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import javax.annotation.Resource;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.Constants;
+import org.jclouds.azurecompute.AzureComputeApi;
+import org.jclouds.azurecompute.compute.config.AzureComputeServiceContextModule.AzureComputeConstants;
+import org.jclouds.azurecompute.compute.functions.OSImageToImage;
+import org.jclouds.azurecompute.domain.OSImage;
+import org.jclouds.compute.reference.ComputeServiceConstants;
+import org.jclouds.logging.Logger;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Splitter;
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * Keeps the OS images of the subscription, expanded to one image per location as the compute service exposes them.
+ * <p>
+ * The catalog is fetched once and then refreshed in the background on the user executor every
+ * {@link org.jclouds.azurecompute.config.AzureComputeProperties#IMAGES_CACHE_TTL} milliseconds; callers keep getting the
+ * previous catalog while a refresh is running.
+ */
+@Singleton
+public class OSImageCatalog {
+
+   @Resource
+   @Named(ComputeServiceConstants.COMPUTE_LOGGER)
+   private Logger logger = Logger.NULL;
+
+   private static final String KEY = "images";
+
+   private final AzureComputeApi api;
+
+   private final LoadingCache<String, Catalog> cache;
+
+   @Inject
+   OSImageCatalog(final AzureComputeApi api, final AzureComputeConstants azureComputeConstants,
+           @Named(Constants.PROPERTY_USER_THREADS) final ListeningExecutorService userExecutor) {
+      this(api, azureComputeConstants.imagesCacheTtl(), userExecutor);
+   }
+
+   @VisibleForTesting
+   OSImageCatalog(final AzureComputeApi api, final long ttl, final ListeningExecutorService userExecutor) {
+      this.api = api;
+      this.cache = CacheBuilder.newBuilder()
+              .refreshAfterWrite(ttl, MILLISECONDS)
+              .build(new CacheLoader<String, Catalog>() {
+                 @Override
+                 public Catalog load(final String key) {
+                    return fetch();
+                 }
+
+                 @Override
+                 public ListenableFuture<Catalog> reload(final String key, final Catalog oldValue) {
+                    return userExecutor.submit(new Callable<Catalog>() {
+                       @Override
+                       public Catalog call() {
+                          return fetch();
+                       }
+                    });
+                 }
+              });
+   }
+
+   /** Returns all the images, with one image per location for the images that have locations. */
+   public List<OSImage> list() {
+      return catalog().images;
+   }
+
+   /**
+    * Returns the image with the given id, either a plain image name or a name and a location as built by
+    * {@link OSImageToImage#toGeoName(String, String)}, or {@code null} if there is no image with that name.
+    */
+   public OSImage get(final String id) {
+      final Catalog catalog = catalog();
+      final OSImage image = catalog.byId.get(id);
+      if (image != null) {
+         return image;
+      }
+      final String[] idParts = OSImageToImage.fromGeoName(id);
+      final OSImage named = catalog.byName.get(idParts[0]);
+      if (named == null) {
+         return null;
+      }
+      return idParts[1] == null ? named : inLocation(named, id, idParts[1]);
+   }
+
+   /** Drops the current catalog, so that the next call fetches it again. */
+   public void invalidate() {
+      cache.invalidateAll();
+   }
+
+   private Catalog catalog() {
+      try {
+         return cache.get(KEY);
+      } catch (ExecutionException e) {
+         throw Throwables.propagate(e.getCause());
+      } catch (UncheckedExecutionException e) {
+         throw Throwables.propagate(e.getCause());
+      }
+   }
+
+   private Catalog fetch() {
+      final ImmutableList.Builder<OSImage> images = ImmutableList.builder();
+      final Map<String, OSImage> byName = Maps.newHashMap();
+      final Map<String, OSImage> byId = Maps.newHashMap();
+      // the listing is large, so it is streamed rather than parsed into a list first; the first image listed under a
+      // name or id wins, as when searching the listing
+      for (OSImage osImage : api.getOSImageApi().stream()) {
+         putIfAbsent(byName, osImage.name(), osImage);
+         if (osImage.location() == null) {
+            final OSImage image = inLocation(osImage, osImage.name(), null);
+            images.add(image);
+            putIfAbsent(byId, image.name(), image);
+         } else {
+            for (String actualLocation : Splitter.on(';').split(osImage.location())) {
+               final OSImage image = inLocation(osImage, OSImageToImage.toGeoName(osImage.name(), actualLocation),
+                       actualLocation);
+               images.add(image);
+               putIfAbsent(byId, image.name(), image);
+            }
+         }
+      }
+      logger.debug("Loaded %s OS images", byName.size());
+      return new Catalog(images.build(), ImmutableMap.copyOf(byName), ImmutableMap.copyOf(byId));
+   }
+
+   private static void putIfAbsent(final Map<String, OSImage> images, final String key, final OSImage image) {
+      if (!images.containsKey(key)) {
+         images.put(key, image);
+      }
+   }
+
+   private static OSImage inLocation(final OSImage image, final String name, final String location) {
+      return OSImage.create(
+              name,
+              location,
+              image.affinityGroup(),
+              image.label(),
+              image.description(),
+              image.imageFamily(),
+              image.category(),
+              image.os(),
+              image.publisherName(),
+              image.mediaLink(),
+              image.logicalSizeInGB(),
+              image.eula());
+   }
+
+   private static final class Catalog {
+      private final List<OSImage> images;
+      private final Map<String, OSImage> byName;
+      private final Map<String, OSImage> byId;
+
+      private Catalog(final List<OSImage> images, final Map<String, OSImage> byName, final Map<String, OSImage> byId) {
+         this.images = images;
+         this.byName = byName;
+         this.byId = byId;
+      }
+   }
+}
@@ -21,10 +21,13 @@ package org.jclouds.azurecompute.config;
  */
 public class AzureComputeProperties {
 
+   /** Time in milliseconds to wait for an asynchronous operation to complete. */
    public static final String OPERATION_TIMEOUT = "jclouds.azurecompute.operation.timeout";
 
+   /** Time in seconds between the first polls of an asynchronous operation. */
    public static final String OPERATION_POLL_INITIAL_PERIOD = "jclouds.azurecompute..operation.poll.initial.period";
 
+   /** Maximum time in seconds between two polls of an asynchronous operation. */
    public static final String OPERATION_POLL_MAX_PERIOD = "jclouds.azurecompute.operation.poll.max.period";
 
    public static final String TCP_RULE_FORMAT = "jclouds.azurecompute.tcp.rule.format";
@@ -33,4 +36,13 @@ public class AzureComputeProperties {
 
    public static final String DEALLOCATE_WHEN_SUSPENDING = "jclouds.azurecompute.deallocate.when.suspending";
 
+   /** Maximum number of deployments fetched at the same time when listing nodes. */
+   public static final String LIST_NODES_CONCURRENCY = "jclouds.azurecompute.list.nodes.concurrency";
+
+   /** Time in milliseconds a listing of the deployments is reused for listing and finding nodes. */
+   public static final String DEPLOYMENTS_CACHE_TTL = "jclouds.azurecompute.deployments.cache.ttl";
+
+   /** Time in milliseconds after which the OS image catalog is refreshed in the background. */
+   public static final String IMAGES_CACHE_TTL = "jclouds.azurecompute.images.cache.ttl";
+
 }
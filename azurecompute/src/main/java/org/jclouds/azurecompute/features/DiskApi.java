@@ -28,9 +28,12 @@ import javax.ws.rs.core.MediaType;
 
 import org.jclouds.Fallbacks.EmptyListOnNotFoundOr404;
 import org.jclouds.Fallbacks.NullOnNotFoundOr404;
+import org.jclouds.azurecompute.AzureComputeFallbacks.EmptyStreamOnNotFoundOr404;
 import org.jclouds.azurecompute.domain.Disk;
 import org.jclouds.azurecompute.functions.ParseRequestIdHeader;
 import org.jclouds.azurecompute.xml.ListDisksHandler;
+import org.jclouds.azurecompute.xml.stream.DiskStreamParser;
+import org.jclouds.azurecompute.xml.stream.XmlStream;
 import org.jclouds.rest.annotations.Fallback;
 import org.jclouds.rest.annotations.Headers;
 import org.jclouds.rest.annotations.QueryParams;
@@ -56,6 +59,16 @@ public interface DiskApi {
    @Fallback(EmptyListOnNotFoundOr404.class)
    List<Disk> list();
 
+   /**
+    * Same as {@link #list()}, but parses the response as it is iterated instead of building the whole list first.
+    * The returned stream can be iterated only once, and must be closed if it is not iterated to the end.
+    */
+   @Named("ListDisks")
+   @GET
+   @ResponseParser(DiskStreamParser.class)
+   @Fallback(EmptyStreamOnNotFoundOr404.class)
+   XmlStream<Disk> stream();
+
    /**
     * The Delete Disk operation deletes the specified data or operating system disk from your image repository.
     *
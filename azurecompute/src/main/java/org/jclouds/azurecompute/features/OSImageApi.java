@@ -32,12 +32,15 @@ import javax.ws.rs.Produces;
 
 import org.jclouds.Fallbacks.EmptyListOnNotFoundOr404;
 import org.jclouds.Fallbacks.NullOnNotFoundOr404;
+import org.jclouds.azurecompute.AzureComputeFallbacks.EmptyStreamOnNotFoundOr404;
 import org.jclouds.azurecompute.binders.OSImageParamsToXML;
 import org.jclouds.azurecompute.domain.OSImage;
 import org.jclouds.azurecompute.domain.OSImageParams;
 import org.jclouds.azurecompute.functions.OSImageParamsName;
 import org.jclouds.azurecompute.functions.ParseRequestIdHeader;
 import org.jclouds.azurecompute.xml.ListOSImagesHandler;
+import org.jclouds.azurecompute.xml.stream.OSImageStreamParser;
+import org.jclouds.azurecompute.xml.stream.XmlStream;
 import org.jclouds.rest.annotations.BinderParam;
 import org.jclouds.rest.annotations.Fallback;
 import org.jclouds.rest.annotations.Headers;
@@ -65,6 +68,16 @@ public interface OSImageApi {
    @Fallback(EmptyListOnNotFoundOr404.class)
    List<OSImage> list();
 
+   /**
+    * Same as {@link #list()}, but parses the response as it is iterated instead of building the whole list first.
+    * The returned stream can be iterated only once, and must be closed if it is not iterated to the end.
+    */
+   @Named("ListImages")
+   @GET
+   @ResponseParser(OSImageStreamParser.class)
+   @Fallback(EmptyStreamOnNotFoundOr404.class)
+   XmlStream<OSImage> stream();
+
    /**
     * The Add OS Image operation adds an OS image that is currently stored in a storage account in your subscription to
     * the image repository.
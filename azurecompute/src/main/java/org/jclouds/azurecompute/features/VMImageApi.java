@@ -18,11 +18,14 @@ package org.jclouds.azurecompute.features;
 
 import org.jclouds.Fallbacks.EmptyListOnNotFoundOr404;
 import org.jclouds.Fallbacks.NullOnNotFoundOr404;
+import org.jclouds.azurecompute.AzureComputeFallbacks.EmptyStreamOnNotFoundOr404;
 import org.jclouds.azurecompute.binders.VMImageParamsToXML;
 import org.jclouds.azurecompute.domain.VMImage;
 import org.jclouds.azurecompute.domain.VMImageParams;
 import org.jclouds.azurecompute.functions.ParseRequestIdHeader;
 import org.jclouds.azurecompute.xml.ListVMImagesHandler;
+import org.jclouds.azurecompute.xml.stream.VMImageStreamParser;
+import org.jclouds.azurecompute.xml.stream.XmlStream;
 import org.jclouds.rest.annotations.Fallback;
 import org.jclouds.rest.annotations.Headers;
 import org.jclouds.rest.annotations.ResponseParser;
@@ -62,6 +65,16 @@ public interface VMImageApi {
    @XMLResponseParser(ListVMImagesHandler.class)
    @Fallback(EmptyListOnNotFoundOr404.class) List<VMImage> list();
 
+   /**
+    * Same as {@link #list()}, but parses the response as it is iterated instead of building the whole list first.
+    * The returned stream can be iterated only once, and must be closed if it is not iterated to the end.
+    */
+   @Named("ListVMImages")
+   @GET
+   @ResponseParser(VMImageStreamParser.class)
+   @Fallback(EmptyStreamOnNotFoundOr404.class)
+   XmlStream<VMImage> stream();
+
    /**
     * The Create VM Image operation creates a VM Image in the image repository that is associated with the specified
     * subscription using a specified set of virtual hard disks.
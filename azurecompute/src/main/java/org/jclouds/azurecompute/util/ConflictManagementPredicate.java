@@ -19,6 +19,7 @@ package org.jclouds.azurecompute.util;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.jclouds.azurecompute.domain.Operation.Status.FAILED;
+import java.util.Random;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -35,9 +36,13 @@ import org.jclouds.logging.Logger;
 import org.jclouds.util.Predicates2;
 
 import com.google.common.base.Predicate;
+import com.google.common.base.Throwables;
 
 /**
  * Conflict errors (409 response status code) management predicate.
+ * <p>
+ * Retriable failures are retried after a randomized, exponentially growing delay, so that concurrent operations on the
+ * same resources (e.g. the disks of a group of nodes being destroyed) do not keep conflicting in lockstep.
  */
 public class ConflictManagementPredicate implements Predicate<String> {
 
@@ -49,8 +54,13 @@ public class ConflictManagementPredicate implements Predicate<String> {
 
    private Predicate<String> operationSucceeded;
 
-   private final long timeout = 600000;
-   private final long interval = 15000;
+   private static final Random JITTER = new Random();
+
+   private static final long DEFAULT_TIMEOUT = 600000;
+
+   private final long timeout;
+   private final long initialInterval = 1000;
+   private final long maxInterval = 15000;
 
    public ConflictManagementPredicate() {
       this(null);
@@ -86,8 +96,21 @@ public class ConflictManagementPredicate implements Predicate<String> {
     * @param operationSucceeded predicate to be applied to the requestId.
     */
    public ConflictManagementPredicate(final AzureComputeApi api, final Predicate<String> operationSucceeded) {
+      this(api, operationSucceeded, DEFAULT_TIMEOUT);
+   }
+
+   /**
+    * Constructor.
+    *
+    * @param api azure api.
+    * @param operationSucceeded predicate to be applied to the requestId.
+    * @param timeout time to keep retrying conflicting operations, in milliseconds.
+    */
+   public ConflictManagementPredicate(final AzureComputeApi api, final Predicate<String> operationSucceeded,
+           final long timeout) {
       this.api = api;
       this.operationSucceeded = operationSucceeded;
+      this.timeout = timeout;
    }
 
    /**
@@ -114,6 +137,7 @@ public class ConflictManagementPredicate implements Predicate<String> {
 
       long now = System.currentTimeMillis();
       long end = now + timeout;
+      long interval = initialInterval;
 
       while (retry && now < end) {
          try {
@@ -165,10 +189,12 @@ public class ConflictManagementPredicate implements Predicate<String> {
 
          if (retry) {
             try {
-               Thread.sleep(interval);
+               Thread.sleep(jittered(interval));
             } catch (InterruptedException ex) {
-               // ignore
+               Thread.currentThread().interrupt();
+               throw Throwables.propagate(ex);
             }
+            interval = Math.min(interval * 2, maxInterval);
 
             now = System.currentTimeMillis();
          }
@@ -181,6 +207,12 @@ public class ConflictManagementPredicate implements Predicate<String> {
       return operationSucceeded.apply(requestId);
    }
 
+   /** Returns a delay picked at random between half of the given interval and the whole interval. */
+   private static long jittered(final long interval) {
+      final long half = interval / 2;
+      return half + (long) (JITTER.nextDouble() * (interval - half));
+   }
+
    private static class OperationSucceededPredicate implements Predicate<String> {
 
       private final AzureComputeApi api;
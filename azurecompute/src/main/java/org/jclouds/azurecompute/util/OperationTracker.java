@@ -0,0 +1,242 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.azurecompute.util;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Resource;
+import javax.inject.Named;
+
+import org.jclouds.azurecompute.AzureComputeApi;
+import org.jclouds.azurecompute.domain.Operation;
+import org.jclouds.compute.reference.ComputeServiceConstants;
+import org.jclouds.logging.Logger;
+
+import com.google.common.base.Predicate;
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+/**
+ * Tracks asynchronous Azure operations. All the outstanding request ids are polled from a single scheduled task,
+ * each one backing off from the initial to the maximum poll period, instead of every caller polling on its own.
+ * <p>
+ * As a {@link Predicate}, it blocks until the operation completes and returns {@code false} if it didn't complete
+ * within the operation timeout.
+ */
+public class OperationTracker implements Predicate<String> {
+
+   @Resource
+   @Named(ComputeServiceConstants.COMPUTE_LOGGER)
+   protected Logger logger = Logger.NULL;
+
+   private static final long TICK_MILLIS = 1000;
+
+   // Lets the poller notice the deadline and complete the future before a waiting caller gives up on its own
+   private static final long WAIT_SLACK_MILLIS = 2 * TICK_MILLIS;
+
+   private static class TrackedOperation {
+      private final String requestId;
+      private final long started;
+      private final long deadline;
+      private final SettableFuture<Operation> future = SettableFuture.create();
+      private long period;
+      private long nextPoll;
+
+      TrackedOperation(String requestId, long started, long deadline, long period) {
+         this.requestId = requestId;
+         this.started = started;
+         this.deadline = deadline;
+         this.period = period;
+         this.nextPoll = started + period;
+      }
+   }
+
+   private final AzureComputeApi api;
+   private final ScheduledExecutorService scheduler;
+   private final long timeout;
+   private final long initialPeriod;
+   private final long maxPeriod;
+
+   private final Map<String, TrackedOperation> inFlight = new ConcurrentHashMap<String, TrackedOperation>();
+   // Guarded by this
+   private ScheduledFuture<?> poller;
+
+   private final AtomicLong succeeded = new AtomicLong();
+   private final AtomicLong failed = new AtomicLong();
+   private final AtomicLong timedOut = new AtomicLong();
+   private final AtomicLong totalLatency = new AtomicLong();
+   private final AtomicLong maxLatency = new AtomicLong();
+
+   /**
+    * @param timeout time in milliseconds after which an operation is given up.
+    * @param initialPeriod time in milliseconds before the first poll of an operation.
+    * @param maxPeriod maximum time in milliseconds between two polls of an operation.
+    */
+   public OperationTracker(AzureComputeApi api, ScheduledExecutorService scheduler, long timeout, long initialPeriod,
+         long maxPeriod) {
+      this.api = checkNotNull(api, "api must not be null");
+      this.scheduler = checkNotNull(scheduler, "scheduler must not be null");
+      this.timeout = timeout;
+      this.initialPeriod = initialPeriod;
+      this.maxPeriod = Math.max(initialPeriod, maxPeriod);
+   }
+
+   /**
+    * Starts tracking an operation. Tracking the same request id twice returns the same future.
+    *
+    * @return a future completed with the operation once it succeeded or failed, or failed with a
+    *         {@link TimeoutException} if it didn't complete within the operation timeout.
+    */
+   public ListenableFuture<Operation> track(String requestId) {
+      checkNotNull(requestId, "requestId must not be null");
+      synchronized (this) {
+         TrackedOperation operation = inFlight.get(requestId);
+         if (operation == null) {
+            long now = System.currentTimeMillis();
+            operation = new TrackedOperation(requestId, now, now + timeout, initialPeriod);
+            inFlight.put(requestId, operation);
+         }
+         if (poller == null) {
+            poller = scheduler.scheduleWithFixedDelay(new Runnable() {
+               @Override
+               public void run() {
+                  poll();
+               }
+            }, Math.min(initialPeriod, TICK_MILLIS), TICK_MILLIS, MILLISECONDS);
+         }
+         return operation.future;
+      }
+   }
+
+   /**
+    * Blocks until the operation completes.
+    *
+    * @return {@code true} if the operation succeeded, {@code false} if it didn't complete within the operation timeout.
+    * @throws RuntimeException wrapping a {@link CancellationException} if the operation failed.
+    */
+   @Override
+   public boolean apply(String requestId) {
+      try {
+         Operation operation = Uninterruptibles.getUninterruptibly(track(requestId), timeout + WAIT_SLACK_MILLIS,
+               MILLISECONDS);
+         if (operation.status() == Operation.Status.FAILED) {
+            throw new RuntimeException(new CancellationException(requestId));
+         }
+         return true;
+      } catch (ExecutionException e) {
+         if (e.getCause() instanceof TimeoutException) {
+            return false;
+         }
+         throw Throwables.propagate(e.getCause());
+      } catch (TimeoutException e) {
+         logger.warn("Operation %s still not tracked to completion after %sms", requestId, timeout);
+         return false;
+      }
+   }
+
+   private void poll() {
+      // Polled in turn so a large group of operations doesn't flood the management api
+      for (Iterator<TrackedOperation> it = inFlight.values().iterator(); it.hasNext();) {
+         TrackedOperation operation = it.next();
+         long now = System.currentTimeMillis();
+         if (now >= operation.deadline) {
+            it.remove();
+            timedOut.incrementAndGet();
+            operation.future.setException(new TimeoutException(operation.requestId));
+            continue;
+         }
+         if (now < operation.nextPoll) {
+            continue;
+         }
+
+         try {
+            Operation current = api.getOperationApi().get(operation.requestId);
+            if (current != null && (current.status() == Operation.Status.SUCCEEDED
+                  || current.status() == Operation.Status.FAILED)) {
+               it.remove();
+               recordCompletion(operation, current);
+               operation.future.set(current);
+               continue;
+            }
+         } catch (RuntimeException e) {
+            logger.warn(e, "Failed polling operation %s, will retry", operation.requestId);
+         }
+         operation.nextPoll = now + operation.period;
+         operation.period = Math.min(operation.period * 2, maxPeriod);
+      }
+
+      synchronized (this) {
+         if (inFlight.isEmpty() && poller != null) {
+            poller.cancel(false);
+            poller = null;
+         }
+      }
+   }
+
+   private void recordCompletion(TrackedOperation operation, Operation current) {
+      long latency = System.currentTimeMillis() - operation.started;
+      (current.status() == Operation.Status.SUCCEEDED ? succeeded : failed).incrementAndGet();
+      totalLatency.addAndGet(latency);
+      long max = maxLatency.get();
+      while (latency > max && !maxLatency.compareAndSet(max, latency)) {
+         max = maxLatency.get();
+      }
+      logger.debug("Operation %s %s after %sms", operation.requestId, current.status(), latency);
+   }
+
+   /** Number of operations being tracked. */
+   public int inFlight() {
+      return inFlight.size();
+   }
+
+   public long succeededCount() {
+      return succeeded.get();
+   }
+
+   public long failedCount() {
+      return failed.get();
+   }
+
+   public long timedOutCount() {
+      return timedOut.get();
+   }
+
+   /** Average time in milliseconds for an operation to succeed or fail. */
+   public long averageLatency() {
+      long completed = succeeded.get() + failed.get();
+      return completed == 0 ? 0 : totalLatency.get() / completed;
+   }
+
+   /** Longest time in milliseconds for an operation to succeed or fail. */
+   public long maxLatency() {
+      return maxLatency.get();
+   }
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.azurecompute.xml.stream;
+
+import java.net.URI;
+
+import javax.inject.Singleton;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.jclouds.azurecompute.domain.Disk;
+import org.jclouds.azurecompute.domain.Disk.Attachment;
+import org.jclouds.azurecompute.domain.OSImage;
+
+/**
+ * Streaming counterpart of {@link org.jclouds.azurecompute.xml.ListDisksHandler}.
+ *
+ * @see <a href="http://msdn.microsoft.com/en-us/library/jj157176" >api</a>
+ */
+@Singleton
+public final class DiskStreamParser extends StreamingListParser<Disk> {
+
+   public DiskStreamParser() {
+      super("Disk");
+   }
+
+   @Override
+   protected Disk parseItem(final XMLStreamReader reader) throws XMLStreamException {
+      String name = null;
+      String location = null;
+      String affinityGroup = null;
+      String description = null;
+      OSImage.Type os = null;
+      URI mediaLink = null;
+      Integer logicalSizeInGB = null;
+      Attachment attachedTo = null;
+      String sourceImage = null;
+
+      while (nextChild(reader)) {
+         switch (element(reader)) {
+            case ATTACHED_TO:
+               attachedTo = parseAttachment(reader);
+               break;
+            case OS:
+               final String osText = text(reader);
+               os = osText == null ? null : OSImage.Type.valueOf(osText.toUpperCase());
+               break;
+            case NAME:
+               name = text(reader);
+               break;
+            case LOGICAL_DISK_SIZE_IN_GB:
+               logicalSizeInGB = integer(reader);
+               break;
+            case DESCRIPTION:
+               description = text(reader);
+               break;
+            case LOCATION:
+               location = text(reader);
+               break;
+            case AFFINITY_GROUP:
+               affinityGroup = text(reader);
+               break;
+            case MEDIA_LINK:
+               final String link = text(reader);
+               mediaLink = link == null ? null : URI.create(link);
+               break;
+            case SOURCE_IMAGE_NAME:
+               sourceImage = text(reader);
+               break;
+            default:
+               skip(reader);
+         }
+      }
+      return Disk.create(name, location, affinityGroup, description, os, mediaLink, logicalSizeInGB, attachedTo,
+              sourceImage);
+   }
+
+   private static Attachment parseAttachment(final XMLStreamReader reader) throws XMLStreamException {
+      String hostedService = null;
+      String deployment = null;
+      String virtualMachine = null;
+
+      while (nextChild(reader)) {
+         switch (element(reader)) {
+            case HOSTED_SERVICE_NAME:
+               hostedService = text(reader);
+               break;
+            case DEPLOYMENT_NAME:
+               deployment = text(reader);
+               break;
+            case ROLE_NAME:
+               virtualMachine = text(reader);
+               break;
+            default:
+               skip(reader);
+         }
+      }
+      return Attachment.create(hostedService, deployment, virtualMachine);
+   }
+}
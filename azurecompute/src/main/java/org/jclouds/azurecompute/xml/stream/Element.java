@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.azurecompute.xml.stream;
+
+import java.util.Map;
+
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * The elements the streaming parsers dispatch on. Each element local name is resolved once with a single hash lookup,
+ * so the parsers switch on the constant instead of comparing the name against every candidate.
+ */
+enum Element {
+   AFFINITY_GROUP("AffinityGroup"),
+   ATTACHED_TO("AttachedTo"),
+   CATEGORY("Category"),
+   CREATED_TIME("CreatedTime"),
+   DATA_DISK_CONFIGURATION("DataDiskConfiguration"),
+   DATA_DISK_CONFIGURATIONS("DataDiskConfigurations"),
+   DEPLOYMENT_NAME("DeploymentName"),
+   DESCRIPTION("Description"),
+   DISK("Disk"),
+   DISK_NAME("DiskName"),
+   EULA("Eula"),
+   HOST_CACHING("HostCaching"),
+   HOSTED_SERVICE_NAME("HostedServiceName"),
+   ICON_URI("IconUri"),
+   IMAGE_FAMILY("ImageFamily"),
+   IO_TYPE("IOType"),
+   IS_PREMIUM("IsPremium"),
+   LABEL("Label"),
+   LANGUAGE("Language"),
+   LOCATION("Location"),
+   LOGICAL_DISK_SIZE_IN_GB("LogicalDiskSizeInGB"),
+   LOGICAL_SIZE_IN_GB("LogicalSizeInGB"),
+   LUN("Lun"),
+   MEDIA_LINK("MediaLink"),
+   MODIFIED_TIME("ModifiedTime"),
+   NAME("Name"),
+   OS("OS"),
+   OS_DISK_CONFIGURATION("OSDiskConfiguration"),
+   OS_IMAGE("OSImage"),
+   OS_STATE("OSState"),
+   PRIVACY_URI("PrivacyUri"),
+   PUBLISHED_DATE("PublishedDate"),
+   PUBLISHER_NAME("PublisherName"),
+   RECOMMENDED_VM_SIZE("RecommendedVMSize"),
+   ROLE_NAME("RoleName"),
+   SERVICE_NAME("ServiceName"),
+   SMALL_ICON_URI("SmallIconUri"),
+   SOURCE_IMAGE_NAME("SourceImageName"),
+   VM_IMAGE("VMImage"),
+   UNKNOWN(null);
+
+   private static final Map<String, Element> BY_LOCAL_NAME;
+
+   static {
+      final ImmutableMap.Builder<String, Element> byLocalName = ImmutableMap.builder();
+      for (Element element : values()) {
+         if (element.localName != null) {
+            byLocalName.put(element.localName, element);
+         }
+      }
+      BY_LOCAL_NAME = byLocalName.build();
+   }
+
+   private final String localName;
+
+   Element(final String localName) {
+      this.localName = localName;
+   }
+
+   static Element of(final String localName) {
+      final Element element = BY_LOCAL_NAME.get(localName);
+      return element == null ? UNKNOWN : element;
+   }
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.azurecompute.xml.stream;
+
+import static com.google.common.base.Strings.emptyToNull;
+
+import java.net.URI;
+
+import javax.inject.Singleton;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.jclouds.azurecompute.domain.OSImage;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Streaming counterpart of {@link org.jclouds.azurecompute.xml.ListOSImagesHandler}.
+ *
+ * @see <a href="http://msdn.microsoft.com/en-us/library/jj157191" >api</a>
+ */
+@Singleton
+public final class OSImageStreamParser extends StreamingListParser<OSImage> {
+
+   public OSImageStreamParser() {
+      super("OSImage");
+   }
+
+   @Override
+   protected OSImage parseItem(final XMLStreamReader reader) throws XMLStreamException {
+      String name = null;
+      String location = null;
+      String affinityGroup = null;
+      String label = null;
+      String description = null;
+      String imageFamily = null;
+      String category = null;
+      OSImage.Type os = null;
+      String publisherName = null;
+      URI mediaLink = null;
+      Integer logicalSizeInGB = null;
+      final ImmutableList.Builder<String> eulas = ImmutableList.builder();
+
+      while (nextChild(reader)) {
+         switch (element(reader)) {
+            case NAME:
+               name = text(reader);
+               break;
+            case LOCATION:
+               location = text(reader);
+               break;
+            case AFFINITY_GROUP:
+               affinityGroup = text(reader);
+               break;
+            case LABEL:
+               label = text(reader);
+               break;
+            case DESCRIPTION:
+               description = text(reader);
+               break;
+            case IMAGE_FAMILY:
+               imageFamily = text(reader);
+               break;
+            case CATEGORY:
+               category = text(reader);
+               break;
+            case OS:
+               final String osText = text(reader);
+               os = osText == null ? null : OSImage.Type.valueOf(osText.toUpperCase());
+               break;
+            case PUBLISHER_NAME:
+               publisherName = text(reader);
+               break;
+            case MEDIA_LINK:
+               final String link = text(reader);
+               mediaLink = link == null ? null : URI.create(link);
+               break;
+            case LOGICAL_SIZE_IN_GB:
+               logicalSizeInGB = integer(reader);
+               break;
+            case EULA:
+               final String eulaField = text(reader);
+               if (eulaField != null) {
+                  for (String eula : Splitter.on(';').split(eulaField)) {
+                     if ((eula = emptyToNull(eula.trim())) != null) { // Dirty data in RightScale eulas field.
+                        eulas.add(eula);
+                     }
+                  }
+               }
+               break;
+            default:
+               skip(reader);
+         }
+      }
+      return OSImage.create(name, location, affinityGroup, label, description, imageFamily, category, os,
+              publisherName, mediaLink, logicalSizeInGB, eulas.build());
+   }
+}
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.azurecompute.xml.stream;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Strings.emptyToNull;
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.jclouds.http.HttpResponse;
+import org.jclouds.util.Closeables2;
+
+import com.google.common.base.Function;
+
+/**
+ * Parses a list response with a pull parser, one item at a time, as the returned {@link XmlStream} is iterated.
+ * Unlike the {@code ParseSax} handlers the whole list is never held in memory, which matters for the image and disk
+ * listings of large subscriptions.
+ */
+public abstract class StreamingListParser<T> implements Function<HttpResponse, XmlStream<T>> {
+
+   private static final XMLInputFactory FACTORY = newFactory();
+
+   private static XMLInputFactory newFactory() {
+      final XMLInputFactory factory = XMLInputFactory.newFactory();
+      factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+      factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+      factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+      return factory;
+   }
+
+   private final Element item;
+
+   /**
+    * @param itemLocalName the local name of the elements that make up the list.
+    */
+   protected StreamingListParser(final String itemLocalName) {
+      this.item = Element.of(itemLocalName);
+   }
+
+   @Override
+   public XmlStream<T> apply(final HttpResponse response) {
+      checkNotNull(response.getPayload(), "payload");
+      try {
+         return parse(response.getPayload().openStream());
+      } catch (IOException e) {
+         throw new IllegalStateException("Could not read the response " + response, e);
+      }
+   }
+
+   /**
+    * Starts parsing the given input. The input is closed once the returned stream is exhausted or closed.
+    */
+   public XmlStream<T> parse(final InputStream input) {
+      try {
+         return new XmlStream<T>(this, FACTORY.createXMLStreamReader(input), input);
+      } catch (XMLStreamException e) {
+         Closeables2.closeQuietly(input);
+         throw new IllegalStateException("Could not parse the response", e);
+      }
+   }
+
+   /** Moves to the next item and parses it, or returns {@code null} at the end of the document. */
+   T next(final XMLStreamReader reader) throws XMLStreamException {
+      while (reader.hasNext()) {
+         if (reader.next() == START_ELEMENT && Element.of(reader.getLocalName()) == item) {
+            return parseItem(reader);
+         }
+      }
+      return null;
+   }
+
+   /**
+    * Parses the item the reader is positioned on, leaving the reader on the end tag of the item.
+    */
+   protected abstract T parseItem(XMLStreamReader reader) throws XMLStreamException;
+
+   /** Moves to the next child of the current element; returns {@code false} on the end tag of the current element. */
+   static boolean nextChild(final XMLStreamReader reader) throws XMLStreamException {
+      return reader.nextTag() == START_ELEMENT;
+   }
+
+   static Element element(final XMLStreamReader reader) {
+      return Element.of(reader.getLocalName());
+   }
+
+   /** Returns the trimmed text of the current element, or {@code null} if it is empty. */
+   static String text(final XMLStreamReader reader) throws XMLStreamException {
+      return emptyToNull(reader.getElementText().trim());
+   }
+
+   static Integer integer(final XMLStreamReader reader) throws XMLStreamException {
+      final String text = text(reader);
+      return text == null ? null : Integer.valueOf(text);
+   }
+
+   /** Skips the current element and all its children. */
+   static void skip(final XMLStreamReader reader) throws XMLStreamException {
+      int depth = 1;
+      while (depth > 0) {
+         final int event = reader.next();
+         if (event == START_ELEMENT) {
+            depth++;
+         } else if (event == END_ELEMENT) {
+            depth--;
+         }
+      }
+   }
+}
@@ -0,0 +1,276 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.azurecompute.xml.stream;
+
+import static com.google.common.base.CaseFormat.UPPER_CAMEL;
+import static com.google.common.base.CaseFormat.UPPER_UNDERSCORE;
+
+import java.net.URI;
+import java.util.Date;
+import java.util.List;
+
+import javax.inject.Singleton;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.jclouds.azurecompute.domain.DataVirtualHardDisk;
+import org.jclouds.azurecompute.domain.OSImage;
+import org.jclouds.azurecompute.domain.RoleSize;
+import org.jclouds.azurecompute.domain.VMImage;
+import org.jclouds.date.DateService;
+import org.jclouds.date.internal.SimpleDateFormatDateService;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Streaming counterpart of {@link org.jclouds.azurecompute.xml.ListVMImagesHandler}.
+ *
+ * @see <a href="https://msdn.microsoft.com/en-us/library/azure/dn499770.aspx" >api</a>
+ */
+@Singleton
+public final class VMImageStreamParser extends StreamingListParser<VMImage> {
+
+   private final DateService dateService = new SimpleDateFormatDateService();
+
+   public VMImageStreamParser() {
+      super("VMImage");
+   }
+
+   @Override
+   protected VMImage parseItem(final XMLStreamReader reader) throws XMLStreamException {
+      String name = null;
+      String label = null;
+      String category = null;
+      String description = null;
+      VMImage.OSDiskConfiguration osDiskConfiguration = null;
+      final List<DataVirtualHardDisk> dataDiskConfigurations = Lists.newArrayList();
+      String serviceName = null;
+      String deploymentName = null;
+      String roleName = null;
+      String location = null;
+      String affinityGroup = null;
+      Date createdTime = null;
+      Date modifiedTime = null;
+      String language = null;
+      String imageFamily = null;
+      RoleSize.Type recommendedVMSize = null;
+      Boolean isPremium = Boolean.FALSE;
+      String eula = null;
+      URI iconUri = null;
+      URI smallIconUri = null;
+      URI privacyUri = null;
+      Date publishedDate = null;
+
+      while (nextChild(reader)) {
+         switch (element(reader)) {
+            case NAME:
+               name = text(reader);
+               break;
+            case LABEL:
+               label = text(reader);
+               break;
+            case CATEGORY:
+               category = text(reader);
+               break;
+            case DESCRIPTION:
+               description = text(reader);
+               break;
+            case OS_DISK_CONFIGURATION:
+               osDiskConfiguration = parseOSDiskConfiguration(reader);
+               break;
+            case DATA_DISK_CONFIGURATIONS:
+               while (nextChild(reader)) {
+                  if (element(reader) == Element.DATA_DISK_CONFIGURATION) {
+                     dataDiskConfigurations.add(parseDataDiskConfiguration(reader));
+                  } else {
+                     skip(reader);
+                  }
+               }
+               break;
+            case SERVICE_NAME:
+               serviceName = text(reader);
+               break;
+            case DEPLOYMENT_NAME:
+               deploymentName = text(reader);
+               break;
+            case ROLE_NAME:
+               roleName = text(reader);
+               break;
+            case LOCATION:
+               location = text(reader);
+               break;
+            case AFFINITY_GROUP:
+               affinityGroup = text(reader);
+               break;
+            case CREATED_TIME:
+               createdTime = date(reader);
+               break;
+            case MODIFIED_TIME:
+               modifiedTime = date(reader);
+               break;
+            case LANGUAGE:
+               language = text(reader);
+               break;
+            case IMAGE_FAMILY:
+               imageFamily = text(reader);
+               break;
+            case RECOMMENDED_VM_SIZE:
+               final String vmSizeText = text(reader);
+               recommendedVMSize = vmSizeText == null ? null : parseRoleSize(vmSizeText);
+               break;
+            case IS_PREMIUM:
+               final String isPremiumText = text(reader);
+               if (isPremiumText != null) {
+                  isPremium = Boolean.parseBoolean(isPremiumText);
+               }
+               break;
+            case EULA:
+               eula = text(reader);
+               break;
+            case ICON_URI:
+               iconUri = uri(reader);
+               break;
+            case SMALL_ICON_URI:
+               smallIconUri = uri(reader);
+               break;
+            case PRIVACY_URI:
+               privacyUri = uri(reader);
+               break;
+            case PUBLISHED_DATE:
+               final String published = text(reader);
+               publishedDate = published == null ? null : dateService.iso8601SecondsDateParse(published);
+               break;
+            default:
+               skip(reader);
+         }
+      }
+      return VMImage.create(name, label, category, description, osDiskConfiguration, dataDiskConfigurations,
+              serviceName, deploymentName, roleName, location, affinityGroup, createdTime, modifiedTime, language,
+              imageFamily, recommendedVMSize, isPremium, eula, iconUri, smallIconUri, privacyUri, publishedDate);
+   }
+
+   private static VMImage.OSDiskConfiguration parseOSDiskConfiguration(final XMLStreamReader reader)
+           throws XMLStreamException {
+      String name = null;
+      VMImage.OSDiskConfiguration.Caching hostCaching = null;
+      VMImage.OSDiskConfiguration.OSState osState = null;
+      OSImage.Type os = null;
+      URI mediaLink = null;
+      Integer logicalDiskSizeInGB = null;
+      String ioType = null;
+
+      while (nextChild(reader)) {
+         switch (element(reader)) {
+            case NAME:
+               name = text(reader);
+               break;
+            case HOST_CACHING:
+               final String hostCachingText = text(reader);
+               if (hostCachingText != null) {
+                  try {
+                     hostCaching = VMImage.OSDiskConfiguration.Caching.valueOf(
+                             UPPER_CAMEL.to(UPPER_UNDERSCORE, hostCachingText));
+                  } catch (IllegalArgumentException e) {
+                     hostCaching = VMImage.OSDiskConfiguration.Caching.NONE;
+                  }
+               }
+               break;
+            case OS_STATE:
+               final String osStateText = text(reader);
+               osState = osStateText == null ? null
+                       : VMImage.OSDiskConfiguration.OSState.valueOf(osStateText.toUpperCase());
+               break;
+            case OS:
+               final String osText = text(reader);
+               os = osText == null ? null : OSImage.Type.valueOf(osText.toUpperCase());
+               break;
+            case MEDIA_LINK:
+               mediaLink = uri(reader);
+               break;
+            case LOGICAL_DISK_SIZE_IN_GB:
+               logicalDiskSizeInGB = integer(reader);
+               break;
+            case IO_TYPE:
+               ioType = text(reader);
+               break;
+            default:
+               skip(reader);
+         }
+      }
+      return VMImage.OSDiskConfiguration.create(name, hostCaching, osState, os, mediaLink, logicalDiskSizeInGB,
+              ioType);
+   }
+
+   private static DataVirtualHardDisk parseDataDiskConfiguration(final XMLStreamReader reader)
+           throws XMLStreamException {
+      DataVirtualHardDisk.Caching hostCaching = null;
+      String diskName = null;
+      Integer lun = null;
+      Integer logicalDiskSizeInGB = null;
+      URI mediaLink = null;
+      String ioType = null;
+
+      while (nextChild(reader)) {
+         switch (element(reader)) {
+            case HOST_CACHING:
+               final String hostCachingText = text(reader);
+               if (hostCachingText != null) {
+                  hostCaching = DataVirtualHardDisk.Caching.fromString(UPPER_CAMEL.to(UPPER_UNDERSCORE,
+                          hostCachingText));
+               }
+               break;
+            case DISK_NAME:
+            case NAME:
+               diskName = text(reader);
+               break;
+            case LUN:
+               lun = integer(reader);
+               break;
+            case LOGICAL_DISK_SIZE_IN_GB:
+               logicalDiskSizeInGB = integer(reader);
+               break;
+            case MEDIA_LINK:
+               mediaLink = uri(reader);
+               break;
+            case IO_TYPE:
+               ioType = text(reader);
+               break;
+            default:
+               skip(reader);
+         }
+      }
+      return DataVirtualHardDisk.create(hostCaching, diskName, lun, logicalDiskSizeInGB, mediaLink, ioType);
+   }
+
+   private Date date(final XMLStreamReader reader) throws XMLStreamException {
+      final String text = text(reader);
+      return text == null ? null : dateService.iso8601DateOrSecondsDateParse(text);
+   }
+
+   private static URI uri(final XMLStreamReader reader) throws XMLStreamException {
+      final String text = text(reader);
+      return text == null ? null : URI.create(text);
+   }
+
+   private static RoleSize.Type parseRoleSize(final String roleSize) {
+      try {
+         return RoleSize.Type.valueOf(roleSize.toUpperCase().replace(" ", ""));
+      } catch (IllegalArgumentException e) {
+         return RoleSize.Type.UNRECOGNIZED;
+      }
+   }
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.azurecompute.xml.stream;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import java.io.Closeable;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.jclouds.util.Closeables2;
+
+import com.google.common.collect.AbstractIterator;
+
+/**
+ * The items of a list response, parsed as they are iterated. It can only be iterated once; the underlying response is
+ * released when the iteration ends, fails or the stream is closed, so a partially read stream must be closed.
+ */
+public final class XmlStream<T> implements Iterable<T>, Closeable {
+
+   /** The parser, reader and input of the response, all {@code null} for an {@link #empty()} stream. */
+   private final StreamingListParser<T> parser;
+
+   private final XMLStreamReader reader;
+
+   private final InputStream input;
+
+   private final AtomicBoolean iterated = new AtomicBoolean();
+
+   XmlStream(final StreamingListParser<T> parser, final XMLStreamReader reader, final InputStream input) {
+      this.parser = parser;
+      this.reader = reader;
+      this.input = input;
+   }
+
+   /** Returns a stream without items, used when the listed resource does not exist. */
+   public static <T> XmlStream<T> empty() {
+      return new XmlStream<T>(null, null, null);
+   }
+
+   @Override
+   public Iterator<T> iterator() {
+      checkState(iterated.compareAndSet(false, true), "a streamed response can only be iterated once");
+      if (parser == null) {
+         return Collections.emptyIterator();
+      }
+      return new AbstractIterator<T>() {
+         @Override
+         protected T computeNext() {
+            final T next;
+            try {
+               next = parser.next(reader);
+            } catch (XMLStreamException e) {
+               close();
+               throw new IllegalStateException("Could not parse the response", e);
+            } catch (RuntimeException e) {
+               close();
+               throw e;
+            }
+            if (next == null) {
+               close();
+               return endOfData();
+            }
+            return next;
+         }
+      };
+   }
+
+   @Override
+   public void close() {
+      if (reader == null) {
+         return;
+      }
+      try {
+         reader.close();
+      } catch (XMLStreamException ignored) {
+         // the input is closed below anyway
+      }
+      Closeables2.closeQuietly(input);
+   }
+}
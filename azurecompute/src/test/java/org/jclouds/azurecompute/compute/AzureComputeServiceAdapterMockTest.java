@@ -0,0 +1,343 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.azurecompute.compute;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.jclouds.azurecompute.config.AzureComputeProperties.DEPLOYMENTS_CACHE_TTL;
+import static org.jclouds.azurecompute.config.AzureComputeProperties.LIST_NODES_CONCURRENCY;
+import static org.jclouds.azurecompute.config.AzureComputeProperties.OPERATION_POLL_INITIAL_PERIOD;
+import static org.jclouds.azurecompute.config.AzureComputeProperties.OPERATION_POLL_MAX_PERIOD;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.jclouds.azurecompute.domain.Deployment;
+import org.jclouds.azurecompute.internal.BaseAzureComputeApiMockTest;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Function;
+import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.squareup.okhttp.mockwebserver.Dispatcher;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
+
+@Test(groups = "unit", testName = "AzureComputeServiceAdapterMockTest", singleThreaded = true)
+public class AzureComputeServiceAdapterMockTest extends BaseAzureComputeApiMockTest {
+
+   private static final String DEPLOYMENT_NAME = "node1855162607153993262-b26";
+
+   public void testDisksAreDeletedWithoutWaitingForOtherDestroys() throws Exception {
+      final CountDownLatch slowBlocked = new CountDownLatch(1);
+      final CountDownLatch releaseSlow = new CountDownLatch(1);
+      final List<String> deleted = Collections.synchronizedList(Lists.<String>newArrayList());
+      final MockWebServer server = mockAzureManagementServer();
+      server.setDispatcher(new DestroyDispatcher(deleted, "slow", slowBlocked, releaseSlow));
+
+      try {
+         final AzureComputeServiceAdapter adapter = injector(server.getUrl("/"), pollEverySecond())
+                 .getInstance(AzureComputeServiceAdapter.class);
+
+         Thread slow = new Thread(new Runnable() {
+            @Override
+            public void run() {
+               adapter.internalDestroyNode("slow");
+            }
+         });
+         slow.start();
+         assertThat(slowBlocked.await(1, TimeUnit.MINUTES)).isTrue();
+
+         // Another node destroyed meanwhile deletes its disk without waiting for the slow one
+         assertThat(adapter.internalDestroyNode("fast")).isNotNull();
+         assertThat(deleted).containsExactly("deployment fast", "cloudservice fast", "disk fast");
+
+         releaseSlow.countDown();
+         slow.join(TimeUnit.MINUTES.toMillis(1));
+         assertThat(slow.isAlive()).isFalse();
+         assertThat(deleted).containsExactly("deployment fast", "cloudservice fast", "disk fast",
+                 "deployment slow", "cloudservice slow", "disk slow");
+      } finally {
+         releaseSlow.countDown();
+         server.shutdown();
+      }
+   }
+
+   public void testConcurrentListingsShareASingleFetch() throws Exception {
+      final MockWebServer server = mockAzureManagementServer();
+      final CloudServicesDispatcher dispatcher = new CloudServicesDispatcher("/services/hostedservices", "node1", "node2");
+      server.setDispatcher(dispatcher);
+
+      try {
+         final AzureComputeServiceAdapter adapter = injector(server.getUrl("/"), pollEverySecond())
+                 .getInstance(AzureComputeServiceAdapter.class);
+
+         final AtomicReference<Iterable<Deployment>> first = new AtomicReference<Iterable<Deployment>>();
+         Thread firstCaller = listNodes(adapter, first);
+         firstCaller.start();
+         assertThat(dispatcher.blocked.await(1, TimeUnit.MINUTES)).isTrue();
+
+         // A second caller waits for the listing in progress instead of starting its own
+         final AtomicReference<Iterable<Deployment>> second = new AtomicReference<Iterable<Deployment>>();
+         Thread secondCaller = listNodes(adapter, second);
+         secondCaller.start();
+         awaitBlocked(secondCaller);
+
+         dispatcher.release.countDown();
+         firstCaller.join(TimeUnit.MINUTES.toMillis(1));
+         secondCaller.join(TimeUnit.MINUTES.toMillis(1));
+         assertThat(names(first.get())).containsOnly("node1", "node2");
+         assertThat(names(second.get())).containsOnly("node1", "node2");
+         assertThat(dispatcher.listings.get()).isEqualTo(1);
+
+         // Both the listing and the lookup by ids are served from the cached listing within the TTL
+         assertThat(names(adapter.listNodes())).containsOnly("node1", "node2");
+         assertThat(names(adapter.listNodesByIds(ImmutableList.of("node2", "node3")))).containsOnly("node2");
+         assertThat(dispatcher.listings.get()).isEqualTo(1);
+      } finally {
+         dispatcher.release.countDown();
+         server.shutdown();
+      }
+   }
+
+   public void testExpiredListingIsFetchedAgain() throws Exception {
+      final MockWebServer server = mockAzureManagementServer();
+      final CloudServicesDispatcher dispatcher = new CloudServicesDispatcher(null, "node1");
+      server.setDispatcher(dispatcher);
+
+      try {
+         Properties overrides = pollEverySecond();
+         overrides.setProperty(DEPLOYMENTS_CACHE_TTL, "0");
+         final AzureComputeServiceAdapter adapter = injector(server.getUrl("/"), overrides)
+                 .getInstance(AzureComputeServiceAdapter.class);
+
+         assertThat(names(adapter.listNodes())).containsOnly("node1");
+         dispatcher.cloudServices.add("node2");
+         assertThat(names(adapter.listNodes())).containsOnly("node1", "node2");
+         assertThat(dispatcher.listings.get()).isEqualTo(2);
+      } finally {
+         server.shutdown();
+      }
+   }
+
+   public void testListingStartedBeforeADestroyIsNotReused() throws Exception {
+      final MockWebServer server = mockAzureManagementServer();
+      final CloudServicesDispatcher dispatcher = new CloudServicesDispatcher(
+            "/services/hostedservices/survivor/deployments/survivor", "victim", "survivor");
+      server.setDispatcher(dispatcher);
+
+      try {
+         Properties overrides = pollEverySecond();
+         overrides.setProperty(LIST_NODES_CONCURRENCY, "1");
+         final AzureComputeServiceAdapter adapter = injector(server.getUrl("/"), overrides)
+                 .getInstance(AzureComputeServiceAdapter.class);
+
+         // The listing has already fetched the victim when it gets destroyed
+         final AtomicReference<Iterable<Deployment>> stale = new AtomicReference<Iterable<Deployment>>();
+         Thread lister = listNodes(adapter, stale);
+         lister.start();
+         assertThat(dispatcher.blocked.await(1, TimeUnit.MINUTES)).isTrue();
+         assertThat(adapter.internalDestroyNode("victim")).isNotNull();
+
+         dispatcher.release.countDown();
+         lister.join(TimeUnit.MINUTES.toMillis(1));
+         assertThat(names(stale.get())).containsOnly("victim", "survivor");
+
+         // The listing that raced with the destroy is not cached, the next caller fetches a fresh one
+         assertThat(names(adapter.listNodes())).containsOnly("survivor");
+         assertThat(dispatcher.listings.get()).isEqualTo(2);
+      } finally {
+         dispatcher.release.countDown();
+         server.shutdown();
+      }
+   }
+
+   private static Thread listNodes(final AzureComputeServiceAdapter adapter,
+         final AtomicReference<Iterable<Deployment>> result) {
+      return new Thread(new Runnable() {
+         @Override
+         public void run() {
+            result.set(adapter.listNodes());
+         }
+      });
+   }
+
+   /** Waits for the given thread to block on a monitor, that is waiting for the listing held by another caller. */
+   private static void awaitBlocked(Thread thread) throws InterruptedException {
+      long deadline = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(1);
+      while (thread.getState() != Thread.State.BLOCKED) {
+         assertThat(System.currentTimeMillis()).isLessThan(deadline);
+         Thread.sleep(10);
+      }
+   }
+
+   private static Set<String> names(Iterable<Deployment> deployments) {
+      return FluentIterable.from(deployments).transform(new Function<Deployment, String>() {
+         @Override
+         public String apply(Deployment input) {
+            return input.name();
+         }
+      }).toSet();
+   }
+
+   private static Properties pollEverySecond() {
+      Properties overrides = new Properties();
+      overrides.setProperty(OPERATION_POLL_INITIAL_PERIOD, "0");
+      overrides.setProperty(OPERATION_POLL_MAX_PERIOD, "1");
+      return overrides;
+   }
+
+   private static MockResponse operation(String id) {
+      return new MockResponse().addHeader("Content-Type", "application/xml").setBody(
+            "<Operation xmlns=\"http://schemas.microsoft.com/windowsazure\"><ID>" + id + "</ID>"
+                  + "<Status>Succeeded</Status><HttpStatusCode>200</HttpStatusCode></Operation>");
+   }
+
+   /**
+    * Serves the deployments of single role nodes and completes all their operations, recording the deletions. The
+    * deletion of the deployment of the blocked node waits for the given latch.
+    */
+   private class DestroyDispatcher extends Dispatcher {
+      private final List<String> deleted;
+      private final String blockedNode;
+      private final CountDownLatch blocked;
+      private final CountDownLatch release;
+      private final String deployment = stringFromResource("/deployment.xml");
+
+      DestroyDispatcher(List<String> deleted, String blockedNode, CountDownLatch blocked, CountDownLatch release) {
+         this.deleted = deleted;
+         this.blockedNode = blockedNode;
+         this.blocked = blocked;
+         this.release = release;
+      }
+
+      @Override
+      public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+         String path = request.getPath().split("\\?")[0];
+         String[] segments = path.split("/");
+         if (path.startsWith("/operations/")) {
+            return operation(segments[2]);
+         }
+         if (request.getMethod().equals("POST")) {
+            return requestIdResponse("shutdown-" + segments[3]);
+         }
+         if (request.getMethod().equals("GET") && path.contains("/deployments/")) {
+            return new MockResponse().addHeader("Content-Type", "application/xml")
+                    .setBody(deployment.replace(DEPLOYMENT_NAME, segments[3]));
+         }
+         if (request.getMethod().equals("DELETE")) {
+            String node;
+            String resource;
+            if (path.startsWith("/services/disks/")) {
+               resource = "disk";
+               node = segments[3].substring(0, segments[3].indexOf('-'));
+            } else if (path.contains("/deployments/")) {
+               resource = "deployment";
+               node = segments[3];
+               if (node.equals(blockedNode)) {
+                  blocked.countDown();
+                  release.await();
+               }
+            } else {
+               resource = "cloudservice";
+               node = segments[3];
+            }
+            deleted.add(resource + " " + node);
+            return requestIdResponse(resource + "-" + node);
+         }
+         return new MockResponse().setResponseCode(404);
+      }
+   }
+
+   /**
+    * Serves the listing of the given cloud services, each with a single role deployment of the same name, and
+    * completes all their operations. A deleted cloud service is no longer listed. The first request to the blocked
+    * path, if any, waits for the release latch.
+    */
+   private class CloudServicesDispatcher extends Dispatcher {
+      private final Set<String> cloudServices = Collections.synchronizedSet(Sets.<String>newLinkedHashSet());
+      private final AtomicInteger listings = new AtomicInteger();
+      private final String blockedPath;
+      private final CountDownLatch blocked = new CountDownLatch(1);
+      private final CountDownLatch release = new CountDownLatch(1);
+      private final String deployment = stringFromResource("/deployment.xml");
+
+      CloudServicesDispatcher(String blockedPath, String... cloudServices) {
+         this.blockedPath = blockedPath;
+         this.cloudServices.addAll(ImmutableList.copyOf(cloudServices));
+      }
+
+      @Override
+      public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+         String path = request.getPath().split("\\?")[0];
+         String[] segments = path.split("/");
+         if (path.equals(blockedPath) && blocked.getCount() > 0) {
+            blocked.countDown();
+            release.await();
+         }
+         if (path.startsWith("/operations/")) {
+            return operation(segments[2]);
+         }
+         if (request.getMethod().equals("POST")) {
+            return requestIdResponse("shutdown-" + segments[3]);
+         }
+         if (request.getMethod().equals("GET") && path.equals("/services/hostedservices")) {
+            listings.incrementAndGet();
+            return new MockResponse().addHeader("Content-Type", "application/xml").setBody(hostedServices());
+         }
+         if (request.getMethod().equals("GET") && path.contains("/deployments/")) {
+            return cloudServices.contains(segments[3])
+                  ? new MockResponse().addHeader("Content-Type", "application/xml")
+                        .setBody(deployment.replace(DEPLOYMENT_NAME, segments[3]))
+                  : new MockResponse().setResponseCode(404);
+         }
+         if (request.getMethod().equals("DELETE")) {
+            if (!path.startsWith("/services/disks/") && !path.contains("/deployments/")) {
+               cloudServices.remove(segments[3]);
+            }
+            return requestIdResponse("delete-" + segments[segments.length - 1]);
+         }
+         return new MockResponse().setResponseCode(404);
+      }
+
+      private String hostedServices() {
+         Set<String> listed;
+         synchronized (cloudServices) {
+            listed = ImmutableSet.copyOf(cloudServices);
+         }
+         StringBuilder xml = new StringBuilder("<HostedServices xmlns=\"http://schemas.microsoft.com/windowsazure\">");
+         for (String name : listed) {
+            xml.append("<HostedService><Url>https://api/services/hostedservices/").append(name).append("</Url>")
+                  .append("<ServiceName>").append(name).append("</ServiceName>")
+                  .append("<HostedServiceProperties><Location>West Europe</Location><Label>bGFiZWw=</Label>")
+                  .append("<Status>Created</Status><DateCreated>2012-08-06T14:55:17Z</DateCreated>")
+                  .append("<DateLastModified>2012-08-06T15:50:34Z</DateLastModified><ExtendedProperties />")
+                  .append("</HostedServiceProperties></HostedService>");
+         }
+         return xml.append("</HostedServices>").toString();
+      }
+   }
+}
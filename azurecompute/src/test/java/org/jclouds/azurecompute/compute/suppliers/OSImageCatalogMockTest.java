@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.azurecompute.compute.suppliers;
+
+import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.jclouds.azurecompute.compute.functions.OSImageToImage;
+import org.jclouds.azurecompute.domain.OSImage;
+import org.jclouds.azurecompute.internal.BaseAzureComputeApiMockTest;
+import org.testng.annotations.Test;
+
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+
+@Test(groups = "unit", testName = "OSImageCatalogMockTest", singleThreaded = true)
+public class OSImageCatalogMockTest extends BaseAzureComputeApiMockTest {
+
+   private static final String UBUNTU = "CANONICAL__Canonical-Ubuntu-12-04-amd64-server-20120528.1.3-en-us-30GB.vhd";
+
+   private static final String WINDOWS = "MSFT__Win2K8R2SP1-120612-1520-121206-01-en-us-30GB.vhd";
+
+   public void testIndexesImagesByName() throws Exception {
+      final MockWebServer server = mockAzureManagementServer();
+      server.enqueue(xmlResponse("/images.xml"));
+
+      try {
+         final OSImageCatalog catalog = new OSImageCatalog(api(server.getUrl("/")), 60000, newDirectExecutorService());
+
+         final List<OSImage> images = catalog.list();
+         assertThat(images).hasSize(9);
+
+         final String geoName = OSImageToImage.toGeoName(WINDOWS, "North Europe");
+         final OSImage windows = catalog.get(geoName);
+         assertThat(windows.name()).isEqualTo(geoName);
+         assertThat(windows.location()).isEqualTo("North Europe");
+         assertThat(images).contains(windows);
+
+         assertThat(catalog.get(WINDOWS).name()).isEqualTo(WINDOWS);
+         assertThat(catalog.get(UBUNTU).location()).isNull();
+         assertThat(catalog.get(OSImageToImage.toGeoName(UBUNTU, "West US")).location()).isEqualTo("West US");
+         assertThat(catalog.get("unknown-image")).isNull();
+
+         assertThat(catalog.list()).isSameAs(images);
+         assertThat(server.getRequestCount()).isEqualTo(1);
+         assertSent(server, "GET", "/services/images");
+      } finally {
+         server.shutdown();
+      }
+   }
+
+   public void testKeepsTheFirstImageOfADuplicateName() throws Exception {
+      final String images = stringFromResource("/images.xml");
+      final String ubuntu = images.substring(images.indexOf("<OSImage>"), images.indexOf("</OSImage>") + 10);
+      final MockWebServer server = mockAzureManagementServer();
+      server.enqueue(new MockResponse().addHeader("Content-Type", "application/xml").setBody(images.replace(
+            "</Images>", ubuntu.replace("Ubuntu Server 12.04 LTS</Label>", "Duplicate</Label>") + "</Images>")));
+
+      try {
+         final OSImageCatalog catalog = new OSImageCatalog(api(server.getUrl("/")), 60000, newDirectExecutorService());
+
+         assertThat(catalog.list()).hasSize(10);
+         assertThat(catalog.get(UBUNTU).label()).isEqualTo("Ubuntu Server 12.04 LTS");
+         assertThat(catalog.get(OSImageToImage.toGeoName(UBUNTU, "West US")).label())
+               .isEqualTo("Ubuntu Server 12.04 LTS");
+      } finally {
+         server.shutdown();
+      }
+   }
+
+   public void testInvalidateFetchesAgain() throws Exception {
+      final MockWebServer server = mockAzureManagementServer();
+      server.enqueue(xmlResponse("/images.xml"));
+      server.enqueue(xmlResponse("/images.xml"));
+
+      try {
+         final OSImageCatalog catalog = new OSImageCatalog(api(server.getUrl("/")), 60000, newDirectExecutorService());
+
+         final List<OSImage> images = catalog.list();
+         catalog.invalidate();
+         assertThat(catalog.list()).isNotSameAs(images).isEqualTo(images);
+         assertThat(server.getRequestCount()).isEqualTo(2);
+      } finally {
+         server.shutdown();
+      }
+   }
+}
@@ -17,11 +17,14 @@
 package org.jclouds.azurecompute.features;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
 import org.jclouds.azurecompute.internal.BaseAzureComputeApiMockTest;
 import org.jclouds.azurecompute.xml.ListDisksHandlerTest;
 import org.testng.annotations.Test;
 
+import com.google.common.collect.ImmutableList;
+import com.squareup.okhttp.mockwebserver.MockResponse;
 import com.squareup.okhttp.mockwebserver.MockWebServer;
 
 @Test(groups = "unit", testName = "DiskApiMockTest")
@@ -42,6 +45,21 @@ public class DiskApiMockTest extends BaseAzureComputeApiMockTest {
       }
    }
 
+   public void testStreamWhenNotFound() throws Exception {
+      MockWebServer server = mockAzureManagementServer();
+      server.enqueue(new MockResponse().setResponseCode(404));
+
+      try {
+         DiskApi api = api(server.getUrl("/")).getDiskApi();
+
+         assertTrue(ImmutableList.copyOf(api.stream()).isEmpty());
+
+         assertSent(server, "GET", "/services/disks");
+      } finally {
+         server.shutdown();
+      }
+   }
+
    public void testDelete() throws Exception {
       MockWebServer server = mockAzureManagementServer();
       server.enqueue(requestIdResponse("request-1"));
@@ -17,6 +17,7 @@
 package org.jclouds.azurecompute.features;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 import java.net.URI;
 
 import org.jclouds.azurecompute.domain.OSImage;
@@ -25,6 +26,8 @@ import org.jclouds.azurecompute.internal.BaseAzureComputeApiMockTest;
 import org.jclouds.azurecompute.xml.ListOSImagesHandlerTest;
 import org.testng.annotations.Test;
 
+import com.google.common.collect.ImmutableList;
+import com.squareup.okhttp.mockwebserver.MockResponse;
 import com.squareup.okhttp.mockwebserver.MockWebServer;
 
 @Test(groups = "unit", testName = "OSImageApiMockTest")
@@ -45,6 +48,36 @@ public class OSImageApiMockTest extends BaseAzureComputeApiMockTest {
       }
    }
 
+   public void testStream() throws Exception {
+      MockWebServer server = mockAzureManagementServer();
+      server.enqueue(xmlResponse("/images.xml"));
+
+      try {
+         OSImageApi api = api(server.getUrl("/")).getOSImageApi();
+
+         assertEquals(ImmutableList.copyOf(api.stream()), ListOSImagesHandlerTest.expected());
+
+         assertSent(server, "GET", "/services/images");
+      } finally {
+         server.shutdown();
+      }
+   }
+
+   public void testStreamWhenNotFound() throws Exception {
+      MockWebServer server = mockAzureManagementServer();
+      server.enqueue(new MockResponse().setResponseCode(404));
+
+      try {
+         OSImageApi api = api(server.getUrl("/")).getOSImageApi();
+
+         assertTrue(ImmutableList.copyOf(api.stream()).isEmpty());
+
+         assertSent(server, "GET", "/services/images");
+      } finally {
+         server.shutdown();
+      }
+   }
+
    public void testAdd() throws Exception {
       MockWebServer server = mockAzureManagementServer();
       server.enqueue(requestIdResponse("request-1"));
@@ -20,6 +20,7 @@ import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.assertEquals;
 
+import com.google.common.collect.ImmutableList;
 import com.squareup.okhttp.mockwebserver.MockResponse;
 import com.squareup.okhttp.mockwebserver.MockWebServer;
 import org.jclouds.azurecompute.domain.OSImage;
@@ -66,6 +67,21 @@ public class VMImageApiMockTest extends BaseAzureComputeApiMockTest {
         }
     }
 
+    public void streamWhenNotFound() throws Exception {
+        MockWebServer server = mockAzureManagementServer();
+        server.enqueue(new MockResponse().setResponseCode(404));
+
+        try {
+            VMImageApi api = api(server.getUrl("/")).getVMImageApi();
+
+            assertTrue(ImmutableList.copyOf(api.stream()).isEmpty());
+
+            assertSent(server, "GET", "/services/vmimages");
+        } finally {
+            server.shutdown();
+        }
+    }
+
     public void create() throws Exception {
         MockWebServer server = mockAzureManagementServer();
         server.enqueue(requestIdResponse("request-1"));
@@ -32,6 +32,7 @@ import org.jclouds.util.Strings2;
 
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableSet;
+import com.google.inject.Injector;
 import com.google.inject.Module;
 import com.squareup.okhttp.mockwebserver.MockResponse;
 import com.squareup.okhttp.mockwebserver.MockWebServer;
@@ -62,6 +63,12 @@ public class BaseAzureComputeApiMockTest {
               .modules(modules).overrides(properties).buildApi(AzureComputeApi.class);
    }
 
+   /** Injector of the whole provider, to test the compute abstraction against the mock server. */
+   public Injector injector(URL url, Properties overrides) {
+      return ContextBuilder.newBuilder(provider).credentials(identity, credential).endpoint(url.toString())
+              .modules(modules).overrides(overrides).buildInjector();
+   }
+
    protected static MockWebServer mockAzureManagementServer() throws IOException {
       MockWebServer server = new MockWebServer();
       server.play();
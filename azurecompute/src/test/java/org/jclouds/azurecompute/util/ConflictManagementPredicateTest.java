@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.azurecompute.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.HttpResponseException;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Predicates;
+import com.google.common.collect.Lists;
+
+@Test(groups = "unit", testName = "ConflictManagementPredicateTest")
+public class ConflictManagementPredicateTest {
+
+   public void testConflictsAreRetriedWithJitteredBackoff() {
+      final List<Long> attempts = Lists.newArrayList();
+      assertTrue(new ConflictManagementPredicate(null, Predicates.<String>alwaysTrue(), 60000) {
+         @Override
+         protected String operation() {
+            attempts.add(System.currentTimeMillis());
+            if (attempts.size() <= 3) {
+               throw conflict();
+            }
+            // no request id to track, the operation is assumed to have succeeded
+            return null;
+         }
+      }.apply("disk"));
+
+      assertThat(attempts).hasSize(4);
+      // Each retry waits between half and all of an interval doubling from one second
+      long interval = 1000;
+      for (int i = 1; i < attempts.size(); i++) {
+         long delay = attempts.get(i) - attempts.get(i - 1);
+         assertThat(delay).isBetween(interval / 2, interval + 500);
+         interval *= 2;
+      }
+   }
+
+   public void testGivesUpAfterTimeout() {
+      final List<Long> attempts = Lists.newArrayList();
+      long start = System.currentTimeMillis();
+      try {
+         new ConflictManagementPredicate(null, Predicates.<String>alwaysTrue(), 2000) {
+            @Override
+            protected String operation() {
+               attempts.add(System.currentTimeMillis());
+               throw conflict();
+            }
+         }.apply("disk");
+         fail("conflicts past the timeout should have thrown");
+      } catch (RuntimeException e) {
+         assertThat(e.getCause()).isInstanceOf(TimeoutException.class);
+      }
+      assertThat(attempts.size()).isGreaterThan(1);
+      assertThat(System.currentTimeMillis() - start).isLessThan(2000 + 4000 + 500);
+   }
+
+   private static HttpResponseException conflict() {
+      return new HttpResponseException("conflict", null,
+            HttpResponse.builder().statusCode(409).message("Conflict").build());
+   }
+}
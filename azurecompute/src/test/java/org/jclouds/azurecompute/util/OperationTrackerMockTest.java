@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.azurecompute.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.jclouds.azurecompute.domain.Operation;
+import org.jclouds.azurecompute.internal.BaseAzureComputeApiMockTest;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+
+@Test(groups = "unit", testName = "OperationTrackerMockTest", singleThreaded = true)
+public class OperationTrackerMockTest extends BaseAzureComputeApiMockTest {
+
+   private ScheduledExecutorService scheduler;
+
+   @BeforeMethod
+   public void createScheduler() {
+      scheduler = Executors.newSingleThreadScheduledExecutor();
+   }
+
+   @AfterMethod(alwaysRun = true)
+   public void shutdownScheduler() {
+      scheduler.shutdownNow();
+   }
+
+   public void testTracksOperationsFromOnePoller() throws Exception {
+      final MockWebServer server = mockAzureManagementServer();
+      // Polled in no particular order, one of them is still in progress on the first round
+      server.enqueue(operationResponse("request-id", "InProgress"));
+      server.enqueue(operationResponse("request-id", "Succeeded"));
+      server.enqueue(operationResponse("request-id", "Succeeded"));
+
+      try {
+         final OperationTracker tracker = new OperationTracker(api(server.getUrl("/")), scheduler, 10000, 10, 10);
+         ListenableFuture<Operation> first = tracker.track("first");
+         ListenableFuture<Operation> second = tracker.track("second");
+         assertThat(tracker.track("first")).isSameAs(first);
+
+         assertTrue(tracker.apply("first"));
+         assertTrue(tracker.apply("second"));
+         assertThat(first.get().status()).isEqualTo(Operation.Status.SUCCEEDED);
+         assertThat(second.get().status()).isEqualTo(Operation.Status.SUCCEEDED);
+
+         assertThat(server.getRequestCount()).isEqualTo(3);
+         assertThat(tracker.inFlight()).isEqualTo(0);
+         assertThat(tracker.succeededCount()).isEqualTo(2);
+      } finally {
+         server.shutdown();
+      }
+   }
+
+   public void testFailedOperation() throws Exception {
+      final MockWebServer server = mockAzureManagementServer();
+      server.enqueue(operationResponse("request-id", "Failed"));
+
+      try {
+         final OperationTracker tracker = new OperationTracker(api(server.getUrl("/")), scheduler, 10000, 10, 10);
+         try {
+            tracker.apply("request-id");
+            fail("failed operation should have thrown");
+         } catch (RuntimeException e) {
+            assertThat(e.getCause()).isInstanceOf(CancellationException.class);
+         }
+         assertThat(tracker.failedCount()).isEqualTo(1);
+      } finally {
+         server.shutdown();
+      }
+   }
+
+   public void testOperationTimeout() throws Exception {
+      final MockWebServer server = mockAzureManagementServer();
+      for (int i = 0; i < 10; i++) {
+         server.enqueue(operationResponse("request-id", "InProgress"));
+      }
+
+      try {
+         final OperationTracker tracker = new OperationTracker(api(server.getUrl("/")), scheduler, 1500, 10, 10);
+         assertFalse(tracker.apply("request-id"));
+         assertThat(tracker.timedOutCount()).isEqualTo(1);
+         assertThat(tracker.inFlight()).isEqualTo(0);
+      } finally {
+         server.shutdown();
+      }
+   }
+
+   public void testWaitIsBoundedWhenThePollerIsStuck() throws Exception {
+      final MockWebServer server = mockAzureManagementServer();
+      final CountDownLatch release = new CountDownLatch(1);
+      // Keeps the only scheduler thread busy, as a hung status request would
+      scheduler.submit(new Callable<Void>() {
+         @Override
+         public Void call() throws Exception {
+            release.await();
+            return null;
+         }
+      });
+
+      try {
+         final OperationTracker tracker = new OperationTracker(api(server.getUrl("/")), scheduler, 500, 10, 10);
+         long start = System.currentTimeMillis();
+         assertFalse(tracker.apply("request-id"));
+         assertThat(System.currentTimeMillis() - start).isLessThan(10000);
+      } finally {
+         release.countDown();
+         server.shutdown();
+      }
+   }
+
+   private MockResponse operationResponse(String id, String status) {
+      return new MockResponse().addHeader("Content-Type", "application/xml").setBody(
+            "<Operation xmlns=\"http://schemas.microsoft.com/windowsazure\"><ID>" + id + "</ID>"
+                  + "<Status>" + status + "</Status><HttpStatusCode>200</HttpStatusCode></Operation>");
+   }
+
+}
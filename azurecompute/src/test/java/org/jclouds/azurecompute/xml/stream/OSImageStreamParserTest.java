@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.azurecompute.xml.stream;
+
+import static org.testng.Assert.assertEquals;
+
+import java.io.InputStream;
+import java.util.List;
+
+import org.jclouds.azurecompute.domain.OSImage;
+import org.jclouds.azurecompute.xml.ListOSImagesHandlerTest;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+
+@Test(groups = "unit", testName = "OSImageStreamParserTest")
+public class OSImageStreamParserTest {
+
+   public void test() {
+      InputStream is = getClass().getResourceAsStream("/images.xml");
+      List<OSImage> result = ImmutableList.copyOf(new OSImageStreamParser().parse(is));
+
+      assertEquals(result, ListOSImagesHandlerTest.expected());
+   }
+
+   @Test(expectedExceptions = IllegalStateException.class)
+   public void testIteratesOnce() {
+      XmlStream<OSImage> stream = new OSImageStreamParser().parse(getClass().getResourceAsStream("/images.xml"));
+      try {
+         stream.iterator().next();
+         stream.iterator();
+      } finally {
+         stream.close();
+      }
+   }
+}
@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.benchmark;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.Module;
+import com.google.inject.persist.jpa.JpaPersistModule;
+import org.jclouds.ContextBuilder;
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.BlobStoreContext;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Opens a jdbc blobstore on one of the persistence units of the test tree, Hibernate with HSQLDB or
+ * EclipseLink with H2. Both units recreate their schema, so every trial starts from an empty database.
+ */
+@State(Scope.Benchmark)
+public abstract class BaseJdbcBenchmark {
+
+   protected static final String CONTAINER_NAME = "benchmark-container";
+
+   @Param({ "jclouds-test-hsqldb", "jclouds-test-h2" })
+   public String persistenceUnit;
+
+   protected BlobStoreContext context;
+   protected BlobStore blobStore;
+
+   @Setup(Level.Trial)
+   public void setUpBlobStore() {
+      context = ContextBuilder.newBuilder("jdbc")
+            .modules(ImmutableSet.<Module> of(new JpaPersistModule(persistenceUnit)))
+            .build(BlobStoreContext.class);
+      blobStore = context.getBlobStore();
+      blobStore.createContainerInLocation(null, CONTAINER_NAME);
+   }
+
+   @TearDown(Level.Trial)
+   public void tearDownBlobStore() {
+      context.close();
+   }
+
+}
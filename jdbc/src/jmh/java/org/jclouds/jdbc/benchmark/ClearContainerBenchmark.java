@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.benchmark;
+
+import static org.jclouds.utils.TestUtils.randomByteSource;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Clears a container holding small blobs and blobs spanning a few chunks. The container is filled
+ * again before every invocation, outside of the measured time.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ClearContainerBenchmark extends BaseJdbcBenchmark {
+
+   @Param({ "2000" })
+   public int blobCount;
+
+   @Setup(Level.Invocation)
+   public void setUpBlobs() {
+      for (int i = 0; i < blobCount; i++) {
+         long size = i % 10 == 0 ? 3 * 1024 * 1024 : 1024;
+         blobStore.putBlob(CONTAINER_NAME, blobStore.blobBuilder("blob-" + i)
+               .payload(randomByteSource().slice(0, size))
+               .contentLength(size)
+               .build());
+      }
+   }
+
+   @Benchmark
+   public void clearContainer() {
+      blobStore.clearContainer(CONTAINER_NAME);
+   }
+
+}
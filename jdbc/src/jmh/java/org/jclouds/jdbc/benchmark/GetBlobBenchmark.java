@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.benchmark;
+
+import static org.jclouds.utils.TestUtils.randomByteSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.blobstore.options.GetOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Closeables;
+
+/**
+ * Reads a 64 MiB blob through JdbcInputStream, either whole or a 1 MiB range in its middle that does
+ * not start on a chunk boundary.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GetBlobBenchmark extends BaseJdbcBenchmark {
+
+   private static final String BLOB_NAME = "get-blob";
+   private static final long BLOB_SIZE = 64 * 1024 * 1024;
+   private static final long RANGE_OFFSET = BLOB_SIZE / 2 + 12345;
+   private static final long RANGE_SIZE = 1024 * 1024;
+
+   @Setup(Level.Trial)
+   public void setUpBlob() {
+      blobStore.putBlob(CONTAINER_NAME, blobStore.blobBuilder(BLOB_NAME)
+            .payload(randomByteSource().slice(0, BLOB_SIZE))
+            .contentLength(BLOB_SIZE)
+            .build());
+   }
+
+   @Benchmark
+   public long getBlob() throws IOException {
+      return drain(blobStore.getBlob(CONTAINER_NAME, BLOB_NAME));
+   }
+
+   @Benchmark
+   public long getBlobRange() throws IOException {
+      return drain(blobStore.getBlob(CONTAINER_NAME, BLOB_NAME,
+            new GetOptions().range(RANGE_OFFSET, RANGE_OFFSET + RANGE_SIZE - 1)));
+   }
+
+   private static long drain(Blob blob) throws IOException {
+      InputStream is = blob.getPayload().openStream();
+      try {
+         return ByteStreams.copy(is, ByteStreams.nullOutputStream());
+      } finally {
+         Closeables.closeQuietly(is);
+      }
+   }
+
+}
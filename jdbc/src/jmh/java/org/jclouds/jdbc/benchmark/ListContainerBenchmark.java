@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.blobstore.domain.PageSet;
+import org.jclouds.blobstore.domain.StorageMetadata;
+import org.jclouds.blobstore.options.ListContainerOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Lists every key of a large container, one page of 1000 keys at a time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ListContainerBenchmark extends BaseJdbcBenchmark {
+
+   @Param({ "100000" })
+   public int blobCount;
+
+   @Setup(Level.Trial)
+   public void setUpBlobs() {
+      for (int i = 0; i < blobCount; i++) {
+         blobStore.putBlob(CONTAINER_NAME, blobStore.blobBuilder(String.format("dir-%02d/blob-%08d", i % 100, i))
+               .payload("benchmark")
+               .build());
+      }
+   }
+
+   @Benchmark
+   public int listContainer() {
+      int count = 0;
+      String marker = null;
+      do {
+         ListContainerOptions options = ListContainerOptions.Builder.recursive().maxResults(1000);
+         if (marker != null) {
+            options.afterMarker(marker);
+         }
+         PageSet<? extends StorageMetadata> page = blobStore.list(CONTAINER_NAME, options);
+         count += page.size();
+         marker = page.getNextMarker();
+      } while (marker != null);
+      return count;
+   }
+
+}
@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.benchmark;
+
+import static org.jclouds.utils.TestUtils.randomByteSource;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.io.ByteSource;
+
+/**
+ * Writes a blob of 1 KiB, 1 MiB or 256 MiB. The same key is overwritten, so every iteration also
+ * releases the chunks of the previous version.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PutBlobBenchmark extends BaseJdbcBenchmark {
+
+   private static final String BLOB_NAME = "put-blob";
+
+   @Param({ "1024", "1048576", "268435456" })
+   public int size;
+
+   private ByteSource payload;
+
+   @Setup(Level.Trial)
+   public void setUpPayload() {
+      payload = randomByteSource().slice(0, size);
+   }
+
+   @Benchmark
+   public String putBlob() {
+      return blobStore.putBlob(CONTAINER_NAME, blobStore.blobBuilder(BLOB_NAME)
+            .payload(payload)
+            .contentLength(size)
+            .build());
+   }
+
+}
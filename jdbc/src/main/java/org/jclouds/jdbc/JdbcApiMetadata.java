@@ -23,8 +23,11 @@ import org.jclouds.apis.ApiMetadata;
 import org.jclouds.apis.internal.BaseApiMetadata;
 import org.jclouds.blobstore.BlobStoreContext;
 import org.jclouds.jdbc.config.JdbcBlobStoreContextModule;
+import org.jclouds.jdbc.config.JdbcProperties;
+import org.jclouds.jdbc.reference.JdbcConstants;
 
 import java.net.URI;
+import java.util.Properties;
 
 /**
  * Implementation of {@link ApiMetadata} for jclouds Jdbc BlobStore
@@ -45,6 +48,14 @@ public class JdbcApiMetadata extends BaseApiMetadata {
       super(builder);
    }
 
+   public static Properties defaultProperties() {
+      Properties properties = BaseApiMetadata.defaultProperties();
+      properties.setProperty(JdbcProperties.CHUNK_SIZE, String.valueOf(JdbcConstants.DEFAULT_CHUNK_SIZE));
+      properties.setProperty(JdbcProperties.INLINE_THRESHOLD, "0");
+      properties.setProperty(JdbcProperties.DEDUPLICATE, "false");
+      return properties;
+   }
+
    public static class Builder extends BaseApiMetadata.Builder<Builder> {
 
       protected Builder() {
@@ -58,6 +69,7 @@ public class JdbcApiMetadata extends BaseApiMetadata {
          .version("1")
          .documentation(URI.create("http://www.jclouds.org/documentation/userguide/blobstore-guide"))
          .view(BlobStoreContext.class)
+         .defaultProperties(JdbcApiMetadata.defaultProperties())
          .defaultModules(ImmutableSet.<Class<? extends Module>>of(JdbcBlobStoreContextModule.class));
       }
 
@@ -0,0 +1,308 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.blobstore;
+
+import static com.google.common.collect.Sets.newTreeSet;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.UUID;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.jclouds.blobstore.ContainerNotFoundException;
+import org.jclouds.blobstore.KeyNotFoundException;
+import org.jclouds.blobstore.config.LocalBlobStore;
+import org.jclouds.blobstore.domain.BlobAccess;
+import org.jclouds.blobstore.domain.BlobMetadata;
+import org.jclouds.blobstore.domain.MultipartPart;
+import org.jclouds.blobstore.domain.MultipartUpload;
+import org.jclouds.blobstore.domain.MutableBlobMetadata;
+import org.jclouds.blobstore.domain.MutableStorageMetadata;
+import org.jclouds.blobstore.domain.PageSet;
+import org.jclouds.blobstore.domain.StorageMetadata;
+import org.jclouds.blobstore.domain.StorageType;
+import org.jclouds.blobstore.domain.internal.MutableStorageMetadataImpl;
+import org.jclouds.blobstore.domain.internal.PageSetImpl;
+import org.jclouds.blobstore.options.CopyOptions;
+import org.jclouds.blobstore.options.ListContainerOptions;
+import org.jclouds.blobstore.options.PutOptions;
+import org.jclouds.blobstore.strategy.IfDirectoryReturnNameStrategy;
+import org.jclouds.blobstore.util.ForwardingBlobStore;
+import org.jclouds.io.Payload;
+import org.jclouds.jdbc.conversion.BlobEntityToBlobMetadata;
+import org.jclouds.jdbc.entity.BlobEntity;
+import org.jclouds.jdbc.entity.MultipartPartEntity;
+import org.jclouds.jdbc.entity.MultipartUploadEntity;
+import org.jclouds.jdbc.service.JdbcService;
+
+import com.google.common.base.Strings;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+
+/**
+ * Jdbc blobstore built on top of {@link LocalBlobStore}. Operations that the generic local blobstore
+ * implements by loading whole blobs are answered here with dedicated queries.
+ */
+@Singleton
+public class JdbcBlobStore extends ForwardingBlobStore {
+
+   private static final String SEPARATOR = "/";
+   private static final int DEFAULT_MAX_RESULTS = 1000;
+
+   private final JdbcService jdbcService;
+   private final BlobEntityToBlobMetadata blobEntityToBlobMetadata;
+   private final IfDirectoryReturnNameStrategy ifDirectoryReturnName;
+
+   @Inject
+   JdbcBlobStore(LocalBlobStore localBlobStore, JdbcService jdbcService,
+         BlobEntityToBlobMetadata blobEntityToBlobMetadata, IfDirectoryReturnNameStrategy ifDirectoryReturnName) {
+      super(localBlobStore);
+      this.jdbcService = jdbcService;
+      this.blobEntityToBlobMetadata = blobEntityToBlobMetadata;
+      this.ifDirectoryReturnName = ifDirectoryReturnName;
+   }
+
+   /**
+    * Reads the blob and payload attributes with a projection query, the chunk list and chunk data are
+    * never loaded so the cost does not depend on the blob size.
+    */
+   @Override
+   public BlobMetadata blobMetadata(String container, String name) {
+      BlobEntity blobEntity = jdbcService.findBlobMetadata(container, name);
+      if (blobEntity == null) {
+         if (jdbcService.findContainerByName(container) == null) {
+            throw new ContainerNotFoundException(container, "container " + container + " does not exist");
+         }
+         return null;
+      }
+      MutableBlobMetadata metadata = blobEntityToBlobMetadata.apply(blobEntity);
+      metadata.setContainer(container);
+      return metadata;
+   }
+
+   /**
+    * Copies a blob without reading its data, the copy shares the chunks of the source blob. Conditional
+    * copies are left to {@link LocalBlobStore}, which evaluates the preconditions.
+    */
+   @Override
+   public String copyBlob(String fromContainer, String fromName, String toContainer, String toName,
+         CopyOptions options) {
+      if (options.ifMatch() != null || options.ifNoneMatch() != null || options.ifModifiedSince() != null
+            || options.ifUnmodifiedSince() != null) {
+         return super.copyBlob(fromContainer, fromName, toContainer, toName, options);
+      }
+      if (jdbcService.findContainerByName(fromContainer) == null) {
+         throw new ContainerNotFoundException(fromContainer, "container " + fromContainer + " does not exist");
+      }
+      if (jdbcService.findContainerByName(toContainer) == null) {
+         throw new ContainerNotFoundException(toContainer, "container " + toContainer + " does not exist");
+      }
+      BlobEntity blobEntity = jdbcService.copyBlob(fromContainer, fromName, toContainer, toName,
+            options.contentMetadata(), options.userMetadata());
+      if (blobEntity == null) {
+         throw new KeyNotFoundException(fromContainer, fromName, "while copying");
+      }
+      return blobEntity.getEtag();
+   }
+
+   @Override
+   public MultipartUpload initiateMultipartUpload(String container, BlobMetadata blobMetadata, PutOptions options) {
+      if (jdbcService.findContainerByName(container) == null) {
+         throw new ContainerNotFoundException(container, "container " + container + " does not exist");
+      }
+      String uploadId = UUID.randomUUID().toString();
+      jdbcService.createMultipartUpload(container, uploadId, blobMetadata.getName());
+      return MultipartUpload.create(container, blobMetadata.getName(), uploadId, blobMetadata, options);
+   }
+
+   /**
+    * Stores the part data once as chunks of its own. Parts are written in separate transactions so
+    * they can be uploaded concurrently.
+    */
+   @Override
+   public MultipartPart uploadMultipartPart(MultipartUpload mpu, int partNumber, Payload payload) {
+      MultipartPartEntity part;
+      try {
+         part = jdbcService.createOrModifyMultipartPart(mpu.id(), partNumber, payload);
+      } catch (IOException e) {
+         throw Throwables.propagate(e);
+      }
+      if (part == null) {
+         throw new KeyNotFoundException(mpu.containerName(), mpu.blobName(), "multipart upload " + mpu.id()
+               + " does not exist");
+      }
+      return MultipartPart.create(part.getPartNumber(), part.getSize(), part.getEtag(), part.getLastModified());
+   }
+
+   /**
+    * Completes the upload by concatenating the chunk lists of the parts, the part data is not read again.
+    */
+   @Override
+   public String completeMultipartUpload(MultipartUpload mpu, List<MultipartPart> parts) {
+      List<Integer> partNumbers = Lists.newArrayListWithCapacity(parts.size());
+      for (MultipartPart part : parts) {
+         partNumbers.add(part.partNumber());
+      }
+      BlobMetadata blobMetadata = mpu.blobMetadata();
+      if (blobMetadata == null) {
+         blobMetadata = blobBuilder(mpu.blobName()).build().getMetadata();
+      }
+      BlobAccess blobAccess = mpu.putOptions() == null ? null : mpu.putOptions().getBlobAccess();
+      BlobEntity blobEntity = jdbcService.completeMultipartUpload(mpu.id(), partNumbers, blobMetadata, blobAccess);
+      if (blobEntity == null) {
+         throw new KeyNotFoundException(mpu.containerName(), mpu.blobName(), "multipart upload " + mpu.id()
+               + " does not exist");
+      }
+      return blobEntity.getEtag();
+   }
+
+   @Override
+   public void abortMultipartUpload(MultipartUpload mpu) {
+      jdbcService.deleteMultipartUpload(mpu.id());
+   }
+
+   @Override
+   public List<MultipartPart> listMultipartUpload(MultipartUpload mpu) {
+      ImmutableList.Builder<MultipartPart> parts = ImmutableList.builder();
+      for (MultipartPartEntity part : jdbcService.findMultipartParts(mpu.id())) {
+         parts.add(MultipartPart.create(part.getPartNumber(), part.getSize(), part.getEtag(), part.getLastModified()));
+      }
+      return parts.build();
+   }
+
+   @Override
+   public List<MultipartUpload> listMultipartUploads(String container) {
+      if (jdbcService.findContainerByName(container) == null) {
+         throw new ContainerNotFoundException(container, "container " + container + " does not exist");
+      }
+      ImmutableList.Builder<MultipartUpload> uploads = ImmutableList.builder();
+      for (MultipartUploadEntity upload : jdbcService.findMultipartUploadsByContainer(container)) {
+         uploads.add(MultipartUpload.create(container, upload.getBlobName(), upload.getId(), null, null));
+      }
+      return uploads.build();
+   }
+
+   @Override
+   public PageSet<? extends StorageMetadata> list(String container) {
+      return list(container, ListContainerOptions.NONE);
+   }
+
+   /**
+    * Lists a page of a container with the marker, max results, prefix and delimiter evaluated by the
+    * database. Keys are read in index order and the keys below an already listed common prefix are
+    * skipped, so the work done is proportional to the page size. Directory listings are left to
+    * {@link LocalBlobStore}.
+    */
+   @Override
+   public PageSet<? extends StorageMetadata> list(String container, ListContainerOptions options) {
+      if (options.getDir() != null || (options.isRecursive() && options.getDelimiter() != null)) {
+         return delegate().list(container, options);
+      }
+
+      String prefix = Strings.emptyToNull(options.getPrefix());
+      String delimiter = null;
+      if (!options.isRecursive() || options.getDelimiter() != null) {
+         delimiter = Strings.emptyToNull(options.getDelimiter() == null ? SEPARATOR : options.getDelimiter());
+      }
+      String marker = options.getMarker();
+      int maxResults = options.getMaxResults() != null ? options.getMaxResults() : DEFAULT_MAX_RESULTS;
+      int prefixLength = prefix == null ? 0 : prefix.length();
+
+      SortedSet<StorageMetadata> contents = newTreeSet();
+      String afterKey = marker;
+      String fromKey = null;
+      boolean exhausted = maxResults == 0;
+      if (jdbcService.findContainerByName(container) == null) {
+         throw new ContainerNotFoundException(container, "container " + container + " does not exist");
+      }
+      while (!exhausted && contents.size() <= maxResults) {
+         List<BlobEntity> page = jdbcService.findBlobMetadataPage(container, prefix, afterKey, fromKey,
+               maxResults + 1, options.isDetailed());
+         if (page == null) {
+            throw new ContainerNotFoundException(container, "container " + container + " does not exist");
+         }
+         exhausted = page.size() <= maxResults;
+         String commonPrefix = null;
+         for (BlobEntity blobEntity : page) {
+            String key = blobEntity.getKey();
+            afterKey = key;
+            fromKey = null;
+            if (commonPrefix != null && key.startsWith(commonPrefix)) {
+               continue;
+            }
+            commonPrefix = null;
+            int index = delimiter == null ? -1 : key.indexOf(delimiter, prefixLength);
+            if (index != -1) {
+               commonPrefix = key.substring(0, index + delimiter.length());
+               if (marker == null || commonPrefix.compareTo(marker) > 0) {
+                  MutableStorageMetadata metadata = new MutableStorageMetadataImpl();
+                  metadata.setType(StorageType.RELATIVE_PATH);
+                  metadata.setName(commonPrefix);
+                  contents.add(metadata);
+               }
+            } else {
+               MutableBlobMetadata metadata = blobEntityToBlobMetadata.apply(blobEntity);
+               metadata.setContainer(container);
+               String directoryName = ifDirectoryReturnName.execute(metadata);
+               if (directoryName != null) {
+                  metadata.setName(directoryName);
+                  metadata.setType(StorageType.RELATIVE_PATH);
+               }
+               if (marker == null || metadata.getName().compareTo(marker) > 0) {
+                  contents.add(metadata);
+               }
+            }
+            if (contents.size() > maxResults) {
+               break;
+            }
+         }
+         if (commonPrefix != null) {
+            // continue from the first key not sharing the common prefix, if any
+            afterKey = null;
+            fromKey = successor(commonPrefix);
+            exhausted |= fromKey == null;
+         }
+      }
+
+      String nextMarker = null;
+      if (contents.size() > maxResults) {
+         contents = newTreeSet(Iterables.limit(contents, maxResults));
+         nextMarker = contents.last().getName();
+      }
+      return new PageSetImpl<StorageMetadata>(contents, nextMarker);
+   }
+
+   /**
+    * Returns the smallest string greater than every string starting with the given prefix: the prefix up to its last
+    * character below {@link Character#MAX_VALUE}, incremented. Returns null if every character is the maximum value.
+    */
+   private static String successor(String prefix) {
+      for (int i = prefix.length() - 1; i >= 0; i--) {
+         char last = prefix.charAt(i);
+         if (last != Character.MAX_VALUE) {
+            return prefix.substring(0, i) + (char) (last + 1);
+         }
+      }
+      return null;
+   }
+
+}
@@ -23,8 +23,8 @@ import org.jclouds.blobstore.LocalBlobRequestSigner;
 import org.jclouds.blobstore.LocalStorageStrategy;
 import org.jclouds.blobstore.attr.ConsistencyModel;
 import org.jclouds.blobstore.config.BlobStoreObjectModule;
-import org.jclouds.blobstore.config.LocalBlobStore;
 import org.jclouds.blobstore.util.BlobUtils;
+import org.jclouds.jdbc.blobstore.JdbcBlobStore;
 import org.jclouds.jdbc.strategy.JdbcStorageStrategy;
 import org.jclouds.jdbc.util.JdbcBlobUtils;
 
@@ -33,7 +33,7 @@ public class JdbcBlobStoreContextModule extends AbstractModule {
    @Override
    protected void configure() {
       bind(JPAInitializer.class).asEagerSingleton();
-      bind(BlobStore.class).to(LocalBlobStore.class);
+      bind(BlobStore.class).to(JdbcBlobStore.class);
       install(new BlobStoreObjectModule());
       bind(ConsistencyModel.class).toInstance(ConsistencyModel.STRICT);
       bind(LocalStorageStrategy.class).to(JdbcStorageStrategy.class);
@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.config;
+
+/**
+ * Configuration properties used by the jdbc blobstore.
+ */
+public class JdbcProperties {
+
+   /**
+    * Size in bytes of the chunks payloads are split into. Existing payloads keep the chunk size they were
+    * written with.
+    */
+   public static final String CHUNK_SIZE = "jclouds.jdbc.chunk-size";
+
+   /**
+    * Payloads up to this size in bytes are stored inline in the payload row instead of in chunks. Zero
+    * disables inline storage.
+    */
+   public static final String INLINE_THRESHOLD = "jclouds.jdbc.inline-threshold";
+
+   /**
+    * When true, chunks with the same content are stored once and shared between payloads.
+    */
+   public static final String DEDUPLICATE = "jclouds.jdbc.deduplicate";
+
+}
@@ -18,6 +18,7 @@ package org.jclouds.jdbc.conversion;
 
 import com.google.common.base.Function;
 import com.google.common.hash.HashCode;
+import com.google.common.io.ByteSource;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 import org.jclouds.blobstore.domain.Blob;
@@ -25,8 +26,9 @@ import org.jclouds.blobstore.domain.BlobBuilder;
 import org.jclouds.blobstore.domain.StorageType;
 import org.jclouds.jdbc.entity.BlobEntity;
 import org.jclouds.jdbc.entity.PayloadEntity;
+import org.jclouds.jdbc.reference.JdbcConstants;
 import org.jclouds.jdbc.service.JdbcService;
-import org.jclouds.jdbc.util.JdbcInputStream;
+import org.jclouds.jdbc.util.JdbcByteSource;
 
 public class BlobEntityToBlob implements Function<BlobEntity, Blob> {
 
@@ -53,8 +55,13 @@ public class BlobEntityToBlob implements Function<BlobEntity, Blob> {
       if (blobEntity.isDirectory()) {
          builder.type(StorageType.FOLDER);
       }
+      else if (payload.getInlineData() != null) {
+         builder.payload(ByteSource.wrap(payload.getInlineData()));
+      }
       else {
-         builder.payload(new JdbcInputStream(jdbcService, blobEntity.getPayload().getChunks()));
+         Long size = blobEntity.getSize() != null ? blobEntity.getSize() : payload.getContentLength();
+         int chunkSize = payload.getChunkSize() != null ? payload.getChunkSize() : JdbcConstants.DEFAULT_CHUNK_SIZE;
+         builder.payload(new JdbcByteSource(jdbcService, payload.getId(), chunkSize, size));
       }
 
       Blob blob = builder.build();
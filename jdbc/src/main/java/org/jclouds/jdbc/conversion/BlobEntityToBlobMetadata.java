@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.conversion;
+
+import com.google.common.base.Function;
+import com.google.common.hash.HashCode;
+import org.jclouds.blobstore.domain.MutableBlobMetadata;
+import org.jclouds.blobstore.domain.StorageType;
+import org.jclouds.blobstore.domain.internal.MutableBlobMetadataImpl;
+import org.jclouds.io.MutableContentMetadata;
+import org.jclouds.jdbc.entity.BlobEntity;
+import org.jclouds.jdbc.entity.PayloadEntity;
+
+import java.util.Map;
+
+/**
+ * Builds blob metadata from a blob entity without touching its payload data.
+ */
+public class BlobEntityToBlobMetadata implements Function<BlobEntity, MutableBlobMetadata> {
+
+   @Override
+   public MutableBlobMetadata apply(BlobEntity blobEntity) {
+      if (blobEntity == null) {
+         return null;
+      }
+
+      MutableBlobMetadata metadata = new MutableBlobMetadataImpl();
+      metadata.setName(blobEntity.getKey());
+      metadata.setType(blobEntity.isDirectory() ? StorageType.FOLDER : StorageType.BLOB);
+      if (blobEntity.getContainerEntity() != null) {
+         metadata.setContainer(blobEntity.getContainerEntity().getName());
+      }
+      metadata.setCreationDate(blobEntity.getCreationDate());
+      metadata.setLastModified(blobEntity.getLastModified());
+      metadata.setSize(blobEntity.getSize());
+      metadata.setETag(blobEntity.getEtag());
+      metadata.setTier(blobEntity.getTier());
+      Map<String, String> userMetadata = blobEntity.getUserMetadata();
+      if (userMetadata != null) {
+         metadata.setUserMetadata(userMetadata);
+      }
+
+      PayloadEntity payload = blobEntity.getPayload();
+      if (payload != null) {
+         MutableContentMetadata contentMetadata = metadata.getContentMetadata();
+         contentMetadata.setCacheControl(payload.getCacheControl());
+         contentMetadata.setContentType(payload.getContentType());
+         contentMetadata.setContentDisposition(payload.getContentDisposition());
+         contentMetadata.setContentEncoding(payload.getContentEncoding());
+         contentMetadata.setContentLanguage(payload.getContentLanguage());
+         contentMetadata.setContentLength(payload.getContentLength());
+         contentMetadata.setContentMD5(payload.getContentMD5() == null ?
+               null :
+               HashCode.fromBytes(payload.getContentMD5()));
+         contentMetadata.setExpires(payload.getExpires());
+      }
+      return metadata;
+   }
+
+}
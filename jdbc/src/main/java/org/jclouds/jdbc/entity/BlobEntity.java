@@ -20,11 +20,13 @@ import org.jclouds.blobstore.domain.BlobAccess;
 import org.jclouds.blobstore.domain.Tier;
 
 import javax.persistence.CascadeType;
+import javax.persistence.CollectionTable;
 import javax.persistence.ElementCollection;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.Id;
 import javax.persistence.IdClass;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToOne;
@@ -34,7 +36,7 @@ import java.util.Date;
 import java.util.Map;
 
 @Entity
-@Table
+@Table(indexes = @Index(columnList = "id, parentPath"))
 @IdClass(value = BlobEntityPK.class)
 public class BlobEntity {
 
@@ -49,7 +51,11 @@ public class BlobEntity {
    @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
    private PayloadEntity payload;
 
+   // Table and column names are fixed because bulk deletes clear this table with native statements
    @ElementCollection(fetch = FetchType.EAGER)
+   @CollectionTable(name = "BlobEntity_userMetadata", joinColumns = {
+         @JoinColumn(name = "BlobEntity_id", referencedColumnName = "id"),
+         @JoinColumn(name = "BlobEntity_key", referencedColumnName = "key") })
    public Map<String, String> userMetadata;
 
    private Date creationDate;
@@ -60,6 +66,9 @@ public class BlobEntity {
    private String etag;
    private boolean directory;
 
+   // Directory holding the blob, lets immediate children be listed with an equality lookup
+   private String parentPath;
+
    @PrePersist
    private void defaults() {
       this.lastModified = new Date();
@@ -78,6 +87,7 @@ public class BlobEntity {
          BlobAccess blobAccess, Tier tier, Map<String, String> userMetadata, Long size, String etag, boolean directory) {
       this.containerEntity = containerEntity;
       this.key = key;
+      this.parentPath = parentPathOf(key);
       this.creationDate = creationDate;
       this.lastModified = lastModified;
       this.payload = payload;
@@ -111,6 +121,7 @@ public class BlobEntity {
 
    public void setKey(String key) {
       this.key = key;
+      this.parentPath = parentPathOf(key);
    }
 
    public PayloadEntity getPayload() {
@@ -177,6 +188,33 @@ public class BlobEntity {
       this.etag = etag;
    }
 
+   public String getParentPath() {
+      return parentPath;
+   }
+
+   /**
+    * @return the directory name without trailing separators
+    */
+   public static String directoryPath(String directory) {
+      int end = directory.length();
+      while (end > 0 && directory.charAt(end - 1) == '/') {
+         end--;
+      }
+      return directory.substring(0, end);
+   }
+
+   /**
+    * @return the directory holding a key, the empty string for keys at the root of the container
+    */
+   public static String parentPathOf(String key) {
+      if (key == null) {
+         return null;
+      }
+      String path = directoryPath(key);
+      int index = path.lastIndexOf('/');
+      return index == -1 ? "" : path.substring(0, index);
+   }
+
    public static Builder builder(ContainerEntity containerEntity, String key) {
       return new Builder(containerEntity, key);
    }
@@ -21,27 +21,44 @@ import org.jclouds.jdbc.reference.JdbcConstants;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.Lob;
 import javax.persistence.Table;
+import javax.persistence.TableGenerator;
 
 @Entity
-@Table
+@Table(indexes = @Index(columnList = "hash"))
 public class ChunkEntity {
 
+   // Pooled ids let the persistence provider batch chunk inserts, identity columns disable batching
    @Id
-   @GeneratedValue
+   @TableGenerator(name = "chunkIdGenerator", allocationSize = JdbcConstants.CHUNK_ID_ALLOCATION_SIZE)
+   @GeneratedValue(strategy = GenerationType.TABLE, generator = "chunkIdGenerator")
    private Long id;
 
    @Lob
-   @Column(length = JdbcConstants.DEFAULT_CHUNK_SIZE)
+   @Column(length = JdbcConstants.MAX_CHUNK_SIZE)
    private byte[] data;
 
    private int size;
 
+   // Content hash, only set when chunks are deduplicated
+   @Column(length = 64)
+   private String hash;
+
+   // Number of payload chunk list entries pointing to this chunk
+   private int refCount = 1;
+
    public ChunkEntity(byte[] data, int size) {
+      this(data, size, null);
+   }
+
+   public ChunkEntity(byte[] data, int size, String hash) {
       this.data = data;
       this.size = size;
+      this.hash = hash;
    }
 
    public ChunkEntity() {
@@ -70,4 +87,20 @@ public class ChunkEntity {
    public void setSize(int size) {
       this.size = size;
    }
+
+   public String getHash() {
+      return hash;
+   }
+
+   public void setHash(String hash) {
+      this.hash = hash;
+   }
+
+   public int getRefCount() {
+      return refCount;
+   }
+
+   public void setRefCount(int refCount) {
+      this.refCount = refCount;
+   }
 }
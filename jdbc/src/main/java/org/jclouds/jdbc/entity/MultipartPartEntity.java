@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.entity;
+
+import javax.persistence.CascadeType;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.OneToOne;
+import javax.persistence.PrePersist;
+import javax.persistence.Table;
+import java.util.Date;
+
+/**
+ * Uploaded part of a multipart upload. The part data is stored as a run of chunks of its payload,
+ * completing the upload hands these chunks over to the blob without copying them.
+ */
+@Entity
+@Table
+@IdClass(value = MultipartPartEntityPK.class)
+public class MultipartPartEntity {
+
+   @Id
+   private String uploadId;
+
+   @Id
+   private int partNumber;
+
+   @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+   private PayloadEntity payload;
+
+   private long size;
+   private String etag;
+   private Date lastModified;
+
+   public MultipartPartEntity() {
+   }
+
+   public MultipartPartEntity(String uploadId, int partNumber, PayloadEntity payload, long size, String etag) {
+      this.uploadId = uploadId;
+      this.partNumber = partNumber;
+      this.payload = payload;
+      this.size = size;
+      this.etag = etag;
+   }
+
+   @PrePersist
+   private void defaults() {
+      this.lastModified = new Date();
+   }
+
+   public String getUploadId() {
+      return uploadId;
+   }
+
+   public int getPartNumber() {
+      return partNumber;
+   }
+
+   public PayloadEntity getPayload() {
+      return payload;
+   }
+
+   public void setPayload(PayloadEntity payload) {
+      this.payload = payload;
+   }
+
+   public long getSize() {
+      return size;
+   }
+
+   public void setSize(long size) {
+      this.size = size;
+   }
+
+   public String getEtag() {
+      return etag;
+   }
+
+   public void setEtag(String etag) {
+      this.etag = etag;
+   }
+
+   public Date getLastModified() {
+      return lastModified;
+   }
+
+   public void setLastModified(Date lastModified) {
+      this.lastModified = lastModified;
+   }
+
+}
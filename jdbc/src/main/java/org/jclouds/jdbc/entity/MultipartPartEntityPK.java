@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.entity;
+
+import java.io.Serializable;
+
+public class MultipartPartEntityPK implements Serializable {
+
+   private String uploadId;
+   private int partNumber;
+
+   public String getUploadId() {
+      return uploadId;
+   }
+
+   public int getPartNumber() {
+      return partNumber;
+   }
+
+   public MultipartPartEntityPK() {
+   }
+
+   public MultipartPartEntityPK(String uploadId, int partNumber) {
+      this.uploadId = uploadId;
+      this.partNumber = partNumber;
+   }
+
+   @Override
+   public boolean equals(Object o) {
+      if (this == o)
+         return true;
+      if (o == null || getClass() != o.getClass())
+         return false;
+
+      MultipartPartEntityPK multipartPartEntityPK = (MultipartPartEntityPK) o;
+
+      return partNumber == multipartPartEntityPK.partNumber && uploadId.equals(multipartPartEntityPK.uploadId);
+   }
+
+   @Override
+   public int hashCode() {
+      int result = uploadId.hashCode();
+      result = 31 * result + partNumber;
+      return result;
+   }
+
+}
@@ -17,12 +17,18 @@
 package org.jclouds.jdbc.entity;
 
 import com.google.common.collect.ImmutableList;
+import org.jclouds.jdbc.reference.JdbcConstants;
 
+import javax.persistence.CollectionTable;
+import javax.persistence.Column;
 import javax.persistence.ElementCollection;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.Lob;
+import javax.persistence.OrderColumn;
 import java.util.Date;
 import java.util.List;
 
@@ -33,9 +39,22 @@ public class PayloadEntity {
    @GeneratedValue
    private Long id;
 
-   @ElementCollection(fetch = FetchType.EAGER)
+   // The order column keeps the list free of the duplicates of https://hibernate.atlassian.net/browse/HHH-6783,
+   // a chunk id may legitimately appear several times when chunks are deduplicated.
+   // Table and column names are fixed because bulk deletes clear this table with native statements.
+   // Loaded lazily so metadata lookups never read the chunk list, readers fetch it through JdbcService.findChunkIds
+   @ElementCollection(fetch = FetchType.LAZY)
+   @CollectionTable(name = "PayloadEntity_chunks", joinColumns = @JoinColumn(name = "PayloadEntity_id"))
+   @Column(name = "chunks")
+   @OrderColumn(name = "chunks_ORDER")
    private List<Long> chunks;
 
+   private Integer chunkSize;
+
+   @Lob
+   @Column(length = JdbcConstants.MAX_INLINE_SIZE)
+   private byte[] inlineData;
+
    private String cacheControl;
    private String contentType;
    private Long contentLength;
@@ -77,6 +96,28 @@ public class PayloadEntity {
       this.chunks = chunks;
    }
 
+   /**
+    * @return the size of every chunk but the last one, null for payloads written before it was recorded
+    */
+   public Integer getChunkSize() {
+      return chunkSize;
+   }
+
+   public void setChunkSize(Integer chunkSize) {
+      this.chunkSize = chunkSize;
+   }
+
+   /**
+    * @return the payload content when it is stored inline instead of in chunks, null otherwise
+    */
+   public byte[] getInlineData() {
+      return inlineData;
+   }
+
+   public void setInlineData(byte[] inlineData) {
+      this.inlineData = inlineData;
+   }
+
    public String getCacheControl() {
       return cacheControl;
    }
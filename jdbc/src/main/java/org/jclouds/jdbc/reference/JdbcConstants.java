@@ -23,6 +23,41 @@ public final class JdbcConstants {
 
     public static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
 
+    /**
+     * Largest chunk size accepted, it also sets the length of the chunk data column
+     */
+    public static final int MAX_CHUNK_SIZE = 64 * 1024 * 1024;
+
+    /**
+     * Largest payload that can be stored inline, it also sets the length of the inline data column
+     */
+    public static final int MAX_INLINE_SIZE = 64 * 1024;
+
+    /**
+     * Number of chunks written between two flushes of the persistence context
+     */
+    public static final int CHUNK_WRITE_BATCH_SIZE = 8;
+
+    /**
+     * Upper bound of the chunk data buffered between two flushes of the persistence context
+     */
+    public static final int CHUNK_WRITE_BATCH_BYTES = 8 * 1024 * 1024;
+
+    /**
+     * Number of chunk ids reserved at once from the id generator table
+     */
+    public static final int CHUNK_ID_ALLOCATION_SIZE = 64;
+
+    /**
+     * Number of blobs removed per transaction when clearing containers and directories
+     */
+    public static final int BULK_DELETE_BATCH_SIZE = 500;
+
+    /**
+     * Number of container name to id mappings kept in memory
+     */
+    public static final int CONTAINER_CACHE_SIZE = 1000;
+
     private JdbcConstants() {
         throw new AssertionError("Intentionally Unimplemented");
     }
@@ -16,19 +16,33 @@
  */
 package org.jclouds.jdbc.repository;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.google.inject.Singleton;
 import org.jclouds.jdbc.entity.BlobEntity;
 import org.jclouds.jdbc.entity.BlobEntityPK;
+import org.jclouds.blobstore.domain.Tier;
 import org.jclouds.jdbc.entity.ContainerEntity;
+import org.jclouds.jdbc.entity.PayloadEntity;
 
 import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.persistence.TypedQuery;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Singleton
 public class BlobRepository extends GenericRepository<BlobEntity, BlobEntityPK> {
 
+   private static final char LIKE_ESCAPE = '!';
+   private static final int IN_CLAUSE_SIZE = 500;
+
    @Inject
    private BlobRepository(Provider<EntityManager> entityManager) {
       super(entityManager);
@@ -42,13 +56,238 @@ public class BlobRepository extends GenericRepository<BlobEntity, BlobEntityPK>
                 .getResultList();
     }
 
+   /**
+    * Returns every blob below a directory, at any depth, with a single key range query.
+    */
    public List<BlobEntity> findBlobsByDirectory(ContainerEntity containerEntity, String directory) {
       return entityManager.get().createQuery("SELECT b FROM " + entityClass.getName() + " b "
-            + "WHERE b.containerEntity = :containerEntity AND b.key != :directoryName AND b.key LIKE :directoryLike ", entityClass)
+            + "WHERE b.containerEntity = :containerEntity AND b.key LIKE :directoryLike ESCAPE '" + LIKE_ESCAPE + "' "
+            + "AND b.key != :directoryMarker ORDER BY b.key", entityClass)
+            .setParameter("containerEntity", containerEntity)
+            .setParameter("directoryLike", directoryLike(directory))
+            .setParameter("directoryMarker", directoryPrefix(directory))
+            .getResultList();
+   }
+
+   /**
+    * Returns the blobs directly inside a directory.
+    */
+   public List<BlobEntity> findBlobsByParentPath(ContainerEntity containerEntity, String directory) {
+      return entityManager.get().createQuery("SELECT b FROM " + entityClass.getName() + " b "
+            + "WHERE b.containerEntity = :containerEntity AND b.parentPath = :parentPath ORDER BY b.key", entityClass)
             .setParameter("containerEntity", containerEntity)
-            .setParameter("directoryName", directory)
-            .setParameter("directoryLike", directory + "%")
+            .setParameter("parentPath", BlobEntity.directoryPath(directory))
             .getResultList();
    }
 
+   /**
+    * Returns the key and payload id of at most maxResults blobs without loading the entities.
+    *
+    * @param directory when not null, only blobs below this directory are returned
+    * @param filesOnly whether directory blobs are left out
+    */
+   public List<Object[]> findKeysAndPayloadIds(ContainerEntity containerEntity, String directory, boolean filesOnly,
+         int maxResults) {
+      StringBuilder query = new StringBuilder("SELECT b.key, p.id FROM " + entityClass.getName() + " b "
+            + "LEFT JOIN b.payload p WHERE b.containerEntity = :containerEntity");
+      if (directory != null) {
+         query.append(" AND b.key LIKE :directoryLike ESCAPE '").append(LIKE_ESCAPE).append("' AND b.key != :directoryMarker");
+      }
+      if (filesOnly) {
+         query.append(" AND b.directory = false");
+      }
+      TypedQuery<Object[]> typedQuery = entityManager.get()
+            .createQuery(query.toString(), Object[].class)
+            .setParameter("containerEntity", containerEntity)
+            .setMaxResults(maxResults);
+      if (directory != null) {
+         typedQuery.setParameter("directoryLike", directoryLike(directory))
+               .setParameter("directoryMarker", directoryPrefix(directory));
+      }
+      return typedQuery.getResultList();
+   }
+
+   /**
+    * Deletes blobs and their user metadata with set-based statements. Payloads are left untouched.
+    */
+   public void deleteBlobs(ContainerEntity containerEntity, List<String> keys) {
+      Query deleteMetadata = entityManager.get().createNativeQuery("DELETE FROM BlobEntity_userMetadata "
+            + "WHERE BlobEntity_id = ?1 AND BlobEntity_key IN (" + positionalParameters(2, keys.size()) + ")");
+      deleteMetadata.setParameter(1, containerEntity.getId());
+      for (int i = 0; i < keys.size(); i++) {
+         deleteMetadata.setParameter(i + 2, keys.get(i));
+      }
+      deleteMetadata.executeUpdate();
+      entityManager.get().createQuery("DELETE FROM " + entityClass.getName() + " b "
+            + "WHERE b.containerEntity = :containerEntity AND b.key IN :keys")
+            .setParameter("containerEntity", containerEntity)
+            .setParameter("keys", keys)
+            .executeUpdate();
+   }
+
+   public List<String> findKeysByContainer(ContainerEntity containerEntity) {
+      return entityManager.get().createQuery("SELECT b.key FROM " + entityClass.getName() + " b "
+            + "WHERE b.containerEntity = :containerEntity ORDER BY b.key", String.class)
+            .setParameter("containerEntity", containerEntity)
+            .getResultList();
+   }
+
+   public long countBlobsByContainer(ContainerEntity containerEntity) {
+      return entityManager.get().createQuery("SELECT COUNT(b) FROM " + entityClass.getName() + " b "
+            + "WHERE b.containerEntity = :containerEntity", Long.class)
+            .setParameter("containerEntity", containerEntity)
+            .getSingleResult();
+   }
+
+   public long countBlobsByDirectory(ContainerEntity containerEntity, String directory, boolean recursive) {
+      if (!recursive) {
+         return entityManager.get().createQuery("SELECT COUNT(b) FROM " + entityClass.getName() + " b "
+               + "WHERE b.containerEntity = :containerEntity AND b.parentPath = :parentPath", Long.class)
+               .setParameter("containerEntity", containerEntity)
+               .setParameter("parentPath", BlobEntity.directoryPath(directory))
+               .getSingleResult();
+      }
+      return entityManager.get().createQuery("SELECT COUNT(b) FROM " + entityClass.getName() + " b "
+            + "WHERE b.containerEntity = :containerEntity AND b.key LIKE :directoryLike ESCAPE '" + LIKE_ESCAPE + "' "
+            + "AND b.key != :directoryMarker", Long.class)
+            .setParameter("containerEntity", containerEntity)
+            .setParameter("directoryLike", directoryLike(directory))
+            .setParameter("directoryMarker", directoryPrefix(directory))
+            .getSingleResult();
+   }
+
+   /**
+    * Lists blobs in key order without loading chunk lists or LOB columns. The returned entities are not
+    * managed and only hold the blob and payload attributes used in listings.
+    *
+    * @param prefix when not null, only keys starting with it are returned
+    * @param afterKey when not null, only keys greater than it are returned
+    * @param fromKey when not null, only keys greater than or equal to it are returned
+    * @param withUserMetadata whether user metadata is loaded, with one extra query per page
+    */
+   public List<BlobEntity> findBlobMetadataPage(ContainerEntity containerEntity, String prefix, String afterKey,
+         String fromKey, int maxResults, boolean withUserMetadata) {
+      return findBlobMetadata(containerEntity, null, prefix, afterKey, fromKey, maxResults, withUserMetadata);
+   }
+
+   /**
+    * Returns the metadata of a single blob, with its user metadata, without loading its chunk list.
+    *
+    * @return an unmanaged blob entity or null if the blob does not exist
+    * @see #findBlobMetadataPage
+    */
+   public BlobEntity findBlobMetadata(ContainerEntity containerEntity, String key) {
+      return Iterables.getOnlyElement(findBlobMetadata(containerEntity, key, null, null, null, 1, true), null);
+   }
+
+   public boolean blobExists(Long containerId, String key) {
+      return entityManager.get().createQuery("SELECT COUNT(b) FROM " + entityClass.getName() + " b "
+            + "WHERE b.containerEntity.id = :containerId AND b.key = :key", Long.class)
+            .setParameter("containerId", containerId)
+            .setParameter("key", key)
+            .getSingleResult() > 0;
+   }
+
+   private List<BlobEntity> findBlobMetadata(ContainerEntity containerEntity, String key, String prefix,
+         String afterKey, String fromKey, int maxResults, boolean withUserMetadata) {
+      StringBuilder query = new StringBuilder("SELECT b.key, b.directory, b.size, b.etag, b.creationDate, "
+            + "b.lastModified, b.tier, p.contentType, p.contentLength, p.contentMD5, p.cacheControl, "
+            + "p.contentDisposition, p.contentEncoding, p.contentLanguage, p.expires "
+            + "FROM " + entityClass.getName() + " b LEFT JOIN b.payload p WHERE b.containerEntity = :containerEntity");
+      if (key != null) {
+         query.append(" AND b.key = :key");
+      }
+      if (prefix != null) {
+         query.append(" AND b.key LIKE :prefix ESCAPE '").append(LIKE_ESCAPE).append("'");
+      }
+      if (afterKey != null) {
+         query.append(" AND b.key > :afterKey");
+      }
+      if (fromKey != null) {
+         query.append(" AND b.key >= :fromKey");
+      }
+      query.append(" ORDER BY b.key");
+      TypedQuery<Object[]> typedQuery = entityManager.get().createQuery(query.toString(), Object[].class)
+            .setParameter("containerEntity", containerEntity)
+            .setMaxResults(maxResults);
+      if (key != null) {
+         typedQuery.setParameter("key", key);
+      }
+      if (prefix != null) {
+         typedQuery.setParameter("prefix", escapeLike(prefix) + "%");
+      }
+      if (afterKey != null) {
+         typedQuery.setParameter("afterKey", afterKey);
+      }
+      if (fromKey != null) {
+         typedQuery.setParameter("fromKey", fromKey);
+      }
+      ImmutableList.Builder<BlobEntity> result = ImmutableList.builder();
+      Map<String, BlobEntity> blobsByKey = Maps.newHashMap();
+      for (Object[] row : typedQuery.getResultList()) {
+         PayloadEntity payload = PayloadEntity.builder()
+               .contentType((String) row[7])
+               .contentLength((Long) row[8])
+               .contentMD5((byte[]) row[9])
+               .cacheControl((String) row[10])
+               .contentDisposition((String) row[11])
+               .contentEncoding((String) row[12])
+               .contentLanguage((String) row[13])
+               .expires((Date) row[14])
+               .build();
+         BlobEntity blobEntity = BlobEntity.builder(null, (String) row[0])
+               .directory((Boolean) row[1])
+               .size((Long) row[2])
+               .etag((String) row[3])
+               .tier((Tier) row[6])
+               .payload(payload)
+               .userMetadata(new HashMap<String, String>())
+               .build();
+         blobEntity.setCreationDate((Date) row[4]);
+         blobEntity.setLastModified((Date) row[5]);
+         result.add(blobEntity);
+         blobsByKey.put(blobEntity.getKey(), blobEntity);
+      }
+      if (withUserMetadata && !blobsByKey.isEmpty()) {
+         for (List<String> keys : Iterables.partition(blobsByKey.keySet(), IN_CLAUSE_SIZE)) {
+            for (Object[] row : findUserMetadata(containerEntity, keys)) {
+               blobsByKey.get(row[0]).getUserMetadata().put((String) row[1], (String) row[2]);
+            }
+         }
+      }
+      return result.build();
+   }
+
+   private List<Object[]> findUserMetadata(ContainerEntity containerEntity, Collection<String> keys) {
+      return entityManager.get().createQuery("SELECT b.key, KEY(m), VALUE(m) FROM " + entityClass.getName() + " b "
+            + "JOIN b.userMetadata m WHERE b.containerEntity = :containerEntity AND b.key IN :keys", Object[].class)
+            .setParameter("containerEntity", containerEntity)
+            .setParameter("keys", keys)
+            .getResultList();
+   }
+
+   /**
+    * @return the prefix shared by every key below a directory, the empty string for the container root
+    */
+   private static String directoryPrefix(String directory) {
+      String path = BlobEntity.directoryPath(directory);
+      return path.isEmpty() ? "" : path + "/";
+   }
+
+   private static String directoryLike(String directory) {
+      return escapeLike(directoryPrefix(directory)) + "%";
+   }
+
+   private static String escapeLike(String value) {
+      StringBuilder escaped = new StringBuilder(value.length());
+      for (int i = 0; i < value.length(); i++) {
+         char c = value.charAt(i);
+         if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+            escaped.append(LIKE_ESCAPE);
+         }
+         escaped.append(c);
+      }
+      return escaped.toString();
+   }
+
 }
@@ -16,19 +16,149 @@
  */
 package org.jclouds.jdbc.repository;
 
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Multiset;
+import com.google.common.io.ByteStreams;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.google.inject.Singleton;
 import org.jclouds.jdbc.entity.ChunkEntity;
+import org.jclouds.jdbc.util.ChunkData;
+import org.jclouds.util.Closeables2;
 
 import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Blob;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 @Singleton
 public class ChunkRepository extends GenericRepository<ChunkEntity, Long> {
 
+   // Keeps IN lists below the limit of the most restrictive databases
+   private static final int IN_CLAUSE_SIZE = 500;
+
    @Inject
    private ChunkRepository(Provider<EntityManager> entityManager) {
       super(entityManager);
    }
 
+   /**
+    * Reads part of a chunk without loading the chunk entity. The LOB is read through
+    * {@link Blob#getBinaryStream(long, long)} when the persistence provider exposes it, so only the
+    * requested range is transferred and reading a chunk window by window does not rescan its head.
+    * Providers which load the LOB as a byte array already transfer the whole chunk, it is returned
+    * whole so that the next windows don't load it again.
+    *
+    * @return the bytes read, or null if the chunk does not exist
+    */
+   public ChunkData readData(Long id, long offset, int len) throws IOException {
+      List<?> result = entityManager.get().createNativeQuery("SELECT data FROM ChunkEntity WHERE id = ?1")
+            .setParameter(1, id)
+            .getResultList();
+      if (result.isEmpty()) {
+         return null;
+      }
+      Object data = result.get(0);
+      if (data instanceof byte[]) {
+         byte[] bytes = (byte[]) data;
+         return new ChunkData(0, bytes, bytes.length);
+      }
+      if (data instanceof Blob) {
+         Blob blob = (Blob) data;
+         InputStream is = null;
+         try {
+            long length = blob.length();
+            if (offset >= length) {
+               return new ChunkData(offset, new byte[0], length);
+            }
+            byte[] bytes = new byte[(int) Math.min(len, length - offset)];
+            // Blob positions start at 1
+            is = blob.getBinaryStream(offset + 1, bytes.length);
+            ByteStreams.readFully(is, bytes);
+            return new ChunkData(offset, bytes, length);
+         } catch (SQLException e) {
+            throw new IOException(e);
+         } finally {
+            Closeables2.closeQuietly(is);
+         }
+      }
+      if (data == null) {
+         return new ChunkData(0, new byte[0], 0);
+      }
+      throw new IOException("Unsupported chunk data type: " + data.getClass().getName());
+   }
+
+   public Long findIdByHash(String hash) {
+      List<Long> ids = entityManager.get().createQuery("SELECT c.id FROM " + entityClass.getName() + " c "
+            + "WHERE c.hash = :hash", Long.class)
+            .setParameter("hash", hash)
+            .setMaxResults(1)
+            .getResultList();
+      return ids.isEmpty() ? null : ids.get(0);
+   }
+
+   /**
+    * Adds a reference to an existing chunk without loading its data.
+    *
+    * @return false if the chunk has been deleted in the meantime
+    */
+   public boolean addReference(Long id) {
+      return entityManager.get().createQuery("UPDATE " + entityClass.getName() + " c "
+            + "SET c.refCount = c.refCount + 1 WHERE c.id = :id")
+            .setParameter("id", id)
+            .executeUpdate() > 0;
+   }
+
+   /**
+    * Adds one reference per occurrence of each id, so that a payload sharing these chunks can later
+    * release them with {@link #releaseReferences(List)}.
+    *
+    * @return the number of distinct chunks found, lower than the number of distinct ids if some were deleted
+    */
+   public int addReferences(List<Long> ids) {
+      return adjustReferences(HashMultiset.create(ids), 1);
+   }
+
+   /**
+    * Drops one reference per occurrence of each id and deletes the chunks nothing references anymore.
+    */
+   public void releaseReferences(List<Long> ids) {
+      Multiset<Long> occurrences = HashMultiset.create(ids);
+      adjustReferences(occurrences, -1);
+      for (List<Long> partition : Iterables.partition(occurrences.elementSet(), IN_CLAUSE_SIZE)) {
+         entityManager.get().createQuery("DELETE FROM " + entityClass.getName() + " c "
+               + "WHERE c.id IN :ids AND c.refCount <= 0")
+               .setParameter("ids", partition)
+               .executeUpdate();
+      }
+   }
+
+   /**
+    * Updates reference counts with one statement per distinct occurrence count and IN list partition.
+    */
+   private int adjustReferences(Multiset<Long> occurrences, int sign) {
+      Multimap<Integer, Long> idsByCount = ArrayListMultimap.create();
+      for (Multiset.Entry<Long> entry : occurrences.entrySet()) {
+         idsByCount.put(entry.getCount(), entry.getElement());
+      }
+      int updated = 0;
+      for (Map.Entry<Integer, Collection<Long>> entry : idsByCount.asMap().entrySet()) {
+         for (List<Long> partition : Iterables.partition(entry.getValue(), IN_CLAUSE_SIZE)) {
+            updated += entityManager.get().createQuery("UPDATE " + entityClass.getName() + " c "
+                  + "SET c.refCount = c.refCount + :delta WHERE c.id IN :ids")
+                  .setParameter("delta", sign * entry.getKey())
+                  .setParameter("ids", partition)
+                  .executeUpdate();
+         }
+      }
+      return updated;
+   }
+
 }
@@ -16,10 +16,14 @@
  */
 package org.jclouds.jdbc.repository;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.google.inject.Singleton;
 import org.jclouds.jdbc.entity.ContainerEntity;
+import org.jclouds.jdbc.reference.JdbcConstants;
 
 import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
@@ -28,12 +32,52 @@ import java.util.List;
 @Singleton
 public class ContainerRepository extends GenericRepository<ContainerEntity, Long> {
 
+   // Container names never change, so caching their ids only needs invalidation when a container is deleted
+   private final Cache<String, Long> containerIds = CacheBuilder.newBuilder()
+         .maximumSize(JdbcConstants.CONTAINER_CACHE_SIZE)
+         .recordStats()
+         .build();
+
    @Inject
    private ContainerRepository(Provider<EntityManager> entityManager) {
       super(entityManager);
    }
 
+   /**
+    * Looks up a container by primary key when its id is cached, falling back to a query by name otherwise.
+    */
    public ContainerEntity findContainerByName(String name) {
+      Long id = containerIds.getIfPresent(name);
+      if (id != null) {
+         ContainerEntity containerEntity = find(id);
+         if (containerEntity != null && name.equals(containerEntity.getName())) {
+            return containerEntity;
+         }
+         // deleted by another node or rolled back, the cached id is stale
+         containerIds.invalidate(name);
+      }
+      ContainerEntity containerEntity = queryContainerByName(name);
+      if (containerEntity != null && containerEntity.getId() != null) {
+         containerIds.put(name, containerEntity.getId());
+      }
+      return containerEntity;
+   }
+
+   /**
+    * @return the id of a container, or null if it does not exist. A cached id is checked against the database as in
+    *         {@link #findContainerByName(String)}, since another writer sharing the database may have deleted or
+    *         recreated the container.
+    */
+   public Long findContainerIdByName(String name) {
+      ContainerEntity containerEntity = findContainerByName(name);
+      return containerEntity == null ? null : containerEntity.getId();
+   }
+
+   public CacheStats getContainerCacheStats() {
+      return containerIds.stats();
+   }
+
+   private ContainerEntity queryContainerByName(String name) {
       try {
          return entityManager.get().createQuery("SELECT c FROM " + entityClass.getName() + " c WHERE c.name = :name", entityClass)
                .setParameter("name", name)
@@ -48,8 +92,15 @@ public class ContainerRepository extends GenericRepository<ContainerEntity, Long
             .getResultList();
    }
 
+   @Override
+   public ContainerEntity create(ContainerEntity entity) {
+      containerIds.invalidate(entity.getName());
+      return super.create(entity);
+   }
+
    public void deleteContainerByName(String name) {
       ContainerEntity containerEntity = findContainerByName(name);
+      containerIds.invalidate(name);
       if (containerEntity != null) {
          delete(containerEntity);
       }
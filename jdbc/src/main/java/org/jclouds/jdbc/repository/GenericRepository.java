@@ -50,4 +50,27 @@ public abstract class GenericRepository<T, PK extends Serializable> {
       entityManager.get().remove(entity);
    }
 
+   public void flush() {
+      entityManager.get().flush();
+   }
+
+   public void detach(T entity) {
+      entityManager.get().detach(entity);
+   }
+
+   /**
+    * Builds a list of positional parameters for the IN clause of a native query. Native queries do not
+    * expand collection parameters on every persistence provider.
+    */
+   protected static String positionalParameters(int first, int count) {
+      StringBuilder parameters = new StringBuilder();
+      for (int i = 0; i < count; i++) {
+         if (i > 0) {
+            parameters.append(", ");
+         }
+         parameters.append('?').append(first + i);
+      }
+      return parameters.toString();
+   }
+
 }
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.repository;
+
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import org.jclouds.jdbc.entity.ChunkEntity;
+import org.jclouds.jdbc.entity.PayloadEntity;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.List;
+
+@Singleton
+public class PayloadRepository extends GenericRepository<PayloadEntity, Long> {
+
+   @Inject
+   private PayloadRepository(Provider<EntityManager> entityManager) {
+      super(entityManager);
+   }
+
+   public List<Long> findChunkIds(List<Long> payloadIds) {
+      return entityManager.get().createQuery("SELECT c FROM " + entityClass.getName() + " p JOIN p.chunks c "
+            + "WHERE p.id IN :ids", Long.class)
+            .setParameter("ids", payloadIds)
+            .getResultList();
+   }
+
+   /**
+    * @return the chunk ids of a payload in payload order
+    */
+   public List<Long> findChunkIds(Long payloadId) {
+      return entityManager.get().createQuery("SELECT c FROM " + entityClass.getName() + " p JOIN p.chunks c "
+            + "WHERE p.id = :id ORDER BY INDEX(c)", Long.class)
+            .setParameter("id", payloadId)
+            .getResultList();
+   }
+
+   /**
+    * @return the id and size of every chunk of a payload in payload order
+    */
+   public List<Object[]> findChunkIdsAndSizes(Long payloadId) {
+      return entityManager.get().createQuery("SELECT c, ch.size FROM " + entityClass.getName() + " p "
+            + "JOIN p.chunks c, " + ChunkEntity.class.getName() + " ch "
+            + "WHERE p.id = :id AND ch.id = c ORDER BY INDEX(c)", Object[].class)
+            .setParameter("id", payloadId)
+            .getResultList();
+   }
+
+   public void deletePayloads(List<Long> payloadIds) {
+      Query deleteChunkList = entityManager.get().createNativeQuery("DELETE FROM PayloadEntity_chunks "
+            + "WHERE PayloadEntity_id IN (" + positionalParameters(1, payloadIds.size()) + ")");
+      for (int i = 0; i < payloadIds.size(); i++) {
+         deleteChunkList.setParameter(i + 1, payloadIds.get(i));
+      }
+      deleteChunkList.executeUpdate();
+      entityManager.get().createQuery("DELETE FROM " + entityClass.getName() + " p WHERE p.id IN :ids")
+            .setParameter("ids", payloadIds)
+            .executeUpdate();
+   }
+
+}
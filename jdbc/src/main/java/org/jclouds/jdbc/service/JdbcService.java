@@ -16,35 +16,57 @@
  */
 package org.jclouds.jdbc.service;
 
+import com.google.common.cache.CacheStats;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
 import com.google.common.hash.Hashing;
 import com.google.common.hash.HashingInputStream;
 import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingInputStream;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import com.google.inject.name.Named;
 import com.google.inject.persist.Transactional;
 import org.jclouds.blobstore.domain.Blob;
 import org.jclouds.blobstore.domain.BlobAccess;
+import org.jclouds.blobstore.domain.BlobMetadata;
 import org.jclouds.blobstore.domain.ContainerAccess;
+import org.jclouds.io.ContentMetadata;
+import org.jclouds.io.Payload;
+import org.jclouds.jdbc.config.JdbcProperties;
 import org.jclouds.jdbc.conversion.BlobToBlobEntity;
 import org.jclouds.jdbc.entity.BlobEntity;
 import org.jclouds.jdbc.entity.BlobEntityPK;
 import org.jclouds.jdbc.entity.ChunkEntity;
 import org.jclouds.jdbc.entity.ContainerEntity;
+import org.jclouds.jdbc.entity.MultipartPartEntity;
+import org.jclouds.jdbc.entity.MultipartPartEntityPK;
+import org.jclouds.jdbc.entity.MultipartUploadEntity;
 import org.jclouds.jdbc.entity.PayloadEntity;
 import org.jclouds.jdbc.reference.JdbcConstants;
 import org.jclouds.jdbc.repository.BlobRepository;
 import org.jclouds.jdbc.repository.ChunkRepository;
 import org.jclouds.jdbc.repository.ContainerRepository;
+import org.jclouds.jdbc.repository.MultipartPartRepository;
+import org.jclouds.jdbc.repository.MultipartUploadRepository;
+import org.jclouds.jdbc.repository.PayloadRepository;
+import org.jclouds.jdbc.util.ChunkData;
 import org.jclouds.util.Closeables2;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.io.BaseEncoding.base16;
 
 @Singleton
@@ -55,17 +77,47 @@ public class JdbcService {
    private final ContainerRepository containerRepository;
    private final BlobRepository blobRepository;
    private final ChunkRepository chunkRepository;
+   private final PayloadRepository payloadRepository;
+   private final MultipartUploadRepository multipartUploadRepository;
+   private final MultipartPartRepository multipartPartRepository;
    private final BlobToBlobEntity blobToBlobEntity;
 
+   private int chunkSize = JdbcConstants.DEFAULT_CHUNK_SIZE;
+   private int inlineThreshold = 0;
+   private boolean deduplicate = false;
+
    @Inject
    JdbcService(ContainerRepository containerRepository, BlobRepository blobRepository, ChunkRepository chunkRepository,
-         BlobToBlobEntity blobToBlobEntity) {
+         PayloadRepository payloadRepository, MultipartUploadRepository multipartUploadRepository,
+         MultipartPartRepository multipartPartRepository, BlobToBlobEntity blobToBlobEntity) {
       this.containerRepository = containerRepository;
       this.blobRepository = blobRepository;
       this.chunkRepository = chunkRepository;
+      this.payloadRepository = payloadRepository;
+      this.multipartUploadRepository = multipartUploadRepository;
+      this.multipartPartRepository = multipartPartRepository;
       this.blobToBlobEntity = blobToBlobEntity;
    }
 
+   @Inject(optional = true)
+   void setChunkSize(@Named(JdbcProperties.CHUNK_SIZE) int chunkSize) {
+      checkArgument(chunkSize > 0 && chunkSize <= JdbcConstants.MAX_CHUNK_SIZE,
+            "%s must be between 1 and %s", JdbcProperties.CHUNK_SIZE, JdbcConstants.MAX_CHUNK_SIZE);
+      this.chunkSize = chunkSize;
+   }
+
+   @Inject(optional = true)
+   void setInlineThreshold(@Named(JdbcProperties.INLINE_THRESHOLD) int inlineThreshold) {
+      checkArgument(inlineThreshold >= 0 && inlineThreshold <= JdbcConstants.MAX_INLINE_SIZE,
+            "%s must be between 0 and %s", JdbcProperties.INLINE_THRESHOLD, JdbcConstants.MAX_INLINE_SIZE);
+      this.inlineThreshold = inlineThreshold;
+   }
+
+   @Inject(optional = true)
+   void setDeduplicate(@Named(JdbcProperties.DEDUPLICATE) boolean deduplicate) {
+      this.deduplicate = deduplicate;
+   }
+
    @Transactional
    public void createContainer(String containerName, ContainerAccess access) {
       containerRepository.create(ContainerEntity.builder().name(containerName).containerAccess(access).build());
@@ -91,6 +143,13 @@ public class JdbcService {
       containerRepository.deleteContainerByName(containerName);
    }
 
+   /**
+    * @return hit and miss counts of the container name to id cache
+    */
+   public CacheStats getContainerCacheStats() {
+      return containerRepository.getContainerCacheStats();
+   }
+
    @Transactional
    public void setContainerAccessByName(String containerName, ContainerAccess access) {
       ContainerEntity containerEntity = containerRepository.findContainerByName(containerName);
@@ -100,15 +159,29 @@ public class JdbcService {
 
    @Transactional
    public boolean blobExists(String containerName, String key) {
-      return findBlobById(containerName, key) != null;
+      Long containerId = containerRepository.findContainerIdByName(containerName);
+      return containerId != null && blobRepository.blobExists(containerId, key);
    }
 
    @Transactional(rollbackOn = IOException.class)
    public BlobEntity createOrModifyBlob(String containerName, Blob blob, BlobAccess blobAccess) throws IOException {
-      List<Long> chunks;
+      List<Long> chunks = ImmutableList.of();
+      byte[] inlineData = null;
       HashingInputStream his = new HashingInputStream(Hashing.md5(), blob.getPayload().openStream());
       try {
-         chunks = storeData(his);
+         InputStream data = his;
+         if (inlineThreshold > 0) {
+            byte[] head = new byte[inlineThreshold + 1];
+            int bytes = ByteStreams.read(his, head, 0, head.length);
+            if (bytes <= inlineThreshold) {
+               inlineData = Arrays.copyOf(head, bytes);
+            } else {
+               data = new SequenceInputStream(new ByteArrayInputStream(head), his);
+            }
+         }
+         if (inlineData == null) {
+            chunks = storeData(data);
+         }
       } finally {
          Closeables2.closeQuietly(his);
       }
@@ -124,9 +197,12 @@ public class JdbcService {
       BlobEntity oldBlobEntity = findBlobById(containerName, key);
       if (oldBlobEntity != null) {
          creationDate = oldBlobEntity.getCreationDate();
+         deleteChunks(oldBlobEntity.getPayload().getChunks());
       }
       BlobEntity blobEntity = blobToBlobEntity.apply(blob);
       blobEntity.getPayload().setChunks(chunks);
+      blobEntity.getPayload().setChunkSize(chunkSize);
+      blobEntity.getPayload().setInlineData(inlineData);
       blobEntity.setContainerEntity(containerRepository.findContainerByName(containerName));
       blobEntity.setKey(key);
       blobEntity.setBlobAccess(blobAccess);
@@ -166,8 +242,30 @@ public class JdbcService {
 
    @Transactional
    public BlobEntity findBlobById(String containerName, String key) {
+      Long containerId = containerRepository.findContainerIdByName(containerName);
+      return containerId == null ? null : blobRepository.find(new BlobEntityPK(containerId, key));
+   }
+
+   /**
+    * Loads the metadata of a blob without its chunk list.
+    *
+    * @return an unmanaged blob entity or null if the blob or its container does not exist
+    * @see BlobRepository#findBlobMetadata
+    */
+   @Transactional
+   public BlobEntity findBlobMetadata(String containerName, String key) {
       ContainerEntity containerEntity = containerRepository.findContainerByName(containerName);
-      return containerEntity == null ? null : blobRepository.find(new BlobEntityPK(containerEntity.getId(), key));
+      return containerEntity == null ? null : blobRepository.findBlobMetadata(containerEntity, key);
+   }
+
+   @Transactional
+   public List<Long> findChunkIds(Long payloadId) {
+      return payloadRepository.findChunkIds(payloadId);
+   }
+
+   @Transactional
+   public List<Object[]> findChunkIdsAndSizes(Long payloadId) {
+      return payloadRepository.findChunkIdsAndSizes(payloadId);
    }
 
    @Transactional
@@ -175,49 +273,118 @@ public class JdbcService {
       return chunkRepository.find(id);
    }
 
+   @Transactional(rollbackOn = IOException.class)
+   public ChunkData readChunk(Long id, long offset, int len) throws IOException {
+      return chunkRepository.readData(id, offset, len);
+   }
+
    @Transactional
    public List<BlobEntity> findBlobsByContainer(String containerName) {
       return blobRepository.findBlobsByContainer(containerRepository.findContainerByName(containerName));
    }
 
+   @Transactional
+   public List<String> findBlobKeysByContainer(String containerName) {
+      ContainerEntity containerEntity = containerRepository.findContainerByName(containerName);
+      return containerEntity == null ? ImmutableList.<String>of() : blobRepository.findKeysByContainer(containerEntity);
+   }
+
+   @Transactional
+   public long countBlobsByContainer(String containerName) {
+      ContainerEntity containerEntity = containerRepository.findContainerByName(containerName);
+      return containerEntity == null ? 0 : blobRepository.countBlobsByContainer(containerEntity);
+   }
+
+   @Transactional
+   public long countBlobsByDirectory(String containerName, String directoryName, boolean recursive) {
+      ContainerEntity containerEntity = containerRepository.findContainerByName(containerName);
+      return containerEntity == null ? 0
+            : blobRepository.countBlobsByDirectory(containerEntity, directoryName, recursive);
+   }
+
+   /**
+    * Lists the metadata of the blobs of a container in key order, without loading payload data.
+    *
+    * @return a page of unmanaged blob entities or null if the container does not exist
+    * @see BlobRepository#findBlobMetadataPage
+    */
+   @Transactional
+   public List<BlobEntity> findBlobMetadataPage(String containerName, String prefix, String afterKey, String fromKey,
+         int maxResults, boolean withUserMetadata) {
+      ContainerEntity containerEntity = containerRepository.findContainerByName(containerName);
+      return containerEntity == null ? null
+            : blobRepository.findBlobMetadataPage(containerEntity, prefix, afterKey, fromKey, maxResults,
+                  withUserMetadata);
+   }
+
+   /**
+    * Lists the blobs below a directory in key order: every nested blob when recursive, otherwise only the
+    * immediate children looked up by their parent path.
+    */
    @Transactional
    public List<BlobEntity> findBlobsByDirectory(String containerName, String directoryName, boolean recursive) {
-      ImmutableList.Builder<BlobEntity> result = ImmutableList.builder();
-      List<BlobEntity> blobEntities = blobRepository
-            .findBlobsByDirectory(containerRepository.findContainerByName(containerName), directoryName);
-      result.addAll(blobEntities);
-      if (recursive) {
-         for (BlobEntity blobEntity : blobEntities) {
-            if (blobEntity.isDirectory()) {
-               result.addAll(findBlobsByDirectory(containerName, blobEntity.getKey(), true));
-            }
-         }
+      ContainerEntity containerEntity = containerRepository.findContainerByName(containerName);
+      if (containerEntity == null) {
+         return ImmutableList.of();
       }
-      return result.build();
+      return recursive ? blobRepository.findBlobsByDirectory(containerEntity, directoryName)
+            : blobRepository.findBlobsByParentPath(containerEntity, directoryName);
    }
 
-   @Transactional
+   /**
+    * Deletes all the blobs of a container in batches of {@link JdbcConstants#BULK_DELETE_BATCH_SIZE} blobs,
+    * each batch committed in its own transaction.
+    */
    public void deleteBlobsByContainer(String containerName) {
-      List<BlobEntity> blobs = findBlobsByContainer(containerName);
-      for (BlobEntity blob : blobs) {
-         deleteBlob(containerName, blob.getKey());
+      while (deleteBlobsBatch(containerName, null, false) == JdbcConstants.BULK_DELETE_BATCH_SIZE) {
+         // keep deleting until a partial batch shows nothing is left
       }
    }
 
-   @Transactional
+   /**
+    * Deletes the blobs below a directory in batches of {@link JdbcConstants#BULK_DELETE_BATCH_SIZE} blobs,
+    * each batch committed in its own transaction. Nested directory blobs are only deleted when recursive.
+    */
    public void deleteBlobsByDirectory(String containerName, String directoryName, boolean recursive) {
-      List<BlobEntity> blobs = findBlobsByDirectory(containerName, directoryName, false);
-      for (BlobEntity blob : blobs) {
-         if (!blob.isDirectory()) {
-            deleteBlob(containerName, blob.getKey());
-         }
-         else {
-            if (recursive) {
-               deleteBlobsByDirectory(containerName, blob.getKey(), true);
-               deleteBlob(containerName, blob.getKey());
-            }
+      while (deleteBlobsBatch(containerName, directoryName, !recursive) == JdbcConstants.BULK_DELETE_BATCH_SIZE) {
+         // keep deleting until a partial batch shows nothing is left
+      }
+   }
+
+   /**
+    * Deletes one batch of blobs, with their payloads and chunk references, using set-based statements.
+    *
+    * @param directoryName when not null, only blobs below this directory are deleted
+    * @param filesOnly whether directory blobs are kept
+    * @return the number of blobs deleted
+    */
+   @Transactional
+   public int deleteBlobsBatch(String containerName, String directoryName, boolean filesOnly) {
+      ContainerEntity containerEntity = containerRepository.findContainerByName(containerName);
+      if (containerEntity == null) {
+         return 0;
+      }
+      List<Object[]> rows = blobRepository.findKeysAndPayloadIds(containerEntity, directoryName, filesOnly,
+            JdbcConstants.BULK_DELETE_BATCH_SIZE);
+      if (rows.isEmpty()) {
+         return 0;
+      }
+      List<String> keys = new ArrayList<String>(rows.size());
+      List<Long> payloadIds = new ArrayList<Long>(rows.size());
+      for (Object[] row : rows) {
+         keys.add((String) row[0]);
+         if (row[1] != null) {
+            payloadIds.add((Long) row[1]);
          }
       }
+      if (!payloadIds.isEmpty()) {
+         deleteChunks(payloadRepository.findChunkIds(payloadIds));
+      }
+      blobRepository.deleteBlobs(containerEntity, keys);
+      if (!payloadIds.isEmpty()) {
+         payloadRepository.deletePayloads(payloadIds);
+      }
+      return rows.size();
    }
 
    @Transactional
@@ -229,6 +396,261 @@ public class JdbcService {
       }
    }
 
+   /**
+    * Copies a blob by creating a new blob entity whose payload points at the chunks of the source blob.
+    * The shared chunks gain one reference per occurrence, so deleting either blob leaves the other intact.
+    *
+    * @param contentMetadata when not null, replaces the non null content attributes of the source blob
+    * @param userMetadata when not null, replaces the user metadata of the source blob
+    * @return the new blob entity or null if the source blob does not exist
+    */
+   @Transactional
+   public BlobEntity copyBlob(String fromContainer, String fromName, String toContainer, String toName,
+         ContentMetadata contentMetadata, Map<String, String> userMetadata) {
+      BlobEntity source = findBlobById(fromContainer, fromName);
+      if (source == null) {
+         return null;
+      }
+      PayloadEntity sourcePayload = source.getPayload();
+      List<Long> chunks = ImmutableList.copyOf(sourcePayload.getChunks());
+      if (!chunks.isEmpty() && chunkRepository.addReferences(chunks) != ImmutableSet.copyOf(chunks).size()) {
+         throw new IllegalStateException("Chunks of blob " + fromName + " were deleted while copying it");
+      }
+
+      PayloadEntity payload = PayloadEntity.builder()
+            .chunks(new ArrayList<Long>(chunks))
+            .cacheControl(sourcePayload.getCacheControl())
+            .contentType(sourcePayload.getContentType())
+            .contentLength(sourcePayload.getContentLength())
+            .contentMD5(sourcePayload.getContentMD5())
+            .contentDisposition(sourcePayload.getContentDisposition())
+            .contentLanguage(sourcePayload.getContentLanguage())
+            .contentEncoding(sourcePayload.getContentEncoding())
+            .expires(sourcePayload.getExpires())
+            .build();
+      payload.setChunkSize(sourcePayload.getChunkSize());
+      payload.setInlineData(sourcePayload.getInlineData());
+      if (contentMetadata != null) {
+         if (contentMetadata.getCacheControl() != null) {
+            payload.setCacheControl(contentMetadata.getCacheControl());
+         }
+         if (contentMetadata.getContentType() != null) {
+            payload.setContentType(contentMetadata.getContentType());
+         }
+         if (contentMetadata.getContentDisposition() != null) {
+            payload.setContentDisposition(contentMetadata.getContentDisposition());
+         }
+         if (contentMetadata.getContentEncoding() != null) {
+            payload.setContentEncoding(contentMetadata.getContentEncoding());
+         }
+         if (contentMetadata.getContentLanguage() != null) {
+            payload.setContentLanguage(contentMetadata.getContentLanguage());
+         }
+         if (contentMetadata.getExpires() != null) {
+            payload.setExpires(contentMetadata.getExpires());
+         }
+      }
+
+      Date creationDate = null;
+      BlobEntity oldBlobEntity = findBlobById(toContainer, toName);
+      if (oldBlobEntity != null) {
+         creationDate = oldBlobEntity.getCreationDate();
+         deleteChunks(oldBlobEntity.getPayload().getChunks());
+      }
+      BlobEntity blobEntity = BlobEntity.builder(containerRepository.findContainerByName(toContainer), toName)
+            .payload(payload)
+            .userMetadata(new HashMap<String, String>(userMetadata != null ? userMetadata : source.getUserMetadata()))
+            .tier(source.getTier())
+            .size(source.getSize())
+            .etag(source.getEtag())
+            .directory(source.isDirectory())
+            .build();
+      blobEntity.setCreationDate(creationDate);
+      blobEntity.setLastModified(new Date());
+      return blobRepository.save(blobEntity);
+   }
+
+   @Transactional
+   public MultipartUploadEntity createMultipartUpload(String containerName, String uploadId, String blobName) {
+      return multipartUploadRepository.create(new MultipartUploadEntity(uploadId,
+            containerRepository.findContainerByName(containerName), blobName));
+   }
+
+   @Transactional
+   public MultipartUploadEntity findMultipartUpload(String uploadId) {
+      return multipartUploadRepository.find(uploadId);
+   }
+
+   @Transactional
+   public List<MultipartUploadEntity> findMultipartUploadsByContainer(String containerName) {
+      ContainerEntity containerEntity = containerRepository.findContainerByName(containerName);
+      return containerEntity == null ? ImmutableList.<MultipartUploadEntity>of()
+            : multipartUploadRepository.findUploadsByContainer(containerEntity);
+   }
+
+   @Transactional
+   public List<MultipartPartEntity> findMultipartParts(String uploadId) {
+      return multipartPartRepository.findPartsByUpload(uploadId);
+   }
+
+   /**
+    * Stores a part of a multipart upload as a run of chunks, replacing any part with the same number.
+    * Every part is written in its own transaction and only locks its own rows, so the parts of an upload
+    * can be sent concurrently.
+    *
+    * @return the stored part or null if the upload does not exist
+    */
+   @Transactional(rollbackOn = IOException.class)
+   public MultipartPartEntity createOrModifyMultipartPart(String uploadId, int partNumber, Payload payload)
+         throws IOException {
+      if (multipartUploadRepository.find(uploadId) == null) {
+         return null;
+      }
+      List<Long> chunks;
+      HashingInputStream his = new HashingInputStream(Hashing.md5(), payload.openStream());
+      CountingInputStream cis = new CountingInputStream(his);
+      try {
+         chunks = storeData(cis);
+      } finally {
+         Closeables2.closeQuietly(cis);
+      }
+      HashCode actualHashCode = his.hash();
+      HashCode expectedHashCode = payload.getContentMetadata().getContentMD5AsHashCode();
+      if (expectedHashCode != null && !actualHashCode.equals(expectedHashCode)) {
+         throw new IOException("MD5 hash code mismatch, actual: " + actualHashCode +
+               " expected: " + expectedHashCode);
+      }
+
+      MultipartPartEntity oldPart = multipartPartRepository.find(new MultipartPartEntityPK(uploadId, partNumber));
+      if (oldPart != null) {
+         deleteChunks(oldPart.getPayload().getChunks());
+         multipartPartRepository.delete(oldPart);
+         multipartPartRepository.flush();
+      }
+      PayloadEntity partPayload = PayloadEntity.builder()
+            .chunks(chunks)
+            .contentLength(cis.getCount())
+            .contentMD5(actualHashCode.asBytes())
+            .build();
+      partPayload.setChunkSize(chunkSize);
+      return multipartPartRepository.create(new MultipartPartEntity(uploadId, partNumber, partPayload, cis.getCount(),
+            base16().lowerCase().encode(actualHashCode.asBytes())));
+   }
+
+   /**
+    * Completes a multipart upload by concatenating the chunk lists of the given parts into the payload
+    * of the blob, no data is read or written. The ETag is the MD5 of the part MD5s followed by the
+    * number of parts. Parts left out of the list are released.
+    *
+    * @return the blob entity or null if the upload does not exist
+    */
+   @Transactional
+   public BlobEntity completeMultipartUpload(String uploadId, List<Integer> partNumbers, BlobMetadata blobMetadata,
+         BlobAccess blobAccess) {
+      MultipartUploadEntity upload = multipartUploadRepository.find(uploadId);
+      if (upload == null) {
+         return null;
+      }
+      Map<Integer, MultipartPartEntity> partsByNumber = new HashMap<Integer, MultipartPartEntity>();
+      List<Long> payloadIds = new ArrayList<Long>();
+      for (MultipartPartEntity part : multipartPartRepository.findPartsByUpload(uploadId)) {
+         partsByNumber.put(part.getPartNumber(), part);
+         payloadIds.add(part.getPayload().getId());
+      }
+
+      List<Long> chunks = new ArrayList<Long>();
+      Hasher etagHasher = Hashing.md5().newHasher();
+      long size = 0;
+      Integer commonChunkSize = null;
+      boolean aligned = true;
+      for (int i = 0; i < partNumbers.size(); i++) {
+         MultipartPartEntity part = partsByNumber.remove(partNumbers.get(i));
+         checkArgument(part != null, "part %s of upload %s does not exist", partNumbers.get(i), uploadId);
+         PayloadEntity partPayload = part.getPayload();
+         chunks.addAll(partPayload.getChunks());
+         etagHasher.putBytes(partPayload.getContentMD5());
+         if (commonChunkSize == null) {
+            commonChunkSize = partPayload.getChunkSize();
+         }
+         // chunk offsets can only be computed from a common chunk size if every part but the last one fills its chunks
+         aligned &= commonChunkSize.equals(partPayload.getChunkSize())
+               && (i == partNumbers.size() - 1 || part.getSize() % commonChunkSize == 0);
+         size += part.getSize();
+      }
+      for (MultipartPartEntity unusedPart : partsByNumber.values()) {
+         deleteChunks(unusedPart.getPayload().getChunks());
+      }
+
+      ContentMetadata contentMetadata = blobMetadata.getContentMetadata();
+      PayloadEntity payload = PayloadEntity.builder()
+            .chunks(chunks)
+            .cacheControl(contentMetadata.getCacheControl())
+            .contentType(contentMetadata.getContentType())
+            .contentLength(size)
+            .contentDisposition(contentMetadata.getContentDisposition())
+            .contentLanguage(contentMetadata.getContentLanguage())
+            .contentEncoding(contentMetadata.getContentEncoding())
+            .expires(contentMetadata.getExpires())
+            .build();
+      payload.setChunkSize(aligned && commonChunkSize != null ? commonChunkSize : 0);
+
+      String containerName = upload.getContainerEntity().getName();
+      String key = upload.getBlobName();
+      Date creationDate = null;
+      BlobEntity oldBlobEntity = findBlobById(containerName, key);
+      if (oldBlobEntity != null) {
+         creationDate = oldBlobEntity.getCreationDate();
+         deleteChunks(oldBlobEntity.getPayload().getChunks());
+      }
+      BlobEntity blobEntity = BlobEntity.builder(upload.getContainerEntity(), key)
+            .payload(payload)
+            .userMetadata(new HashMap<String, String>(blobMetadata.getUserMetadata()))
+            .blobAccess(blobAccess)
+            .tier(blobMetadata.getTier())
+            .size(size)
+            .etag(etagHasher.hash() + "-" + partNumbers.size())
+            .build();
+      blobEntity.setCreationDate(creationDate);
+      blobEntity.setLastModified(new Date());
+      BlobEntity result = blobRepository.save(blobEntity);
+
+      // the chunks now belong to the blob, only the part rows and their chunk lists go away
+      multipartPartRepository.deletePartsByUpload(uploadId);
+      if (!payloadIds.isEmpty()) {
+         payloadRepository.deletePayloads(payloadIds);
+      }
+      multipartUploadRepository.delete(upload);
+      return result;
+   }
+
+   /**
+    * Aborts a multipart upload and releases the chunks of its parts.
+    */
+   @Transactional
+   public void deleteMultipartUpload(String uploadId) {
+      MultipartUploadEntity upload = multipartUploadRepository.find(uploadId);
+      if (upload == null) {
+         return;
+      }
+      List<Long> payloadIds = new ArrayList<Long>();
+      for (MultipartPartEntity part : multipartPartRepository.findPartsByUpload(uploadId)) {
+         payloadIds.add(part.getPayload().getId());
+      }
+      multipartPartRepository.deletePartsByUpload(uploadId);
+      if (!payloadIds.isEmpty()) {
+         deleteChunks(payloadRepository.findChunkIds(payloadIds));
+         payloadRepository.deletePayloads(payloadIds);
+      }
+      multipartUploadRepository.delete(upload);
+   }
+
+   @Transactional
+   public void deleteMultipartUploadsByContainer(String containerName) {
+      for (MultipartUploadEntity upload : findMultipartUploadsByContainer(containerName)) {
+         deleteMultipartUpload(upload.getId());
+      }
+   }
+
    @Transactional
    public void setBlobAccessById(String containerName, String key, BlobAccess access) {
       BlobEntity blobEntity = findBlobById(containerName, key);
@@ -238,24 +660,69 @@ public class JdbcService {
 
    @Transactional
    private void deleteChunks(List<Long> chunkIds) {
-      for (Long chunkId : chunkIds) {
-         chunkRepository.delete(chunkRepository.find(chunkId));
+      if (!chunkIds.isEmpty()) {
+         chunkRepository.releaseReferences(chunkIds);
       }
    }
 
+   /**
+    * Writes the data as a sequence of chunks. Chunks are flushed and detached from the persistence
+    * context in batches of up to {@link JdbcConstants#CHUNK_WRITE_BATCH_SIZE} chunks, so the provider can
+    * send them as one JDBC batch and their buffers can be reused for the next batch. When deduplication
+    * is enabled, a chunk whose content is already stored only gains a reference and is not written again.
+    */
    @Transactional(rollbackOn = IOException.class)
    private List<Long> storeData(InputStream data) throws IOException {
-      ImmutableList.Builder<Long> chunks = ImmutableList.builder();
+      List<Long> chunks = new ArrayList<Long>();
+      int batchSize = Math.max(1, Math.min(JdbcConstants.CHUNK_WRITE_BATCH_SIZE,
+            JdbcConstants.CHUNK_WRITE_BATCH_BYTES / chunkSize));
+      List<ChunkEntity> pending = new ArrayList<ChunkEntity>(batchSize);
+      List<Integer> pendingPositions = new ArrayList<Integer>(batchSize);
+      byte[][] buffers = new byte[batchSize][];
       while (true) {
-         byte[] buffer = new byte[JdbcConstants.DEFAULT_CHUNK_SIZE];
-         int bytes = ByteStreams.read(data, buffer, 0, JdbcConstants.DEFAULT_CHUNK_SIZE);
+         int slot = pending.size();
+         if (buffers[slot] == null) {
+            buffers[slot] = new byte[chunkSize];
+         }
+         byte[] buffer = buffers[slot];
+         int bytes = ByteStreams.read(data, buffer, 0, chunkSize);
          if (bytes == 0) {
             break;
-         } else if (bytes != buffer.length) {
+         }
+         String hash = null;
+         if (deduplicate) {
+            hash = Hashing.sha256().hashBytes(buffer, 0, bytes).toString();
+            Long existing = chunkRepository.findIdByHash(hash);
+            if (existing != null && chunkRepository.addReference(existing)) {
+               chunks.add(existing);
+               continue;
+            }
+         }
+         if (bytes != buffer.length) {
             buffer = Arrays.copyOf(buffer, bytes);
          }
-         chunks.add(chunkRepository.create(new ChunkEntity(buffer, bytes)).getId());
+         pendingPositions.add(chunks.size());
+         chunks.add(null);
+         pending.add(chunkRepository.create(new ChunkEntity(buffer, bytes, hash)));
+         if (pending.size() == batchSize) {
+            flushChunks(pending, pendingPositions, chunks);
+         }
+      }
+      flushChunks(pending, pendingPositions, chunks);
+      return ImmutableList.copyOf(chunks);
+   }
+
+   private void flushChunks(List<ChunkEntity> pending, List<Integer> pendingPositions, List<Long> chunks) {
+      if (pending.isEmpty()) {
+         return;
+      }
+      chunkRepository.flush();
+      for (int i = 0; i < pending.size(); i++) {
+         ChunkEntity chunk = pending.get(i);
+         chunks.set(pendingPositions.get(i), chunk.getId());
+         chunkRepository.detach(chunk);
       }
-      return chunks.build();
+      pending.clear();
+      pendingPositions.clear();
    }
 }
@@ -164,6 +164,7 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
    public void deleteContainer(String container) {
       jdbcContainerNameValidator.validate(container);
       jdbcService.deleteBlobsByContainer(container);
+      jdbcService.deleteMultipartUploadsByContainer(container);
       jdbcService.deleteContainerByName(container);
    }
 
@@ -235,12 +236,7 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
     */
    @Override
    public Iterable<String> getBlobKeysInsideContainer(String container) throws IOException {
-      List<BlobEntity> blobEntities = jdbcService.findBlobsByContainer(container);
-      ImmutableList.Builder<String> result = ImmutableList.builder();
-      for (BlobEntity blobEntity : blobEntities) {
-         result.add(blobEntity.getKey());
-      }
-      return result.build();
+      return jdbcService.findBlobKeysByContainer(container);
    }
 
    /**
@@ -333,8 +329,8 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
     * @return the number of blobs in the container
     */
    public long countBlobs(String container, ListContainerOptions options) {
-      return options.getDir() == null ? jdbcService.findBlobsByContainer(container).size()
-             : jdbcService.findBlobsByDirectory(container, options.getDir(), options.isRecursive()).size();
+      return options.getDir() == null ? jdbcService.countBlobsByContainer(container)
+             : jdbcService.countBlobsByDirectory(container, options.getDir(), options.isRecursive());
    }
 
    /**
@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Bytes of a chunk read in a single query. Persistence providers which load the LOB in full give
+ * the whole chunk, the others only the requested range, so a {@link JdbcInputStream} keeps the last
+ * one and reads the rest of a fully loaded chunk without querying it again.
+ */
+public final class ChunkData {
+
+   private final long offset;
+   private final byte[] data;
+   private final long chunkLength;
+
+   /**
+    * @param offset position of the first byte of data within the chunk
+    * @param chunkLength size of the whole chunk
+    */
+   public ChunkData(long offset, byte[] data, long chunkLength) {
+      this.data = checkNotNull(data, "data");
+      checkArgument(offset >= 0 && offset + data.length <= Math.max(offset, chunkLength),
+            "data must lie within the chunk");
+      this.offset = offset;
+      this.chunkLength = chunkLength;
+   }
+
+   /**
+    * Copies the bytes held from a position of the chunk.
+    *
+    * @return the number of bytes copied, 0 if the position is past the end of the chunk or -1 if
+    *         the bytes at this position are not held
+    */
+   public int copy(long position, byte[] buffer, int off, int len) {
+      if (position >= chunkLength) {
+         return 0;
+      }
+      if (position < offset || position >= offset + data.length) {
+         return -1;
+      }
+      int count = (int) Math.min(len, offset + data.length - position);
+      System.arraycopy(data, (int) (position - offset), buffer, off, count);
+      return count;
+   }
+
+}
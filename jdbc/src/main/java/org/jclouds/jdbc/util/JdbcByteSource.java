@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.util;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteSource;
+import org.jclouds.jdbc.service.JdbcService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Repeatable view of a stored payload. Slices open a {@link JdbcInputStream} positioned at the
+ * slice offset, so range requests served by the blobstore only read the chunks they cover.
+ * The chunk list is only loaded when a stream is first opened.
+ */
+public class JdbcByteSource extends ByteSource {
+
+   private final JdbcService jdbcService;
+   private final Supplier<Chunks> chunks;
+   private final long offset;
+   private final Long size;
+
+   /**
+    * @param size total payload size or null when unknown
+    */
+   public JdbcByteSource(JdbcService jdbcService, List<Long> chunks, int chunkSize, Long size) {
+      this(jdbcService, Suppliers.ofInstance(new Chunks(chunks, chunkSize, null)), 0, size);
+   }
+
+   /**
+    * @param payloadId id of the payload whose chunk list is loaded on first use
+    * @param chunkSize size of every chunk but the last one, or 0 when the chunks have different sizes
+    * @param size total payload size or null when unknown
+    */
+   public JdbcByteSource(final JdbcService jdbcService, final Long payloadId, final int chunkSize, Long size) {
+      this(jdbcService, Suppliers.memoize(new Supplier<Chunks>() {
+         @Override
+         public Chunks get() {
+            if (chunkSize > 0) {
+               return new Chunks(jdbcService.findChunkIds(payloadId), chunkSize, null);
+            }
+            List<Object[]> rows = jdbcService.findChunkIdsAndSizes(payloadId);
+            List<Long> ids = new ArrayList<Long>(rows.size());
+            long[] offsets = new long[rows.size() + 1];
+            for (int i = 0; i < rows.size(); i++) {
+               ids.add((Long) rows.get(i)[0]);
+               offsets[i + 1] = offsets[i] + ((Number) rows.get(i)[1]).longValue();
+            }
+            return new Chunks(ids, 0, offsets);
+         }
+      }), 0, size);
+   }
+
+   private JdbcByteSource(JdbcService jdbcService, Supplier<Chunks> chunks, long offset, Long size) {
+      this.jdbcService = checkNotNull(jdbcService, "jdbcService");
+      this.chunks = chunks;
+      this.offset = offset;
+      this.size = size;
+   }
+
+   @Override
+   public InputStream openStream() throws IOException {
+      Chunks chunks = this.chunks.get();
+      long length = size == null ? Long.MAX_VALUE : size;
+      return chunks.offsets == null
+            ? new JdbcInputStream(jdbcService, chunks.ids, chunks.chunkSize, offset, length)
+            : new JdbcInputStream(jdbcService, chunks.ids, chunks.offsets, offset, length);
+   }
+
+   @Override
+   public long size() throws IOException {
+      return size == null ? super.size() : size;
+   }
+
+   @Override
+   public ByteSource slice(long sliceOffset, long sliceLength) {
+      checkArgument(sliceOffset >= 0, "offset (%s) may not be negative", sliceOffset);
+      checkArgument(sliceLength >= 0, "length (%s) may not be negative", sliceLength);
+      long available = size == null ? sliceLength : Math.max(0, Math.min(sliceLength, size - sliceOffset));
+      return new JdbcByteSource(jdbcService, chunks, offset + sliceOffset, available);
+   }
+
+   @Override
+   public String toString() {
+      return "JdbcByteSource(offset " + offset + ", size " + size + ")";
+   }
+
+   /**
+    * Chunk ids of a payload with either their common size or the offset of every chunk.
+    */
+   private static final class Chunks {
+      private final List<Long> ids;
+      private final int chunkSize;
+      private final long[] offsets;
+
+      private Chunks(List<Long> ids, int chunkSize, long[] offsets) {
+         this.ids = ImmutableList.copyOf(checkNotNull(ids, "chunks"));
+         this.chunkSize = chunkSize;
+         this.offsets = offsets;
+      }
+   }
+
+}
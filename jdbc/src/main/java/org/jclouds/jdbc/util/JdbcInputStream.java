@@ -16,62 +16,228 @@
  */
 package org.jclouds.jdbc.util;
 
-import org.jclouds.jdbc.entity.ChunkEntity;
+import org.jclouds.jdbc.reference.JdbcConstants;
 import org.jclouds.jdbc.service.JdbcService;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
-import java.util.LinkedHashSet;
+import java.util.Arrays;
 import java.util.List;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
+/**
+ * Input stream over the chunks of a stored payload. Every chunk but the last one holds exactly
+ * {@code chunkSize} bytes, so any offset maps directly to a chunk index and chunks before the
+ * requested range are never read. Payloads assembled from multipart upload parts have chunks of
+ * different sizes, their offsets are given explicitly and looked up by binary search. Data is pulled from the database in bounded windows, the first
+ * one on the first read, so opening a stream does not touch the database. When the persistence provider loads a
+ * whole chunk for a window, the chunk is kept and its next windows are read from memory.
+ */
 public class JdbcInputStream extends InputStream {
 
-   private JdbcService jdbcService;
+   private static final int BUFFER_SIZE = 64 * 1024;
+
+   private final JdbcService jdbcService;
 
    private final List<Long> chunks;
-   private ChunkEntity currentChunk;
-   private int bytesRead;
+   private final int chunkSize;
+   private final long[] chunkOffsets;
+   private final long end;
+   private long position;
+
+   private byte[] buffer;
+   private int bufferPosition;
+   private int bufferLength;
+   private boolean finished;
+
+   private int loadedChunkIndex = -1;
+   private ChunkData loadedChunk;
 
    public JdbcInputStream(JdbcService jdbcService, List<Long> chunks) {
+      this(jdbcService, chunks, JdbcConstants.DEFAULT_CHUNK_SIZE, 0, Long.MAX_VALUE);
+   }
+
+   /**
+    * @param chunkSize size of every chunk but the last one
+    * @param offset position of the first byte to read
+    * @param length maximum number of bytes to read
+    */
+   public JdbcInputStream(JdbcService jdbcService, List<Long> chunks, int chunkSize, long offset, long length) {
+      this(jdbcService, chunks, chunkSize, null, offset, length);
+      checkArgument(chunkSize > 0, "chunkSize must be positive");
+   }
+
+   /**
+    * @param chunkOffsets position of the first byte of every chunk followed by the payload size
+    * @param offset position of the first byte to read
+    * @param length maximum number of bytes to read
+    */
+   public JdbcInputStream(JdbcService jdbcService, List<Long> chunks, long[] chunkOffsets, long offset, long length) {
+      this(jdbcService, chunks, 0, checkNotNull(chunkOffsets, "chunkOffsets"), offset, length);
+      checkArgument(chunkOffsets.length == this.chunks.size() + 1,
+            "chunkOffsets must hold one entry per chunk followed by the payload size");
+   }
+
+   private JdbcInputStream(JdbcService jdbcService, List<Long> chunks, int chunkSize, long[] chunkOffsets, long offset,
+         long length) {
       this.jdbcService = checkNotNull(jdbcService, "jdbcService");
-      // Need to remove duplicates due to https://hibernate.atlassian.net/browse/HHH-6783
-      this.chunks = new ArrayList<Long>(new LinkedHashSet<Long>(checkNotNull(chunks, "chunks")));
-      try {
-         readNextChunk();
-      } catch (IOException e) {
-         throw new IllegalArgumentException(e);
-      }
+      this.chunks = new ArrayList<Long>(checkNotNull(chunks, "chunks"));
+      checkArgument(offset >= 0, "offset must be non negative");
+      checkArgument(length >= 0, "length must be non negative");
+      this.chunkSize = chunkSize;
+      this.chunkOffsets = chunkOffsets;
+      this.position = offset;
+      this.end = Long.MAX_VALUE - offset < length ? Long.MAX_VALUE : offset + length;
    }
 
    @Override
    public synchronized int read() throws IOException {
-      if (hasFinished()) {
+      if (bufferPosition >= bufferLength && !fillBuffer()) {
          return -1;
       }
-      int b = currentChunk.getData()[bytesRead] & 0xff;
-      bytesRead = bytesRead + 1;
-      if (bytesRead >= currentChunk.getSize()) {
-         readNextChunk();
+      return buffer[bufferPosition++] & 0xff;
+   }
+
+   @Override
+   public synchronized int read(byte[] b, int off, int len) throws IOException {
+      checkNotNull(b, "b");
+      if (off < 0 || len < 0 || len > b.length - off) {
+         throw new IndexOutOfBoundsException();
+      }
+      if (len == 0) {
+         return 0;
+      }
+      int total = 0;
+      while (total < len) {
+         int buffered = bufferLength - bufferPosition;
+         if (buffered > 0) {
+            int count = Math.min(buffered, len - total);
+            System.arraycopy(buffer, bufferPosition, b, off + total, count);
+            bufferPosition += count;
+            total += count;
+         } else if (len - total >= BUFFER_SIZE) {
+            // large reads go straight into the caller's array
+            int count = readFromChunk(b, off + total, len - total);
+            if (count <= 0) {
+               break;
+            }
+            total += count;
+         } else if (!fillBuffer()) {
+            break;
+         }
+      }
+      return total == 0 ? -1 : total;
+   }
+
+   @Override
+   public synchronized long skip(long n) throws IOException {
+      if (n <= 0) {
+         return 0;
+      }
+      long buffered = bufferLength - bufferPosition;
+      if (n <= buffered) {
+         bufferPosition += (int) n;
+         return n;
       }
-      return b;
+      long skipped = Math.min(n - buffered, end - position);
+      position += skipped;
+      bufferPosition = bufferLength = 0;
+      return buffered + skipped;
+   }
+
+   @Override
+   public synchronized int available() {
+      return bufferLength - bufferPosition;
    }
 
-   private boolean hasFinished() {
-      return currentChunk == null || (chunks.size() == 0 && bytesRead >= currentChunk.getSize());
+   @Override
+   public synchronized void close() {
+      finished = true;
+      bufferPosition = bufferLength = 0;
+      loadedChunk = null;
    }
 
-   private void readNextChunk() throws IOException {
-      if (chunks.size() > 0) {
-         this.currentChunk = jdbcService.findChunkById(chunks.get(0));
-         if (currentChunk == null) {
+   private boolean fillBuffer() throws IOException {
+      if (buffer == null) {
+         buffer = new byte[BUFFER_SIZE];
+      }
+      bufferPosition = 0;
+      bufferLength = 0;
+      int count = readFromChunk(buffer, 0, buffer.length);
+      if (count <= 0) {
+         return false;
+      }
+      bufferLength = count;
+      return true;
+   }
+
+   /**
+    * Reads from the chunk holding the current position, never crossing a chunk boundary.
+    */
+   private int readFromChunk(byte[] b, int off, int len) throws IOException {
+      if (finished || position >= end) {
+         finished = true;
+         return -1;
+      }
+      int chunkIndex;
+      long chunkStart;
+      long chunkEnd;
+      if (chunkOffsets == null) {
+         long index = position / chunkSize;
+         if (index >= chunks.size()) {
+            finished = true;
+            return -1;
+         }
+         chunkIndex = (int) index;
+         chunkStart = index * chunkSize;
+         chunkEnd = chunkStart + chunkSize;
+      } else {
+         chunkIndex = chunkIndexOf(position);
+         if (chunkIndex >= chunks.size()) {
+            finished = true;
+            return -1;
+         }
+         chunkStart = chunkOffsets[chunkIndex];
+         chunkEnd = chunkOffsets[chunkIndex + 1];
+      }
+      long chunkOffset = position - chunkStart;
+      int count = (int) Math.min(Math.min(len, chunkEnd - position), end - position);
+      int read = -1;
+      if (loadedChunk != null && loadedChunkIndex == chunkIndex) {
+         read = loadedChunk.copy(chunkOffset, b, off, count);
+      }
+      if (read < 0) {
+         ChunkData data = jdbcService.readChunk(chunks.get(chunkIndex), chunkOffset, count);
+         if (data == null) {
             throw new IOException("Could not find chunk.");
          }
-         chunks.remove(0);
-         this.bytesRead = 0;
+         loadedChunkIndex = chunkIndex;
+         loadedChunk = data;
+         read = data.copy(chunkOffset, b, off, count);
+      }
+      if (read == 0) {
+         finished = true;
+         return -1;
+      }
+      position += read;
+      return read;
+   }
+
+   /**
+    * @return the index of the last chunk starting at or before the position, skipping empty chunks
+    */
+   private int chunkIndexOf(long position) {
+      int index = Arrays.binarySearch(chunkOffsets, position);
+      if (index < 0) {
+         return -index - 2;
+      }
+      while (index + 1 < chunkOffsets.length && chunkOffsets[index + 1] == position) {
+         index++;
       }
+      return index;
    }
 
 }
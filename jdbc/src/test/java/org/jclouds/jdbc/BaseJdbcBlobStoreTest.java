@@ -17,10 +17,12 @@
 package org.jclouds.jdbc;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.google.common.io.ByteSource;
+import com.google.common.io.ByteStreams;
 import com.google.inject.Module;
 import com.google.inject.persist.jpa.JpaPersistModule;
 import org.jclouds.ContextBuilder;
@@ -28,15 +30,21 @@ import org.jclouds.blobstore.BlobRequestSigner;
 import org.jclouds.blobstore.BlobStore;
 import org.jclouds.blobstore.BlobStoreContext;
 import org.jclouds.blobstore.ContainerNotFoundException;
+import org.jclouds.blobstore.KeyNotFoundException;
 import org.jclouds.blobstore.domain.Blob;
 import org.jclouds.blobstore.domain.BlobMetadata;
+import org.jclouds.blobstore.domain.MultipartPart;
+import org.jclouds.blobstore.domain.MultipartUpload;
 import org.jclouds.blobstore.domain.PageSet;
 import org.jclouds.blobstore.domain.StorageMetadata;
 import org.jclouds.blobstore.domain.StorageType;
+import org.jclouds.blobstore.options.CopyOptions;
 import org.jclouds.blobstore.options.GetOptions;
 import org.jclouds.blobstore.options.ListContainerOptions;
+import org.jclouds.blobstore.options.PutOptions;
 import org.jclouds.http.HttpRequest;
 import org.jclouds.io.Payload;
+import org.jclouds.io.Payloads;
 import org.jclouds.io.payloads.PhantomPayload;
 import org.jclouds.io.payloads.StringPayload;
 import org.jclouds.util.Closeables2;
@@ -51,6 +59,10 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static com.google.common.io.BaseEncoding.base16;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -521,6 +533,117 @@ public abstract class BaseJdbcBlobStoreTest {
       assertEquals(metadata.getUserMetadata().size(), 0, "Wrong blob UserMetadata");
    }
 
+   @Test
+   public void testBlobMetadataWithUserMetadata() {
+      String BLOB_KEY = createRandomBlobKey(null, null);
+      blobStore.createContainerInLocation(null, CONTAINER_NAME);
+      blobStore.putBlob(CONTAINER_NAME, blobStore.blobBuilder(BLOB_KEY)
+            .payload(randomByteSource().slice(0, 3 * 1024 * 1024))
+            .userMetadata(ImmutableMap.of("key1", "value1", "key2", "value2"))
+            .build());
+
+      BlobMetadata metadata = blobStore.blobMetadata(CONTAINER_NAME, BLOB_KEY);
+      assertThat(metadata.getContainer()).isEqualTo(CONTAINER_NAME);
+      assertThat(metadata.getSize()).isEqualTo(3 * 1024 * 1024L);
+      assertThat(metadata.getContentMetadata().getContentLength()).isEqualTo(3 * 1024 * 1024L);
+      assertThat(metadata.getUserMetadata()).isEqualTo(ImmutableMap.of("key1", "value1", "key2", "value2"));
+      assertThat(blobStore.blobMetadata(CONTAINER_NAME, BLOB_KEY + "-missing")).isNull();
+   }
+
+   @Test
+   public void testCopyBlob() throws IOException {
+      final String CONTAINER_NAME2 = "container2";
+      blobStore.createContainerInLocation(null, CONTAINER_NAME);
+      blobStore.createContainerInLocation(null, CONTAINER_NAME2);
+      ByteSource content = randomByteSource().slice(0, 2 * 1024 * 1024 + 1);
+      blobStore.putBlob(CONTAINER_NAME, blobStore.blobBuilder(BLOB_NAME).payload(content)
+            .contentType("text/plain").userMetadata(ImmutableMap.of("key", "value")).build());
+
+      String etag = blobStore.copyBlob(CONTAINER_NAME, BLOB_NAME, CONTAINER_NAME2, BLOB_NAME,
+            CopyOptions.builder().userMetadata(ImmutableMap.of("key", "copy")).build());
+      assertThat(etag).isEqualTo(blobStore.blobMetadata(CONTAINER_NAME, BLOB_NAME).getETag());
+
+      Blob copy = blobStore.getBlob(CONTAINER_NAME2, BLOB_NAME);
+      assertThat(copy.getMetadata().getUserMetadata()).isEqualTo(ImmutableMap.of("key", "copy"));
+      assertThat(copy.getMetadata().getContentMetadata().getContentType()).isEqualTo("text/plain");
+      assertThat(ByteStreams.toByteArray(copy.getPayload().openStream())).isEqualTo(content.read());
+
+      blobStore.removeBlob(CONTAINER_NAME, BLOB_NAME);
+      copy = blobStore.getBlob(CONTAINER_NAME2, BLOB_NAME);
+      assertThat(ByteStreams.toByteArray(copy.getPayload().openStream())).isEqualTo(content.read());
+   }
+
+   @Test
+   public void testMultipartUploadStitchesParts() throws Exception {
+      blobStore.createContainerInLocation(null, CONTAINER_NAME);
+      final ByteSource content = randomByteSource().slice(0, 3 * 1024 * 1024 + 1024 * 1024 / 2 + 7);
+      final long[] partOffsets = { 0, 1024 * 1024 + 1024 * 1024 / 2, 3 * 1024 * 1024, content.size() };
+      final MultipartUpload mpu = blobStore.initiateMultipartUpload(CONTAINER_NAME,
+            blobStore.blobBuilder(BLOB_NAME).contentType("text/plain").userMetadata(ImmutableMap.of("key", "value"))
+                  .build().getMetadata(), PutOptions.NONE);
+      assertThat(blobStore.listMultipartUploads(CONTAINER_NAME)).hasSize(1);
+
+      ExecutorService executor = Executors.newFixedThreadPool(partOffsets.length - 1);
+      List<Future<MultipartPart>> futures = Lists.newArrayList();
+      try {
+         for (int i = 0; i < partOffsets.length - 1; i++) {
+            final int partNumber = i + 1;
+            final ByteSource part = content.slice(partOffsets[i], partOffsets[i + 1] - partOffsets[i]);
+            futures.add(executor.submit(new Callable<MultipartPart>() {
+               @Override
+               public MultipartPart call() throws Exception {
+                  return blobStore.uploadMultipartPart(mpu, partNumber, Payloads.newByteSourcePayload(part));
+               }
+            }));
+         }
+         List<MultipartPart> parts = Lists.newArrayList();
+         for (Future<MultipartPart> future : futures) {
+            parts.add(future.get());
+         }
+         assertThat(blobStore.listMultipartUpload(mpu)).hasSize(3);
+
+         String etag = blobStore.completeMultipartUpload(mpu, parts);
+         assertThat(etag).endsWith("-3");
+      } finally {
+         executor.shutdown();
+      }
+      assertThat(blobStore.listMultipartUploads(CONTAINER_NAME)).isEmpty();
+
+      Blob blob = blobStore.getBlob(CONTAINER_NAME, BLOB_NAME);
+      assertThat(blob.getMetadata().getSize()).isEqualTo(content.size());
+      assertThat(blob.getMetadata().getContentMetadata().getContentType()).isEqualTo("text/plain");
+      assertThat(blob.getMetadata().getUserMetadata()).isEqualTo(ImmutableMap.of("key", "value"));
+      assertThat(ByteStreams.toByteArray(blob.getPayload().openStream())).isEqualTo(content.read());
+      blob = blobStore.getBlob(CONTAINER_NAME, BLOB_NAME,
+            new GetOptions().range(1024 * 1024 + 1000, 3 * 1024 * 1024 + 5));
+      assertThat(ByteStreams.toByteArray(blob.getPayload().openStream()))
+            .isEqualTo(content.slice(1024 * 1024 + 1000, 2 * 1024 * 1024 - 994).read());
+   }
+
+   @Test
+   public void testMultipartUploadAbort() {
+      blobStore.createContainerInLocation(null, CONTAINER_NAME);
+      MultipartUpload mpu = blobStore.initiateMultipartUpload(CONTAINER_NAME,
+            blobStore.blobBuilder(BLOB_NAME).build().getMetadata(), PutOptions.NONE);
+      blobStore.uploadMultipartPart(mpu, 1, Payloads.newByteSourcePayload(randomByteSource().slice(0, 1024)));
+      blobStore.abortMultipartUpload(mpu);
+      assertThat(blobStore.listMultipartUploads(CONTAINER_NAME)).isEmpty();
+      assertThat(blobStore.blobExists(CONTAINER_NAME, BLOB_NAME)).isFalse();
+      blobStore.deleteContainer(CONTAINER_NAME);
+      assertThat(blobStore.containerExists(CONTAINER_NAME)).isFalse();
+   }
+
+   @Test(expectedExceptions = KeyNotFoundException.class)
+   public void testCopyBlobNotExistingBlob() {
+      blobStore.createContainerInLocation(null, CONTAINER_NAME);
+      blobStore.copyBlob(CONTAINER_NAME, BLOB_NAME, CONTAINER_NAME, BLOB_NAME + "2", CopyOptions.NONE);
+   }
+
+   @Test(expectedExceptions = ContainerNotFoundException.class)
+   public void testBlobMetadataNotExistingContainer() {
+      blobStore.blobMetadata(CONTAINER_NAME, "blob");
+   }
+
    @Test
    public void testDeleteContainerNotExistingContainer() {
       blobStore.deleteContainer(CONTAINER_NAME);
@@ -620,6 +743,51 @@ public abstract class BaseJdbcBlobStoreTest {
       }
    }
 
+   @Test
+   public void testListPagesWithPrefixAndDelimiter() {
+      blobStore.createContainerInLocation(null, CONTAINER_NAME);
+      for (String key : ImmutableList.of("a/1", "a/2", "b", "c/1", "c/d/2", "ca", "d")) {
+         createBlobInContainer(CONTAINER_NAME, key);
+      }
+
+      PageSet<? extends StorageMetadata> page = blobStore.list(CONTAINER_NAME,
+            ListContainerOptions.Builder.delimiter("/").maxResults(2));
+      assertThat(names(page)).containsExactly("a/", "b");
+      assertThat(page.getNextMarker()).isEqualTo("b");
+
+      page = blobStore.list(CONTAINER_NAME, ListContainerOptions.Builder.delimiter("/").afterMarker("b").maxResults(2));
+      assertThat(names(page)).containsExactly("c/", "ca");
+      assertThat(page.getNextMarker()).isEqualTo("ca");
+
+      page = blobStore.list(CONTAINER_NAME, ListContainerOptions.Builder.delimiter("/").afterMarker("ca").maxResults(2));
+      assertThat(names(page)).containsExactly("d");
+      assertThat(page.getNextMarker()).isNull();
+
+      page = blobStore.list(CONTAINER_NAME, ListContainerOptions.Builder.prefix("c").delimiter("/"));
+      assertThat(names(page)).containsExactly("c/", "ca");
+
+      page = blobStore.list(CONTAINER_NAME, ListContainerOptions.Builder.prefix("c/").recursive());
+      assertThat(names(page)).containsExactly("c/1", "c/d/2");
+      assertThat(blobStore.countBlobs(CONTAINER_NAME)).isEqualTo(7);
+   }
+
+   @Test
+   public void testListSkipsCommonPrefixUpToItsSuccessor() {
+      blobStore.createContainerInLocation(null, CONTAINER_NAME);
+      // "a0" is the successor of the common prefix "a/" and must not be skipped with it
+      for (String key : ImmutableList.of("a/1", "a/2", "a/3", "a0", "b")) {
+         createBlobInContainer(CONTAINER_NAME, key);
+      }
+
+      PageSet<? extends StorageMetadata> page = blobStore.list(CONTAINER_NAME,
+            ListContainerOptions.Builder.delimiter("/").maxResults(2));
+      assertThat(names(page)).containsExactly("a/", "a0");
+      assertThat(page.getNextMarker()).isEqualTo("a0");
+
+      page = blobStore.list(CONTAINER_NAME, ListContainerOptions.Builder.delimiter("/").afterMarker("a0"));
+      assertThat(names(page)).containsExactly("b");
+   }
+
    @Test
    public void testBlobRequestSigner() throws Exception {
       String containerName = "container";
@@ -650,6 +818,14 @@ public abstract class BaseJdbcBlobStoreTest {
       assertEquals(expected, request);
    }
 
+   private static List<String> names(PageSet<? extends StorageMetadata> page) {
+      List<String> names = Lists.newArrayList();
+      for (StorageMetadata metadata : page) {
+         names.add(metadata.getName());
+      }
+      return names;
+   }
+
    private List<String> createBlobsInContainer(String containerName, String prefix, int numberOfFiles) {
       List<String> blobNames = Lists.newArrayList();
       for (int i = 0; i < numberOfFiles; i++) {
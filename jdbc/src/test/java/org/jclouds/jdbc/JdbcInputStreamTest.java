@@ -18,15 +18,24 @@ package org.jclouds.jdbc;
 
 import com.google.common.collect.ImmutableList;
 import org.jclouds.jdbc.service.JdbcService;
+import org.jclouds.jdbc.util.ChunkData;
 import org.jclouds.jdbc.util.JdbcInputStream;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.easymock.EasyMock.anyInt;
 import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.createStrictMock;
+import static org.easymock.EasyMock.eq;
 import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
 
 @Test(groups = "unit", testName = "JdbcInputStreamTest")
 public class JdbcInputStreamTest {
@@ -38,10 +47,19 @@ public class JdbcInputStreamTest {
       mockJdbcService = createNiceMock(JdbcService.class);
    }
 
-   @Test(expectedExceptions = IllegalArgumentException.class)
+   @Test(expectedExceptions = IOException.class)
    public void testInvalidIdList() throws IOException {
-      expect(mockJdbcService.findChunkById(0L)).andReturn(null);
-      new JdbcInputStream(mockJdbcService, ImmutableList.<Long>builder().add(0L).build());
+      expect(mockJdbcService.readChunk(eq(0L), eq(0L), anyInt())).andReturn(null);
+      replay(mockJdbcService);
+      new JdbcInputStream(mockJdbcService, ImmutableList.<Long>builder().add(0L).build()).read();
+   }
+
+   @Test
+   public void testOpeningDoesNotReadChunks() throws IOException {
+      JdbcService strictJdbcService = createStrictMock(JdbcService.class);
+      replay(strictJdbcService);
+      new JdbcInputStream(strictJdbcService, ImmutableList.<Long>builder().add(0L, 1L).build()).close();
+      verify(strictJdbcService);
    }
 
    @Test(expectedExceptions = NullPointerException.class)
@@ -56,4 +74,55 @@ public class JdbcInputStreamTest {
       assertThat(jdbcInputStream.read()).isEqualTo(-1);
    }
 
+   @Test
+   public void testRangeSkipsLeadingChunks() throws IOException {
+      expect(mockJdbcService.readChunk(2L, 3L, 4)).andReturn(new ChunkData(3, new byte[4], 10));
+      replay(mockJdbcService);
+      JdbcInputStream jdbcInputStream = new JdbcInputStream(mockJdbcService,
+            ImmutableList.<Long>builder().add(0L, 1L, 2L).build(), 10, 23, 4);
+      assertThat(jdbcInputStream.read(new byte[8], 0, 8)).isEqualTo(4);
+      assertThat(jdbcInputStream.read()).isEqualTo(-1);
+      verify(mockJdbcService);
+   }
+
+   @Test
+   public void testVariableChunkSizes() throws IOException {
+      expect(mockJdbcService.readChunk(1L, 2L, 3)).andReturn(new ChunkData(2, new byte[3], 5));
+      expect(mockJdbcService.readChunk(2L, 0L, 2)).andReturn(new ChunkData(0, new byte[2], 7));
+      replay(mockJdbcService);
+      JdbcInputStream jdbcInputStream = new JdbcInputStream(mockJdbcService,
+            ImmutableList.<Long>builder().add(0L, 1L, 2L).build(), new long[] { 0, 10, 15, 22 }, 12, 5);
+      assertThat(jdbcInputStream.read(new byte[8], 0, 8)).isEqualTo(5);
+      assertThat(jdbcInputStream.read()).isEqualTo(-1);
+      verify(mockJdbcService);
+   }
+
+   @Test
+   public void testFullReadLoadsMaterializedChunksOnce() throws IOException {
+      int chunkSize = 200 * 1024;
+      byte[] data = new byte[2 * chunkSize + 1000];
+      new Random(42).nextBytes(data);
+      JdbcService strictJdbcService = createStrictMock(JdbcService.class);
+      // the provider loads each LOB in full, whatever window is asked for
+      expect(strictJdbcService.readChunk(eq(0L), eq(0L), anyInt()))
+            .andReturn(new ChunkData(0, Arrays.copyOfRange(data, 0, chunkSize), chunkSize));
+      expect(strictJdbcService.readChunk(eq(1L), eq(0L), anyInt()))
+            .andReturn(new ChunkData(0, Arrays.copyOfRange(data, chunkSize, 2 * chunkSize), chunkSize));
+      expect(strictJdbcService.readChunk(eq(2L), eq(0L), anyInt()))
+            .andReturn(new ChunkData(0, Arrays.copyOfRange(data, 2 * chunkSize, data.length), 1000));
+      replay(strictJdbcService);
+
+      JdbcInputStream jdbcInputStream = new JdbcInputStream(strictJdbcService,
+            ImmutableList.<Long>builder().add(0L, 1L, 2L).build(), chunkSize, 0, Long.MAX_VALUE);
+      ByteArrayOutputStream read = new ByteArrayOutputStream();
+      byte[] buffer = new byte[4096];
+      int count;
+      while ((count = jdbcInputStream.read(buffer, 0, buffer.length)) != -1) {
+         read.write(buffer, 0, count);
+      }
+
+      assertThat(read.toByteArray()).isEqualTo(data);
+      verify(strictJdbcService);
+   }
+
 }
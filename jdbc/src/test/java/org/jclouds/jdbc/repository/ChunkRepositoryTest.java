@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.repository;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.CountingInputStream;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import org.easymock.IAnswer;
+import org.jclouds.jdbc.util.ChunkData;
+import org.testng.annotations.Test;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.sql.Blob;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.easymock.EasyMock.anyInt;
+import static org.easymock.EasyMock.anyLong;
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.anyString;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.getCurrentArguments;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+
+@Test(groups = "unit", testName = "ChunkRepositoryTest")
+public class ChunkRepositoryTest {
+
+   private static final int WINDOW = 64 * 1024;
+
+   @Test
+   public void testWindowedReadTransfersEachByteOnce() throws Exception {
+      final byte[] data = new byte[5 * WINDOW / 2];
+      new Random(42).nextBytes(data);
+      final List<CountingInputStream> streams = new ArrayList<CountingInputStream>();
+
+      Blob blob = createMock(Blob.class);
+      expect(blob.length()).andReturn((long) data.length).anyTimes();
+      expect(blob.getBinaryStream(anyLong(), anyLong())).andAnswer(new IAnswer<InputStream>() {
+         @Override
+         public InputStream answer() {
+            // Blob positions start at 1
+            int pos = (int) ((Long) getCurrentArguments()[0] - 1);
+            int length = (int) (long) (Long) getCurrentArguments()[1];
+            CountingInputStream stream = new CountingInputStream(new ByteArrayInputStream(data, pos, length));
+            streams.add(stream);
+            return stream;
+         }
+      }).anyTimes();
+      Query query = createNiceMock(Query.class);
+      expect(query.setParameter(anyInt(), anyObject())).andReturn(query).anyTimes();
+      expect(query.getResultList()).andReturn(ImmutableList.of(blob)).anyTimes();
+      EntityManager entityManager = createNiceMock(EntityManager.class);
+      expect(entityManager.createNativeQuery(anyString())).andReturn(query).anyTimes();
+      replay(blob, query, entityManager);
+
+      ChunkRepository chunkRepository = chunkRepository(entityManager);
+
+      byte[] read = new byte[data.length];
+      int offset = 0;
+      int count;
+      while ((count = chunkRepository.readData(1L, offset, WINDOW).copy(offset, read, offset, WINDOW)) > 0) {
+         offset += count;
+      }
+
+      assertThat(offset).isEqualTo(data.length);
+      assertThat(read).isEqualTo(data);
+      assertThat(streams).hasSize(3);
+      long transferred = 0;
+      for (CountingInputStream stream : streams) {
+         transferred += stream.getCount();
+      }
+      assertThat(transferred).isEqualTo(data.length);
+   }
+
+   @Test
+   public void testMaterializedChunkIsReturnedWhole() throws Exception {
+      byte[] data = new byte[5 * WINDOW / 2];
+      new Random(42).nextBytes(data);
+      Query query = createNiceMock(Query.class);
+      expect(query.setParameter(anyInt(), anyObject())).andReturn(query).anyTimes();
+      expect(query.getResultList()).andReturn(ImmutableList.of(data)).once();
+      EntityManager entityManager = createNiceMock(EntityManager.class);
+      expect(entityManager.createNativeQuery(anyString())).andReturn(query).once();
+      replay(query, entityManager);
+
+      ChunkData chunkData = chunkRepository(entityManager).readData(1L, WINDOW, WINDOW);
+
+      byte[] read = new byte[data.length];
+      assertThat(chunkData.copy(0, read, 0, data.length)).isEqualTo(data.length);
+      assertThat(read).isEqualTo(data);
+      assertThat(chunkData.copy(data.length, read, 0, WINDOW)).isEqualTo(0);
+      verify(query, entityManager);
+   }
+
+   private static ChunkRepository chunkRepository(final EntityManager entityManager) {
+      return Guice.createInjector(new AbstractModule() {
+         @Override
+         protected void configure() {
+            bind(EntityManager.class).toInstance(entityManager);
+         }
+      }).getInstance(ChunkRepository.class);
+   }
+
+}
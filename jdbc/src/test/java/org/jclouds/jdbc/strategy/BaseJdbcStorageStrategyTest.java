@@ -16,10 +16,15 @@
  */
 package org.jclouds.jdbc.strategy;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.io.ByteSource;
+import com.google.common.io.ByteStreams;
+import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import com.google.inject.Module;
+import com.google.inject.name.Names;
 import com.google.inject.persist.PersistService;
 import com.google.inject.persist.jpa.JpaPersistModule;
 import org.jclouds.blobstore.domain.Blob;
@@ -29,7 +34,12 @@ import org.jclouds.blobstore.domain.StorageMetadata;
 import org.jclouds.blobstore.domain.StorageType;
 import org.jclouds.blobstore.domain.internal.BlobBuilderImpl;
 import org.jclouds.blobstore.options.CreateContainerOptions;
+import org.jclouds.blobstore.options.ListContainerOptions;
+import org.jclouds.jdbc.config.JdbcProperties;
+import org.jclouds.jdbc.entity.PayloadEntity;
 import org.jclouds.jdbc.module.TestContextModule;
+import org.jclouds.jdbc.reference.JdbcConstants;
+import org.jclouds.jdbc.service.JdbcService;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
@@ -38,6 +48,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.jclouds.utils.TestUtils.randomByteSource;
@@ -167,6 +179,82 @@ public abstract class BaseJdbcStorageStrategyTest {
         }
     }
 
+   @Test
+   public void testPutBlobSpanningSeveralWriteBatches() throws IOException {
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      ByteSource content = randomByteSource().slice(0,
+            (2 * JdbcConstants.CHUNK_WRITE_BATCH_SIZE + 1) * JdbcConstants.DEFAULT_CHUNK_SIZE + 3);
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME).payload(content).build());
+      InputStream data = storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME).getPayload().openStream();
+      try {
+         assertThat(content.contentEquals(ByteSource.wrap(ByteStreams.toByteArray(data)))).isTrue();
+      } finally {
+         data.close();
+      }
+   }
+
+   @Test
+   public void testInlinePayloadAndChunkSizeProperties() throws IOException {
+      restartWithProperties(ImmutableMap.<String, Object>of(JdbcProperties.CHUNK_SIZE, 64 * 1024,
+            JdbcProperties.INLINE_THRESHOLD, 4 * 1024));
+      JdbcService jdbcService = injector.getInstance(JdbcService.class);
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+
+      ByteSource small = randomByteSource().slice(0, 1000);
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME + "1").payload(small).build());
+      PayloadEntity smallPayload = jdbcService.findBlobById(CONTAINER_NAME, BLOB_NAME + "1").getPayload();
+      assertThat(jdbcService.findChunkIds(smallPayload.getId())).isEmpty();
+      assertThat(smallPayload.getInlineData()).isEqualTo(small.read());
+      assertThat(ByteStreams.toByteArray(storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME + "1").getPayload().openStream()))
+            .isEqualTo(small.read());
+
+      ByteSource large = randomByteSource().slice(0, 200 * 1024);
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME + "2").payload(large).build());
+      PayloadEntity largePayload = jdbcService.findBlobById(CONTAINER_NAME, BLOB_NAME + "2").getPayload();
+      assertThat(largePayload.getInlineData()).isNull();
+      assertThat(largePayload.getChunkSize()).isEqualTo(64 * 1024);
+      assertThat(ByteStreams.toByteArray(storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME + "2").getPayload().openStream()))
+            .isEqualTo(large.read());
+   }
+
+   @Test
+   public void testDeduplicatedChunks() throws IOException {
+      restartWithProperties(ImmutableMap.<String, Object>of(JdbcProperties.CHUNK_SIZE, 64 * 1024,
+            JdbcProperties.DEDUPLICATE, true));
+      JdbcService jdbcService = injector.getInstance(JdbcService.class);
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+
+      byte[] content = getByteArray('a', 3 * 64 * 1024 + 10);
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME + "1").payload(content).build());
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME + "2").payload(content).build());
+      List<Long> chunks1 = jdbcService.findChunkIds(
+            jdbcService.findBlobById(CONTAINER_NAME, BLOB_NAME + "1").getPayload().getId());
+      List<Long> chunks2 = jdbcService.findChunkIds(
+            jdbcService.findBlobById(CONTAINER_NAME, BLOB_NAME + "2").getPayload().getId());
+      assertThat(chunks1).hasSize(4);
+      assertThat(chunks1).isEqualTo(chunks2);
+      assertThat(chunks1.get(0)).isEqualTo(chunks1.get(2));
+      assertThat(jdbcService.findChunkById(chunks1.get(0)).getRefCount()).isEqualTo(6);
+
+      storageStrategy.removeBlob(CONTAINER_NAME, BLOB_NAME + "1");
+      assertThat(ByteStreams.toByteArray(storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME + "2").getPayload().openStream()))
+            .isEqualTo(content);
+      storageStrategy.removeBlob(CONTAINER_NAME, BLOB_NAME + "2");
+      assertThat(jdbcService.findChunkById(chunks1.get(0))).isNull();
+      assertThat(jdbcService.findChunkById(chunks1.get(3))).isNull();
+   }
+
+   @Test
+   public void testGetBlobRange() throws IOException {
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      ByteSource content = randomByteSource().slice(0, 3 * 1024 * 1024 + 17);
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME).payload(content).build());
+      ByteSource stored = (ByteSource) storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME).getPayload().getRawContent();
+      assertThat(stored.slice(3 * 1024 * 1024 - 5, 4096).read())
+            .isEqualTo(content.slice(3 * 1024 * 1024 - 5, 4096).read());
+      assertThat(stored.read()).isEqualTo(content.read());
+   }
+
    @Test
    public void testRemoveBlob() throws IOException {
       assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
@@ -203,6 +291,111 @@ public abstract class BaseJdbcStorageStrategyTest {
       assertThat(storageStrategy.containerExists(CONTAINER_NAME)).isFalse();
    }
 
+   @Test
+   public void testClearContainerInSeveralBatches() throws IOException {
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      int count = JdbcConstants.BULK_DELETE_BATCH_SIZE + 3;
+      for (int i = 0; i < count; i++) {
+         Blob blob = new BlobBuilderImpl().name(BLOB_NAME + i).payload(getByteArray('a', 16))
+               .userMetadata(ImmutableMap.of("index", String.valueOf(i))).build();
+         storageStrategy.putBlob(CONTAINER_NAME, blob);
+      }
+      storageStrategy.createDirectory(CONTAINER_NAME, "dir");
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name("dir/" + BLOB_NAME).payload("data").build());
+      assertThat(storageStrategy.countBlobs(CONTAINER_NAME, ListContainerOptions.NONE)).isEqualTo(count + 2);
+
+      storageStrategy.clearContainer(CONTAINER_NAME, ListContainerOptions.Builder.inDirectory("dir"));
+      assertThat(storageStrategy.blobExists(CONTAINER_NAME, "dir/" + BLOB_NAME)).isFalse();
+      assertThat(storageStrategy.directoryExists(CONTAINER_NAME, "dir")).isTrue();
+
+      storageStrategy.clearContainer(CONTAINER_NAME);
+      assertThat(storageStrategy.getBlobKeysInsideContainer(CONTAINER_NAME)).isEmpty();
+      storageStrategy.deleteContainer(CONTAINER_NAME);
+      assertThat(storageStrategy.containerExists(CONTAINER_NAME)).isFalse();
+   }
+
+   @Test
+   public void testCountBlobsInNestedDirectories() throws IOException {
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      storageStrategy.createDirectory(CONTAINER_NAME, "dir");
+      storageStrategy.createDirectory(CONTAINER_NAME, "dir/sub");
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name("dir/a").payload("data").build());
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name("dir/sub/b").payload("data").build());
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name("dir/sub/c").payload("data").build());
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name("dir2/d").payload("data").build());
+
+      assertThat(storageStrategy.countBlobs(CONTAINER_NAME,
+            ListContainerOptions.Builder.inDirectory("dir").recursive())).isEqualTo(4);
+      assertThat(storageStrategy.countBlobs(CONTAINER_NAME, ListContainerOptions.Builder.inDirectory("dir")))
+            .isEqualTo(2);
+      assertThat(storageStrategy.countBlobs(CONTAINER_NAME, ListContainerOptions.Builder.inDirectory("dir/sub/")))
+            .isEqualTo(2);
+   }
+
+   @Test
+   public void testCopyBlobSharesChunks() throws IOException {
+      restartWithProperties(ImmutableMap.<String, Object>of(JdbcProperties.CHUNK_SIZE, 64 * 1024));
+      JdbcService jdbcService = injector.getInstance(JdbcService.class);
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      ByteSource content = randomByteSource().slice(0, 3 * 64 * 1024 + 10);
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME + "1").payload(content)
+            .userMetadata(ImmutableMap.of("key", "value")).build());
+
+      String etag = jdbcService.copyBlob(CONTAINER_NAME, BLOB_NAME + "1", CONTAINER_NAME, BLOB_NAME + "2", null, null)
+            .getEtag();
+      assertThat(etag).isEqualTo(storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME + "1").getMetadata().getETag());
+      List<Long> chunks1 = jdbcService.findChunkIds(
+            jdbcService.findBlobById(CONTAINER_NAME, BLOB_NAME + "1").getPayload().getId());
+      List<Long> chunks2 = jdbcService.findChunkIds(
+            jdbcService.findBlobById(CONTAINER_NAME, BLOB_NAME + "2").getPayload().getId());
+      assertThat(chunks2).isEqualTo(chunks1);
+      assertThat(jdbcService.findChunkById(chunks1.get(0)).getRefCount()).isEqualTo(2);
+
+      storageStrategy.removeBlob(CONTAINER_NAME, BLOB_NAME + "1");
+      Blob copy = storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME + "2");
+      assertThat(copy.getMetadata().getUserMetadata()).isEqualTo(ImmutableMap.of("key", "value"));
+      assertThat(ByteStreams.toByteArray(copy.getPayload().openStream())).isEqualTo(content.read());
+      assertThat(jdbcService.findChunkById(chunks1.get(0)).getRefCount()).isEqualTo(1);
+
+      storageStrategy.removeBlob(CONTAINER_NAME, BLOB_NAME + "2");
+      assertThat(jdbcService.findChunkById(chunks1.get(0))).isNull();
+      assertThat(jdbcService.copyBlob(CONTAINER_NAME, BLOB_NAME + "2", CONTAINER_NAME, BLOB_NAME + "3", null, null))
+            .isNull();
+   }
+
+   @Test
+   public void testContainerCacheFollowsDeleteAndRecreate() throws IOException {
+      JdbcService jdbcService = injector.getInstance(JdbcService.class);
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME).payload("data").build());
+      long hits = jdbcService.getContainerCacheStats().hitCount();
+      assertThat(storageStrategy.blobExists(CONTAINER_NAME, BLOB_NAME)).isTrue();
+      assertThat(jdbcService.getContainerCacheStats().hitCount()).isGreaterThan(hits);
+
+      storageStrategy.deleteContainer(CONTAINER_NAME);
+      assertThat(storageStrategy.containerExists(CONTAINER_NAME)).isFalse();
+      assertThat(storageStrategy.blobExists(CONTAINER_NAME, BLOB_NAME)).isFalse();
+
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      assertThat(storageStrategy.blobExists(CONTAINER_NAME, BLOB_NAME)).isFalse();
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME).payload("data").build());
+      assertThat(storageStrategy.blobExists(CONTAINER_NAME, BLOB_NAME)).isTrue();
+   }
+
+   private void restartWithProperties(final Map<String, Object> properties) {
+      injector.getInstance(PersistService.class).stop();
+      injector = Guice.createInjector(ImmutableSet.<Module> of(new TestContextModule(), new JpaPersistModule(jpaModuleName),
+            new AbstractModule() {
+               @Override
+               protected void configure() {
+                  for (Map.Entry<String, Object> property : properties.entrySet()) {
+                     bindConstant().annotatedWith(Names.named(property.getKey())).to(property.getValue().toString());
+                  }
+               }
+            }));
+      storageStrategy = injector.getInstance(JdbcStorageStrategy.class);
+   }
+
     private byte[] getByteArray(char c, int len) {
         byte[] array = new byte[len];
         Arrays.fill(array, (byte) c);
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.jclouds.profitbricks.rest.compute.internal;
+
+import static org.jclouds.compute.util.ComputeServiceUtils.getCores;
+import static org.jclouds.compute.util.ComputeServiceUtils.getSpace;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.compute.domain.Hardware;
+import org.jclouds.compute.domain.HardwareBuilder;
+import org.jclouds.compute.domain.Processor;
+import org.jclouds.compute.domain.internal.VolumeImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.ComparisonChain;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Ordering;
+
+/**
+ * Resolves the hardware of a template, given its minimum cores, RAM and disk size, by building and scanning the whole
+ * list of profiles as the adapter used to, by scanning an already built list as template builds do once the profiles
+ * are cached, and with the {@link HardwareCatalog}. Run with {@code -prof gc} to compare the allocation rates as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class HardwareResolutionBenchmark {
+
+   @Param({"1,1024,10", "2,4096,50", "24,32768,500"})
+   public String requirements;
+
+   private double minCores;
+   private int minRam;
+   private double minDisk;
+
+   private List<Hardware> cachedProfiles;
+
+   private final HardwareCatalog catalog = new HardwareCatalog();
+
+   private static final Ordering<Hardware> BY_SIZE = new Ordering<Hardware>() {
+      @Override
+      public int compare(Hardware left, Hardware right) {
+         return ComparisonChain.start().compare(getCores(left), getCores(right)).compare(left.getRam(), right.getRam())
+               .compare(getSpace(left), getSpace(right)).result();
+      }
+   };
+
+   @Setup
+   public void setUp() {
+      String[] values = requirements.split(",");
+      minCores = Double.parseDouble(values[0]);
+      minRam = Integer.parseInt(values[1]);
+      minDisk = Double.parseDouble(values[2]);
+      cachedProfiles = listProfiles();
+   }
+
+   @Benchmark
+   public Hardware listAndScan() {
+      return scan(listProfiles());
+   }
+
+   @Benchmark
+   public Hardware scanCached() {
+      return scan(cachedProfiles);
+   }
+
+   @Benchmark
+   public Hardware catalog() {
+      return catalog.smallest(minCores, minRam, minDisk);
+   }
+
+   private Hardware scan(List<Hardware> profiles) {
+      return BY_SIZE.min(Iterables.filter(profiles, new Predicate<Hardware>() {
+         @Override
+         public boolean apply(Hardware input) {
+            return getCores(input) >= minCores && input.getRam() >= minRam && getSpace(input) >= minDisk;
+         }
+      }));
+   }
+
+   /**
+    * The profiles as they were listed before the catalog.
+    */
+   private static List<Hardware> listProfiles() {
+      List<Hardware> hardwares = Lists.newArrayList();
+      for (int core = 1; core <= 48; core++) {
+         for (int ram : new int[]{1024, 2 * 1024, 4 * 1024, 8 * 1024,
+            10 * 1024, 16 * 1024, 24 * 1024, 28 * 1024, 32 * 1024}) {
+            for (float size : new float[]{10, 20, 30, 50, 80, 100, 150, 200, 250, 500}) {
+               String id = String.format("cpu=%d,ram=%s,disk=%f", core, ram, size);
+               hardwares.add(new HardwareBuilder()
+                       .ids(id)
+                       .ram(ram)
+                       .hypervisor("kvm")
+                       .name(id)
+                       .processor(new Processor(core, 1d))
+                       .volume(new VolumeImpl(size, true, true))
+                       .build());
+            }
+         }
+      }
+      return hardwares;
+   }
+}
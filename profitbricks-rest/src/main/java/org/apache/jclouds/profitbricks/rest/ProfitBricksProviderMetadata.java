@@ -19,8 +19,10 @@ package org.apache.jclouds.profitbricks.rest;
 import com.google.auto.service.AutoService;
 import java.net.URI;
 import java.util.Properties;
+import static org.apache.jclouds.profitbricks.rest.config.ProfitBricksComputeProperties.LIST_NODES_CONCURRENCY;
 import static org.apache.jclouds.profitbricks.rest.config.ProfitBricksComputeProperties.POLL_MAX_PERIOD;
 import static org.apache.jclouds.profitbricks.rest.config.ProfitBricksComputeProperties.POLL_PERIOD;
+import static org.apache.jclouds.profitbricks.rest.config.ProfitBricksComputeProperties.POLL_TICK;
 import static org.apache.jclouds.profitbricks.rest.config.ProfitBricksComputeProperties.POLL_TIMEOUT;
 import static org.jclouds.Constants.PROPERTY_CONNECTION_TIMEOUT;
 import static org.jclouds.Constants.PROPERTY_ISO3166_CODES;
@@ -78,6 +80,8 @@ public class ProfitBricksProviderMetadata extends BaseProviderMetadata {
       properties.put(POLL_TIMEOUT, defaultTimeout);
       properties.put(POLL_PERIOD, 2L);
       properties.put(POLL_MAX_PERIOD, 2L * 10L);
+      properties.put(POLL_TICK, 250L);
+      properties.put(LIST_NODES_CONCURRENCY, 10);
 
       properties.put(PROPERTY_SO_TIMEOUT, 60000 * 5);
       properties.put(PROPERTY_CONNECTION_TIMEOUT, 60000 * 5);
@@ -18,8 +18,6 @@ package org.apache.jclouds.profitbricks.rest.compute;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Strings.isNullOrEmpty;
-import static com.google.common.collect.Iterables.contains;
-import static com.google.common.collect.Iterables.filter;
 import static com.google.common.util.concurrent.Futures.getUnchecked;
 import static java.lang.String.format;
 import static org.apache.jclouds.profitbricks.rest.config.ProfitBricksComputeProperties.POLL_PREDICATE_DATACENTER;
@@ -31,12 +29,14 @@ import static org.jclouds.compute.config.ComputeServiceProperties.TIMEOUT_NODE_S
 import static org.jclouds.compute.util.ComputeServiceUtils.getPortRangesFromList;
 
 import java.net.URI;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.annotation.Resource;
 import javax.inject.Named;
@@ -45,7 +45,9 @@ import javax.inject.Singleton;
 import org.apache.jclouds.profitbricks.rest.ProfitBricksApi;
 import org.apache.jclouds.profitbricks.rest.compute.concurrent.ProvisioningJob;
 import org.apache.jclouds.profitbricks.rest.compute.concurrent.ProvisioningManager;
+import org.apache.jclouds.profitbricks.rest.compute.config.ProfitBricksComputeServiceContextModule.ComputeConstants;
 import org.apache.jclouds.profitbricks.rest.compute.function.ProvisionableToImage;
+import org.apache.jclouds.profitbricks.rest.compute.internal.HardwareCatalog;
 import org.apache.jclouds.profitbricks.rest.compute.strategy.TemplateWithDataCenter;
 import org.apache.jclouds.profitbricks.rest.domain.DataCenter;
 import org.apache.jclouds.profitbricks.rest.domain.FirewallRule;
@@ -59,35 +61,39 @@ import org.apache.jclouds.profitbricks.rest.domain.VolumeType;
 import org.apache.jclouds.profitbricks.rest.domain.options.DepthOptions;
 import org.apache.jclouds.profitbricks.rest.domain.zonescoped.DataCenterAndId;
 import org.apache.jclouds.profitbricks.rest.domain.zonescoped.ServerInDataCenter;
-import org.apache.jclouds.profitbricks.rest.features.ServerApi;
 import org.apache.jclouds.profitbricks.rest.ids.NicRef;
 import org.apache.jclouds.profitbricks.rest.ids.ServerRef;
 import org.apache.jclouds.profitbricks.rest.ids.VolumeRef;
 import org.apache.jclouds.profitbricks.rest.util.Trackables;
 import org.jclouds.compute.ComputeServiceAdapter;
 import org.jclouds.compute.domain.Hardware;
-import org.jclouds.compute.domain.HardwareBuilder;
-import org.jclouds.compute.domain.Processor;
 import org.jclouds.compute.domain.Template;
 import org.jclouds.compute.domain.Volume;
-import org.jclouds.compute.domain.internal.VolumeImpl;
 import org.jclouds.compute.options.TemplateOptions;
 import org.jclouds.compute.reference.ComputeServiceConstants;
 import org.jclouds.compute.util.ComputeServiceUtils;
 import org.jclouds.domain.Location;
 import org.jclouds.domain.LocationScope;
 import org.jclouds.domain.LoginCredentials;
+import org.jclouds.javax.annotation.Nullable;
 import org.jclouds.logging.Logger;
 import org.jclouds.rest.ResourceNotFoundException;
 import org.jclouds.util.PasswordGenerator;
 
+import com.google.common.base.Functions;
 import com.google.common.base.Predicate;
 import com.google.common.base.Supplier;
 import com.google.common.base.Throwables;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimaps;
+import com.google.common.collect.SetMultimap;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.inject.Inject;
@@ -111,10 +117,14 @@ public class ProfitBricksComputeServiceAdapter implements ComputeServiceAdapter<
    private final ProvisioningJob.Factory jobFactory;
    private final ProvisioningManager provisioningManager;
    private final PasswordGenerator.Config passwordGenerator;
+   private final HardwareCatalog hardwareCatalog;
+   private final ComputeConstants computeConstants;
    private List<DataCenter> datacetners;
 
    private static final Integer DEFAULT_LAN_ID = 1;
 
+   private static final int MAX_SERVERS_FETCHED_INDIVIDUALLY = 5;
+
    @Inject
    ProfitBricksComputeServiceAdapter(ProfitBricksApi api,
            @Named(POLL_PREDICATE_DATACENTER) Predicate<String> waitDcUntilAvailable,
@@ -127,7 +137,9 @@ public class ProfitBricksComputeServiceAdapter implements ComputeServiceAdapter<
            Trackables trackables,
            ProvisioningJob.Factory jobFactory,
            ProvisioningManager provisioningManager,
-           PasswordGenerator.Config passwordGenerator) {
+           PasswordGenerator.Config passwordGenerator,
+           HardwareCatalog hardwareCatalog,
+           ComputeConstants computeConstants) {
       this.api = api;
       this.waitDcUntilAvailable = waitDcUntilAvailable;
       this.waitVolumeUntilAvailable = waitVolumeUntilAvailable;
@@ -140,6 +152,8 @@ public class ProfitBricksComputeServiceAdapter implements ComputeServiceAdapter<
       this.jobFactory = jobFactory;
       this.provisioningManager = provisioningManager;
       this.passwordGenerator = passwordGenerator;
+      this.hardwareCatalog = hardwareCatalog;
+      this.computeConstants = computeConstants;
       this.datacetners = ImmutableList.of();
    }
 
@@ -373,25 +387,7 @@ public class ProfitBricksComputeServiceAdapter implements ComputeServiceAdapter<
 
    @Override
    public Iterable<Hardware> listHardwareProfiles() {
-      // Max [cores=48] [disk size per volume=2048GB] [ram=200704 MB]
-      List<Hardware> hardwares = Lists.newArrayList();
-      for (int core = 1; core <= 48; core++) {
-         for (int ram : new int[]{1024, 2 * 1024, 4 * 1024, 8 * 1024,
-            10 * 1024, 16 * 1024, 24 * 1024, 28 * 1024, 32 * 1024}) {
-            for (float size : new float[]{10, 20, 30, 50, 80, 100, 150, 200, 250, 500}) {
-               String id = String.format("cpu=%d,ram=%s,disk=%f", core, ram, size);
-               hardwares.add(new HardwareBuilder()
-                       .ids(id)
-                       .ram(ram)
-                       .hypervisor("kvm")
-                       .name(id)
-                       .processor(new Processor(core, 1d))
-                       .volume(new VolumeImpl(size, true, true))
-                       .build());
-            }
-         }
-      }
-      return hardwares;
+      return hardwareCatalog.list();
    }
 
    @Override
@@ -476,20 +472,39 @@ public class ProfitBricksComputeServiceAdapter implements ComputeServiceAdapter<
 
    @Override
    public void destroyNode(String nodeId) {
-      DataCenterAndId datacenterAndId = DataCenterAndId.fromSlashEncoded(nodeId);
-      ServerApi serverApi = api.serverApi();
-      Server server = serverApi.getServer(datacenterAndId.getDataCenter(), datacenterAndId.getId(), new DepthOptions().depth(5));
-      if (server != null) {
-         for (org.apache.jclouds.profitbricks.rest.domain.Volume volume : server.entities().volumes().items()) {
-            destroyVolume(volume.id(), datacenterAndId.getDataCenter());
-         }
+      destroyNodes(ImmutableList.of(nodeId));
+   }
 
-         try {
-            destroyServer(datacenterAndId.getId(), datacenterAndId.getDataCenter());
-         } catch (Exception ex) {
-            logger.warn(ex, ">> failed to delete server with id=%s", datacenterAndId.getId());
+   /**
+    * Destroys the given nodes and their volumes. All the deletions in a data center are submitted together, so they
+    * run as a single provisioning batch: the data center is awaited once before issuing them and once after, and the
+    * requests of all of them are tracked while they run.
+    *
+    * @return the ids of the nodes whose server has been deleted
+    */
+   public Set<String> destroyNodes(Iterable<String> nodeIds) {
+      Map<String, ProvisioningJob> deletions = Maps.newLinkedHashMap();
+      Map<String, String> nodeIdsByServer = Maps.newHashMap();
+      for (ServerInDataCenter node : listNodesByIds(nodeIds)) {
+         Server server = node.getServer();
+         if (server.entities() != null && server.entities().volumes() != null
+                 && server.entities().volumes().items() != null) {
+            for (org.apache.jclouds.profitbricks.rest.domain.Volume volume : server.entities().volumes().items()) {
+               deletions.put("volume with id=" + volume.id(), volumeDeletion(volume.id(), node.getDataCenter()));
+            }
+         }
+         String serverDeletion = "server with id=" + server.id();
+         deletions.put(serverDeletion, serverDeletion(server.id(), node.getDataCenter()));
+         nodeIdsByServer.put(serverDeletion, DataCenterAndId.fromDataCenterAndId(node.getDataCenter(), server.id())
+                 .slashEncode());
+      }
+      Set<String> destroyed = new HashSet<String>();
+      for (String deleted : delete(deletions)) {
+         if (nodeIdsByServer.containsKey(deleted)) {
+            destroyed.add(nodeIdsByServer.get(deleted));
          }
       }
+      return destroyed;
    }
 
    @Override
@@ -551,67 +566,169 @@ public class ProfitBricksComputeServiceAdapter implements ComputeServiceAdapter<
    public Iterable<ServerInDataCenter> listNodes() {
       logger.trace("<< fetching servers..");
       datacetners = api.dataCenterApi().list();
-      List<ServerInDataCenter> servers = new ArrayList<ServerInDataCenter>();
+      List<Callable<List<ServerInDataCenter>>> fetches = Lists.newArrayListWithCapacity(datacetners.size());
       for (DataCenter dataCenter : datacetners) {
-
-         List<Server> serversInDataCenter = api.serverApi().getList(dataCenter.id(), new DepthOptions().depth(4));
-         for (Server server : serversInDataCenter) {
-            servers.add(new ServerInDataCenter(server, dataCenter.id()));
-         }
+         fetches.add(listServers(dataCenter.id(), null));
       }
-      logger.trace("<< fetching servers..");
+      List<ServerInDataCenter> servers = fetchConcurrently(fetches);
+      logger.trace(">> servers fetched.");
       return servers;
    }
 
    @Override
    public Iterable<ServerInDataCenter> listNodesByIds(final Iterable<String> ids) {
-      return filter(listNodes(), new Predicate<ServerInDataCenter>() {
+      SetMultimap<String, String> requested = LinkedHashMultimap.create();
+      for (String id : ids) {
+         try {
+            DataCenterAndId dataCenterAndId = DataCenterAndId.fromSlashEncoded(id);
+            requested.put(dataCenterAndId.getDataCenter(), dataCenterAndId.getId());
+         } catch (IllegalArgumentException ex) {
+            logger.trace(">> ignoring invalid node id '%s'", id);
+         }
+      }
+      // Only expand the requested servers: fetch them one by one, or filter the listing of their data center when
+      // most of it is requested anyway
+      List<Callable<List<ServerInDataCenter>>> fetches = Lists.newArrayList();
+      for (Map.Entry<String, Set<String>> dataCenter : Multimaps.asMap(requested).entrySet()) {
+         Set<String> serverIds = dataCenter.getValue();
+         if (serverIds.size() > MAX_SERVERS_FETCHED_INDIVIDUALLY) {
+            fetches.add(listServers(dataCenter.getKey(), serverIds));
+         } else {
+            for (String serverId : serverIds) {
+               fetches.add(getServer(dataCenter.getKey(), serverId));
+            }
+         }
+      }
+      return fetchConcurrently(fetches);
+   }
+
+   private Callable<List<ServerInDataCenter>> listServers(final String dataCenterId,
+           @Nullable final Set<String> serverIds) {
+      return new Callable<List<ServerInDataCenter>>() {
+         @Override
+         public List<ServerInDataCenter> call() {
+            List<ServerInDataCenter> servers = Lists.newArrayList();
+            for (Server server : api.serverApi().getList(dataCenterId, new DepthOptions().depth(4))) {
+               if (serverIds == null || serverIds.contains(server.id())) {
+                  servers.add(new ServerInDataCenter(server, dataCenterId));
+               }
+            }
+            return servers;
+         }
+      };
+   }
+
+   private Callable<List<ServerInDataCenter>> getServer(final String dataCenterId, final String serverId) {
+      return new Callable<List<ServerInDataCenter>>() {
          @Override
-         public boolean apply(ServerInDataCenter server) {
-            return contains(ids, server.slashEncode());
+         public List<ServerInDataCenter> call() {
+            Server server = api.serverApi().getServer(dataCenterId, serverId, new DepthOptions().depth(3));
+            return server == null ? ImmutableList.<ServerInDataCenter>of()
+                    : ImmutableList.of(new ServerInDataCenter(server, dataCenterId));
          }
-      });
+      };
    }
 
-   private void destroyServer(final String serverId, final String dataCenterId) {
-      try {
-         logger.trace("<< deleting server with id=%s", serverId);
-         provisioningManager.provision(jobFactory.create(dataCenterId, new Supplier<Object>() {
+   /**
+    * Runs the given fetches on the user executor from at most {@link ComputeConstants#listNodesConcurrency()} workers
+    * taking the fetches in turn, and returns the servers in the order of the fetches.
+    */
+   @SuppressWarnings("unchecked")
+   private List<ServerInDataCenter> fetchConcurrently(final List<Callable<List<ServerInDataCenter>>> fetches) {
+      final List<ServerInDataCenter>[] fetched = new List[fetches.size()];
+      final AtomicInteger next = new AtomicInteger();
+      int workers = Math.min(Math.max(1, computeConstants.listNodesConcurrency()), fetches.size());
+      List<ListenableFuture<Void>> futures = Lists.newArrayListWithCapacity(workers);
+      for (int i = 0; i < workers; i++) {
+         futures.add(executorService.submit(new Callable<Void>() {
             @Override
-            public Object get() {
-               URI requestStatusURI = api.serverApi().deleteServer(dataCenterId, serverId);
-               trackables.waitUntilRequestCompleted(requestStatusURI);
-               return serverId;
+            public Void call() throws Exception {
+               for (int index = next.getAndIncrement(); index < fetched.length
+                       && !Thread.currentThread().isInterrupted(); index = next.getAndIncrement()) {
+                  fetched[index] = fetches.get(index).call();
+               }
+               return null;
             }
          }));
-         logger.trace(">> server '%s' deleted.", serverId);
-      } catch (Exception ex) {
-         logger.warn(ex, ">> failed to delete server with id=%s", serverId);
+      }
+      try {
+         Futures.allAsList(futures).get();
+         return FluentIterable.from(Arrays.asList(fetched))
+                 .transformAndConcat(Functions.<List<ServerInDataCenter>>identity()).toList();
+      } catch (InterruptedException ex) {
+         cancel(futures);
+         Thread.currentThread().interrupt();
+         throw Throwables.propagate(ex);
+      } catch (ExecutionException ex) {
+         cancel(futures);
+         throw Throwables.propagate(ex.getCause());
+      }
+   }
+
+   private static void cancel(List<ListenableFuture<Void>> futures) {
+      for (ListenableFuture<Void> future : futures) {
+         future.cancel(true);
       }
    }
 
+   private void destroyServer(String serverId, String dataCenterId) {
+      delete(ImmutableMap.of("server with id=" + serverId, serverDeletion(serverId, dataCenterId)));
+   }
+
    private void destroyVolumes(List<String> volumeIds, String dataCenterId) {
+      Map<String, ProvisioningJob> deletions = Maps.newLinkedHashMap();
       for (String volumeId : volumeIds) {
-         destroyVolume(volumeId, dataCenterId);
+         deletions.put("volume with id=" + volumeId, volumeDeletion(volumeId, dataCenterId));
       }
+      delete(deletions);
    }
 
-   private void destroyVolume(final String volumeId, final String dataCenterId) {
-      try {
-         logger.trace("<< deleting volume with id=%s", volumeId);
-         provisioningManager.provision(jobFactory.create(dataCenterId, new Supplier<Object>() {
+   private void destroyVolume(String volumeId, String dataCenterId) {
+      delete(ImmutableMap.of("volume with id=" + volumeId, volumeDeletion(volumeId, dataCenterId)));
+   }
 
-            @Override
-            public Object get() {
-               URI requestStatusURI = api.volumeApi().deleteVolume(dataCenterId, volumeId);
-               trackables.waitUntilRequestCompleted(requestStatusURI);
-               return volumeId;
-            }
-         }));
-         logger.trace(">> volume '%s' deleted.", volumeId);
-      } catch (Exception ex) {
-         logger.warn(ex, ">> failed to delete volume with id=%s", volumeId);
+   private ProvisioningJob serverDeletion(final String serverId, final String dataCenterId) {
+      return jobFactory.create(dataCenterId, new Supplier<Object>() {
+         @Override
+         public Object get() {
+            return api.serverApi().deleteServer(dataCenterId, serverId);
+         }
+      });
+   }
+
+   private ProvisioningJob volumeDeletion(final String volumeId, final String dataCenterId) {
+      return jobFactory.create(dataCenterId, new Supplier<Object>() {
+         @Override
+         public Object get() {
+            return api.volumeApi().deleteVolume(dataCenterId, volumeId);
+         }
+      });
+   }
+
+   /**
+    * Submits the given deletions together and waits for all of them. Failures are logged, so that one resource that
+    * can't be deleted does not leave the others behind.
+    *
+    * @return the descriptions of the resources that have been deleted
+    */
+   private Set<String> delete(Map<String, ProvisioningJob> deletions) {
+      Set<String> deleted = new HashSet<String>();
+      if (deletions.isEmpty()) {
+         return deleted;
+      }
+      logger.trace("<< deleting %s", deletions.keySet());
+      List<ListenableFuture<Object>> results = provisioningManager.submit(ImmutableList.copyOf(deletions.values()));
+      int i = 0;
+      for (String resource : deletions.keySet()) {
+         try {
+            getUnchecked(results.get(i++));
+            deleted.add(resource);
+            logger.trace(">> %s deleted.", resource);
+         } catch (RuntimeException ex) {
+            logger.warn(ex, ">> failed to delete %s", resource);
+         }
       }
+      return deleted;
    }
 
    private ServerInDataCenter getRequiredNode(String nodeId) {
@@ -18,6 +18,7 @@ package org.apache.jclouds.profitbricks.rest.compute.concurrent;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.net.URI;
 import java.util.concurrent.Callable;
 
 import javax.inject.Named;
@@ -53,16 +54,39 @@ public class ProvisioningJob implements Callable<Object> {
 
    @Override
    public Object call() throws Exception {
-      waitDataCenterUntilReady.apply(group);
-      Object obj = operation.get();
-      if (obj instanceof Trackable) {
-         trackables.waitUntilRequestCompleted((Trackable) obj);
-      }
-      waitDataCenterUntilReady.apply(group);
+      waitUntilDataCenterIsReady();
+      Object obj = start();
+      awaitCompletion(obj);
+      waitUntilDataCenterIsReady();
 
       return obj;
    }
 
+   /**
+    * Waits for the data center of the job to be available. The {@link ProvisioningManager} calls it once for all the
+    * jobs of the same data center that run together.
+    */
+   void waitUntilDataCenterIsReady() {
+      waitDataCenterUntilReady.apply(group);
+   }
+
+   /** Runs the operation of the job, without waiting for the request it triggers to complete. */
+   Object start() {
+      return operation.get();
+   }
+
+   /**
+    * Waits for the request triggered by the operation, if any, to complete. The operation returns either the
+    * {@link Trackable} it created or the status URI of the request.
+    */
+   void awaitCompletion(Object result) {
+      if (result instanceof Trackable) {
+         trackables.waitUntilRequestCompleted((Trackable) result);
+      } else if (result instanceof URI) {
+         trackables.waitUntilRequestCompleted((URI) result);
+      }
+   }
+
    public String getGroup() {
       return group;
    }
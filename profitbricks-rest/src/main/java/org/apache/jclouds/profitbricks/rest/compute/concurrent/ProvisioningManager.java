@@ -17,69 +17,234 @@
 package org.apache.jclouds.profitbricks.rest.compute.concurrent;
 
 import static com.google.common.util.concurrent.Futures.getUnchecked;
-import com.google.common.util.concurrent.ListeningExecutorService;
 import static com.google.common.util.concurrent.MoreExecutors.listeningDecorator;
+
 import java.io.Closeable;
 import java.io.IOException;
-import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
+
 import javax.annotation.Resource;
+
 import org.jclouds.concurrent.config.WithSubmissionTrace;
 import org.jclouds.logging.Logger;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.SettableFuture;
+
 /**
- * Delegates {@link Job} to single-threaded executor services based on it's
- * group.
- *
+ * Runs {@link ProvisioningJob jobs} one data center (job group) at a time.
+ * <p>
+ * Each group has a single lane. Jobs submitted while the lane is busy are queued, and the lane then runs all the queued
+ * jobs as one batch: it waits once for the data center to be ready, starts the operations of all the jobs, waits for
+ * their requests to complete and waits once more for the data center, instead of twice per job.
  */
 public final class ProvisioningManager implements Closeable {
 
    @Resource
    private Logger logger = Logger.NULL;
 
-   private final Map<String, ListeningExecutorService> workers
-           = new ConcurrentHashMap<String, ListeningExecutorService>(1);
+   private final ConcurrentMap<String, Lane> lanes = new ConcurrentHashMap<String, Lane>();
 
    private final AtomicBoolean terminated = new AtomicBoolean(false);
 
+   private final ListeningExecutorService executor = newExecutorService();
+
    public Object provision(ProvisioningJob job) {
+      return getUnchecked(submit(ImmutableList.of(job)).get(0));
+   }
+
+   /**
+    * Submits the given jobs without waiting for them. The jobs of the same group are queued at once, so they all run
+    * in the same batch when their lane is idle, or in the next one when it is busy.
+    *
+    * @return the results of the jobs, in the order of the jobs.
+    */
+   public List<ListenableFuture<Object>> submit(List<ProvisioningJob> jobs) {
       if (terminated.get()) {
-         logger.warn("Job(%s) submitted but the provisioning manager is already closed", job);
-         return null;
+         logger.warn("Jobs(%s) submitted but the provisioning manager is already closed", jobs);
+         List<ListenableFuture<Object>> results = Lists.newArrayListWithCapacity(jobs.size());
+         for (int i = 0; i < jobs.size(); i++) {
+            results.add(Futures.immediateFuture(null));
+         }
+         return results;
       }
 
-      logger.debug("Job(%s) submitted to group '%s'", job, job.getGroup());
-      ListeningExecutorService workerGroup = getWorkerGroup(job.getGroup());
-      return getUnchecked(workerGroup.submit(job));
+      Map<String, List<PendingJob>> byGroup = Maps.newLinkedHashMap();
+      List<ListenableFuture<Object>> results = Lists.newArrayListWithCapacity(jobs.size());
+      for (ProvisioningJob job : jobs) {
+         logger.debug("Job(%s) submitted to group '%s'", job, job.getGroup());
+         PendingJob pending = new PendingJob(job);
+         List<PendingJob> group = byGroup.get(job.getGroup());
+         if (group == null) {
+            group = Lists.newArrayList();
+            byGroup.put(job.getGroup(), group);
+         }
+         group.add(pending);
+         results.add(pending.result);
+      }
+      for (Map.Entry<String, List<PendingJob>> group : byGroup.entrySet()) {
+         getLane(group.getKey()).submit(group.getValue());
+      }
+      return results;
    }
 
    protected ListeningExecutorService newExecutorService() {
-      return WithSubmissionTrace.wrap(listeningDecorator(Executors.newSingleThreadExecutor()));
+      return WithSubmissionTrace.wrap(listeningDecorator(Executors.newCachedThreadPool()));
    }
 
-   private void newWorkerGroupIfAbsent(String name) {
-      if (!workers.containsKey(name)) {
-         workers.put(name, newExecutorService());
+   private Lane getLane(String group) {
+      Lane lane = lanes.get(group);
+      if (lane == null) {
+         Lane newLane = new Lane(group);
+         lane = lanes.putIfAbsent(group, newLane);
+         if (lane == null) {
+            lane = newLane;
+         }
       }
-   }
-
-   private ListeningExecutorService getWorkerGroup(String name) {
-      newWorkerGroupIfAbsent(name);
-      return workers.get(name);
+      return lane;
    }
 
    @Override
    public void close() throws IOException {
       terminated.set(true); // Do not allow to enqueue more jobs
-      Collection<ListeningExecutorService> executors = workers.values();
-      for (ListeningExecutorService executor : executors) {
-         List<Runnable> runnables = executor.shutdownNow();
-         if (!runnables.isEmpty()) {
-            logger.warn("when shutting down executor %s, runnables outstanding: %s", executor, runnables);
+      List<Runnable> runnables = executor.shutdownNow();
+      if (!runnables.isEmpty()) {
+         logger.warn("when shutting down executor %s, runnables outstanding: %s", executor, runnables);
+      }
+      for (Lane lane : lanes.values()) {
+         lane.cancelQueued();
+      }
+   }
+
+   private static final class PendingJob {
+      private final ProvisioningJob job;
+      private final SettableFuture<Object> result = SettableFuture.create();
+
+      private PendingJob(ProvisioningJob job) {
+         this.job = job;
+      }
+   }
+
+   /**
+    * The jobs of a group. At most one thread drains a lane at a time; {@code draining} is only set by the thread that
+    * schedules the drain and cleared by the draining thread once it finds the queue empty.
+    */
+   private final class Lane implements Runnable {
+
+      private final String group;
+      private final Queue<PendingJob> queue = new ConcurrentLinkedQueue<PendingJob>();
+      private final AtomicBoolean draining = new AtomicBoolean(false);
+
+      private Lane(String group) {
+         this.group = group;
+      }
+
+      void submit(List<PendingJob> pending) {
+         queue.addAll(pending);
+         if (draining.compareAndSet(false, true)) {
+            try {
+               executor.execute(this);
+            } catch (RejectedExecutionException e) {
+               draining.set(false);
+               cancelQueued();
+            }
+         }
+      }
+
+      void cancelQueued() {
+         for (PendingJob pending = queue.poll(); pending != null; pending = queue.poll()) {
+            pending.result.cancel(false);
+         }
+      }
+
+      @Override
+      public void run() {
+         while (true) {
+            List<PendingJob> batch = Lists.newArrayList();
+            for (PendingJob pending = queue.poll(); pending != null; pending = queue.poll()) {
+               batch.add(pending);
+            }
+            if (batch.isEmpty()) {
+               draining.set(false);
+               // a job may have been queued after the last poll but before the flag was cleared
+               if (queue.isEmpty() || !draining.compareAndSet(false, true)) {
+                  return;
+               }
+               continue;
+            }
+            try {
+               runBatch(batch);
+            } catch (Error e) {
+               for (PendingJob pending : batch) {
+                  pending.result.setException(e);
+               }
+               draining.set(false);
+               throw e;
+            }
+         }
+      }
+
+      private void runBatch(List<PendingJob> batch) {
+         logger.debug("Running %s jobs in group '%s'", batch.size(), group);
+         ProvisioningJob first = batch.get(0).job;
+         try {
+            first.waitUntilDataCenterIsReady();
+         } catch (RuntimeException e) {
+            for (PendingJob pending : batch) {
+               pending.result.setException(e);
+            }
+            return;
+         }
+
+         List<PendingJob> started = Lists.newArrayListWithCapacity(batch.size());
+         List<Object> results = Lists.newArrayListWithCapacity(batch.size());
+         for (PendingJob pending : batch) {
+            try {
+               results.add(pending.job.start());
+               started.add(pending);
+            } catch (RuntimeException e) {
+               pending.result.setException(e);
+            }
+         }
+
+         List<PendingJob> completed = Lists.newArrayListWithCapacity(started.size());
+         List<Object> completedResults = Lists.newArrayListWithCapacity(started.size());
+         for (int i = 0; i < started.size(); i++) {
+            PendingJob pending = started.get(i);
+            try {
+               pending.job.awaitCompletion(results.get(i));
+               completed.add(pending);
+               completedResults.add(results.get(i));
+            } catch (RuntimeException e) {
+               pending.result.setException(e);
+            }
+         }
+
+         if (!completed.isEmpty()) {
+            try {
+               first.waitUntilDataCenterIsReady();
+            } catch (RuntimeException e) {
+               for (PendingJob pending : completed) {
+                  pending.result.setException(e);
+               }
+               return;
+            }
+         }
+         for (int i = 0; i < completed.size(); i++) {
+            completed.get(i).result.set(completedResults.get(i));
          }
       }
    }
@@ -19,7 +19,6 @@ package org.apache.jclouds.profitbricks.rest.compute.config;
 import com.google.common.base.Function;
 import static com.google.common.base.Preconditions.checkNotNull;
 import com.google.common.base.Predicate;
-import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.inject.Inject;
 import com.google.inject.Provides;
 import com.google.inject.Scopes;
@@ -29,21 +28,29 @@ import java.util.concurrent.TimeUnit;
 import javax.inject.Named;
 import javax.inject.Singleton;
 import org.apache.jclouds.profitbricks.rest.ProfitBricksApi;
+import org.apache.jclouds.profitbricks.rest.compute.ProfitBricksComputeService;
 import org.apache.jclouds.profitbricks.rest.compute.ProfitBricksComputeServiceAdapter;
 import org.apache.jclouds.profitbricks.rest.compute.concurrent.ProvisioningJob;
 import org.apache.jclouds.profitbricks.rest.compute.concurrent.ProvisioningManager;
 import org.apache.jclouds.profitbricks.rest.compute.extensions.ProfitBricksImageExtension;
 import org.apache.jclouds.profitbricks.rest.compute.function.ProvisionableToImage;
+import org.apache.jclouds.profitbricks.rest.compute.internal.ProfitBricksTemplateBuilderImpl;
 import org.apache.jclouds.profitbricks.rest.compute.function.ServerInDataCenterToNodeMetadata;
 import org.apache.jclouds.profitbricks.rest.compute.function.VolumeToVolume;
 import org.apache.jclouds.profitbricks.rest.compute.strategy.AssignDataCenterToTemplate;
+import static org.apache.jclouds.profitbricks.rest.config.ProfitBricksComputeProperties.LIST_NODES_CONCURRENCY;
+import static org.apache.jclouds.profitbricks.rest.config.ProfitBricksComputeProperties.POLL_INITIAL_DELAY_SUFFIX;
+import static org.apache.jclouds.profitbricks.rest.config.ProfitBricksComputeProperties.POLL_INITIAL_PERIOD_SUFFIX;
 import static org.apache.jclouds.profitbricks.rest.config.ProfitBricksComputeProperties.POLL_MAX_PERIOD;
+import static org.apache.jclouds.profitbricks.rest.config.ProfitBricksComputeProperties.POLL_MAX_PERIOD_SUFFIX;
 import static org.apache.jclouds.profitbricks.rest.config.ProfitBricksComputeProperties.POLL_PERIOD;
 import static org.apache.jclouds.profitbricks.rest.config.ProfitBricksComputeProperties.POLL_PREDICATE_DATACENTER;
 import static org.apache.jclouds.profitbricks.rest.config.ProfitBricksComputeProperties.POLL_PREDICATE_NIC;
 import static org.apache.jclouds.profitbricks.rest.config.ProfitBricksComputeProperties.POLL_PREDICATE_SERVER;
 import static org.apache.jclouds.profitbricks.rest.config.ProfitBricksComputeProperties.POLL_PREDICATE_SNAPSHOT;
+import static org.apache.jclouds.profitbricks.rest.config.ProfitBricksComputeProperties.POLL_TICK;
 import static org.apache.jclouds.profitbricks.rest.config.ProfitBricksComputeProperties.POLL_TIMEOUT;
+import static org.apache.jclouds.profitbricks.rest.config.ProfitBricksComputeProperties.POLL_TIMEOUT_SUFFIX;
 import org.apache.jclouds.profitbricks.rest.domain.DataCenter;
 import org.apache.jclouds.profitbricks.rest.domain.Nic;
 import org.apache.jclouds.profitbricks.rest.domain.Provisionable;
@@ -53,6 +60,9 @@ import org.apache.jclouds.profitbricks.rest.domain.zonescoped.ServerInDataCenter
 import org.apache.jclouds.profitbricks.rest.ids.NicRef;
 import org.apache.jclouds.profitbricks.rest.ids.ServerRef;
 import org.apache.jclouds.profitbricks.rest.ids.VolumeRef;
+import org.apache.jclouds.profitbricks.rest.util.PollingPolicy;
+import org.apache.jclouds.profitbricks.rest.util.StatusPoller;
+import org.jclouds.compute.ComputeService;
 import org.jclouds.compute.ComputeServiceAdapter;
 import org.jclouds.compute.config.ComputeServiceAdapterContextModule;
 import static org.jclouds.compute.config.ComputeServiceProperties.TIMEOUT_NODE_RUNNING;
@@ -61,10 +71,10 @@ import org.jclouds.compute.domain.Hardware;
 import org.jclouds.compute.domain.Image;
 import org.jclouds.compute.domain.NodeMetadata;
 import org.jclouds.compute.domain.Volume;
-import org.jclouds.compute.domain.internal.ArbitraryCpuRamTemplateBuilderImpl;
 import org.jclouds.compute.domain.internal.TemplateBuilderImpl;
 import org.jclouds.compute.extensions.ImageExtension;
 import org.jclouds.compute.strategy.CreateNodesInGroupThenAddToSet;
+import org.jclouds.config.ValueOfConfigurationKeyOrNull;
 import org.jclouds.domain.Location;
 import org.jclouds.functions.IdentityFunction;
 import org.jclouds.lifecycle.Closer;
@@ -72,8 +82,6 @@ import org.jclouds.location.suppliers.ImplicitLocationSupplier;
 import org.jclouds.location.suppliers.implicit.OnlyLocationOrFirstZone;
 import org.jclouds.util.PasswordGenerator;
 
-import static org.jclouds.util.Predicates2.retry;
-
 public class ProfitBricksComputeServiceContextModule extends
         ComputeServiceAdapterContextModule<ServerInDataCenter, Hardware, Provisionable, Location> {
 
@@ -91,7 +99,9 @@ public class ProfitBricksComputeServiceContextModule extends
       bind(new TypeLiteral<ComputeServiceAdapter<ServerInDataCenter, Hardware, Provisionable, Location>>() {
       }).to(ProfitBricksComputeServiceAdapter.class);
 
-      bind(TemplateBuilderImpl.class).to(ArbitraryCpuRamTemplateBuilderImpl.class);
+      bind(ComputeService.class).to(ProfitBricksComputeService.class);
+
+      bind(TemplateBuilderImpl.class).to(ProfitBricksTemplateBuilderImpl.class);
 
       bind(new TypeLiteral<Function<ServerInDataCenter, NodeMetadata>>() {
       }).to(ServerInDataCenterToNodeMetadata.class);
@@ -122,34 +132,34 @@ public class ProfitBricksComputeServiceContextModule extends
    @Provides
    @Singleton
    @Named(POLL_PREDICATE_DATACENTER)
-   Predicate<String> provideDataCenterAvailablePredicate(final ProfitBricksApi api, ComputeConstants constants) {
-      return retry(new DataCenterProvisioningStatePredicate(
-              api, State.AVAILABLE),
-              constants.pollTimeout(), constants.pollPeriod(), constants.pollMaxPeriod(), TimeUnit.SECONDS);
+   Predicate<String> provideDataCenterAvailablePredicate(final ProfitBricksApi api, StatusPoller poller,
+         ComputeConstants constants) {
+      return poller.predicate(new DataCenterProvisioningStatePredicate(api, State.AVAILABLE),
+            constants.pollingPolicy(POLL_PREDICATE_DATACENTER));
    }
 
    @Provides
    @Named(TIMEOUT_NODE_RUNNING)
-   Predicate<ServerRef> provideServerRunningPredicate(final ProfitBricksApi api, ComputeConstants constants) {
-      return retry(new ServerStatusPredicate(
-              api, Server.Status.RUNNING),
-              constants.pollTimeout(), constants.pollPeriod(), constants.pollMaxPeriod(), TimeUnit.SECONDS);
+   Predicate<ServerRef> provideServerRunningPredicate(final ProfitBricksApi api, StatusPoller poller,
+         ComputeConstants constants) {
+      return poller.predicate(new ServerStatusPredicate(api, Server.Status.RUNNING),
+            constants.pollingPolicy(TIMEOUT_NODE_RUNNING, constants.pollPeriod()));
    }
 
    @Provides
    @Named(TIMEOUT_NODE_SUSPENDED)
-   Predicate<ServerRef> provideServerSuspendedPredicate(final ProfitBricksApi api, ComputeConstants constants) {
-      return retry(new ServerStatusPredicate(
-              api, Server.Status.SHUTOFF),
-              constants.pollTimeout(), constants.pollPeriod(), constants.pollMaxPeriod(), TimeUnit.SECONDS);
+   Predicate<ServerRef> provideServerSuspendedPredicate(final ProfitBricksApi api, StatusPoller poller,
+         ComputeConstants constants) {
+      return poller.predicate(new ServerStatusPredicate(api, Server.Status.SHUTOFF),
+            constants.pollingPolicy(TIMEOUT_NODE_SUSPENDED, constants.pollPeriod()));
    }
 
    @Provides
    @Named(POLL_PREDICATE_SERVER)
-   Predicate<ServerRef> provideServerAvailablePredicate(final ProfitBricksApi api, ComputeConstants constants) {
-      return retry(new ServerAvaiblablePredicate(
-              api, State.AVAILABLE),
-              constants.pollTimeout(), constants.pollPeriod(), constants.pollMaxPeriod(), TimeUnit.SECONDS);
+   Predicate<ServerRef> provideServerAvailablePredicate(final ProfitBricksApi api, StatusPoller poller,
+         ComputeConstants constants) {
+      return poller.predicate(new ServerAvaiblablePredicate(api, State.AVAILABLE),
+            constants.pollingPolicy(POLL_PREDICATE_SERVER, constants.pollPeriod()));
    }
 
    @Provides
@@ -164,28 +174,28 @@ public class ProfitBricksComputeServiceContextModule extends
    @Provides
    @Singleton
    @Named(POLL_PREDICATE_SNAPSHOT)
-   Predicate<String> provideSnapshotAvailablePredicate(final ProfitBricksApi api, ComputeConstants constants) {
-      return retry(new SnapshotProvisioningStatePredicate(
-              api, State.AVAILABLE),
-              constants.pollTimeout(), constants.pollPeriod(), constants.pollMaxPeriod(), TimeUnit.SECONDS);
+   Predicate<String> provideSnapshotAvailablePredicate(final ProfitBricksApi api, StatusPoller poller,
+         ComputeConstants constants) {
+      return poller.predicate(new SnapshotProvisioningStatePredicate(api, State.AVAILABLE),
+            constants.pollingPolicy(POLL_PREDICATE_SNAPSHOT));
    }
 
    @Provides
    @Singleton
    @Named(TIMEOUT_NODE_RUNNING)
-   Predicate<VolumeRef> provideVolumeAvailablePredicate(final ProfitBricksApi api, ComputeConstants constants) {
-      return retry(new VolumeProvisoningStatusPredicate(
-              api, State.AVAILABLE),
-              constants.pollTimeout(), constants.pollPeriod(), constants.pollMaxPeriod(), TimeUnit.SECONDS);
+   Predicate<VolumeRef> provideVolumeAvailablePredicate(final ProfitBricksApi api, StatusPoller poller,
+         ComputeConstants constants) {
+      return poller.predicate(new VolumeProvisoningStatusPredicate(api, State.AVAILABLE),
+            constants.pollingPolicy(TIMEOUT_NODE_RUNNING));
    }
 
    @Provides
    @Singleton
    @Named(POLL_PREDICATE_NIC)
-   Predicate<NicRef> provideNicAvailablePredicate(final ProfitBricksApi api, ProfitBricksComputeServiceContextModule.ComputeConstants constants) {
-      return retry(new NicAvailable(
-              api, State.AVAILABLE),
-              constants.pollTimeout(), constants.pollPeriod(), constants.pollMaxPeriod(), TimeUnit.SECONDS);
+   Predicate<NicRef> provideNicAvailablePredicate(final ProfitBricksApi api, StatusPoller poller,
+         ComputeConstants constants) {
+      return poller.predicate(new NicAvailable(api, State.AVAILABLE),
+            constants.pollingPolicy(POLL_PREDICATE_NIC));
    }
 
    static class DataCenterProvisioningStatePredicate implements Predicate<String> {
@@ -221,8 +231,6 @@ public class ProfitBricksComputeServiceContextModule extends
       public boolean apply(ServerRef serverRef) {
 
          checkNotNull(serverRef, "serverRef");
-         //give time for the operation to actually start
-         Uninterruptibles.sleepUninterruptibly(10, TimeUnit.SECONDS);
          Server server = api.serverApi().getServer(serverRef.dataCenterId(), serverRef.serverId());
 
          if (server == null || server.metadata() == null) {
@@ -246,8 +254,6 @@ public class ProfitBricksComputeServiceContextModule extends
       @Override
       public boolean apply(ServerRef serverRef) {
          checkNotNull(serverRef, "serverRef");
-         //give time for the operation to actually start
-         Uninterruptibles.sleepUninterruptibly(10, TimeUnit.SECONDS);
          Server server = api.serverApi().getServer(serverRef.dataCenterId(), serverRef.serverId());
 
          if (server == null || server.properties().vmState() == null) {
@@ -333,6 +339,17 @@ public class ProfitBricksComputeServiceContextModule extends
       @Named(POLL_MAX_PERIOD)
       private String pollMaxPeriod;
 
+      @Inject
+      @Named(POLL_TICK)
+      private String pollTick;
+
+      @Inject
+      @Named(LIST_NODES_CONCURRENCY)
+      private String listNodesConcurrency;
+
+      @Inject
+      private ValueOfConfigurationKeyOrNull config;
+
       public long pollTimeout() {
          return Long.parseLong(pollTimeout);
       }
@@ -344,5 +361,33 @@ public class ProfitBricksComputeServiceContextModule extends
       public long pollMaxPeriod() {
          return Long.parseLong(pollMaxPeriod);
       }
+
+      public long pollTick() {
+         return Long.parseLong(pollTick);
+      }
+
+      public int listNodesConcurrency() {
+         return Integer.parseInt(listNodesConcurrency);
+      }
+
+      public PollingPolicy pollingPolicy(String predicate) {
+         return pollingPolicy(predicate, 0);
+      }
+
+      /**
+       * The polling policy of the given predicate, in seconds. The properties of the predicate itself override the
+       * default initial delay and the global poll timeout and periods.
+       */
+      public PollingPolicy pollingPolicy(String predicate, long initialDelay) {
+         long initialPeriod = longValue(predicate + POLL_INITIAL_PERIOD_SUFFIX, pollPeriod());
+         long maxPeriod = Math.max(initialPeriod, longValue(predicate + POLL_MAX_PERIOD_SUFFIX, pollMaxPeriod()));
+         return PollingPolicy.create(longValue(predicate + POLL_INITIAL_DELAY_SUFFIX, initialDelay), initialPeriod,
+               maxPeriod, longValue(predicate + POLL_TIMEOUT_SUFFIX, pollTimeout()), TimeUnit.SECONDS);
+      }
+
+      private long longValue(String key, long defaultValue) {
+         String value = config.apply(key);
+         return value == null ? defaultValue : Long.parseLong(value);
+      }
    }
 }
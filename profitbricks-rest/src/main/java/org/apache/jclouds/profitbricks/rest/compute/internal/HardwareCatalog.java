@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.jclouds.profitbricks.rest.compute.internal;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+import javax.inject.Singleton;
+
+import org.jclouds.compute.domain.Hardware;
+import org.jclouds.compute.domain.HardwareBuilder;
+import org.jclouds.compute.domain.Processor;
+import org.jclouds.compute.domain.internal.VolumeImpl;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.FluentIterable;
+
+/**
+ * The hardware profiles offered by ProfitBricks: every combination of cores, RAM and disk size.
+ * <p>
+ * Profiles are built on demand, from their position in the catalog or from their id, instead of being kept in a
+ * list. Since every combination is offered, the smallest profile that satisfies a set of minimum requirements is
+ * found with a lookup per dimension.
+ */
+@Singleton
+public class HardwareCatalog {
+
+   // Max [cores=48] [disk size per volume=2048GB] [ram=200704 MB]
+   static final int MAX_CORES = 48;
+   static final int[] RAM = {1024, 2 * 1024, 4 * 1024, 8 * 1024, 10 * 1024, 16 * 1024, 24 * 1024, 28 * 1024,
+         32 * 1024};
+   static final float[] DISK = {10, 20, 30, 50, 80, 100, 150, 200, 250, 500};
+
+   private static final int SIZE = MAX_CORES * RAM.length * DISK.length;
+
+   private static final String[] DISK_IDS = new String[DISK.length];
+
+   static {
+      for (int i = 0; i < DISK.length; i++) {
+         DISK_IDS[i] = String.format("%f", DISK[i]);
+      }
+   }
+
+   public int size() {
+      return SIZE;
+   }
+
+   /**
+    * All the profiles, built while iterating.
+    */
+   public FluentIterable<Hardware> list() {
+      return new FluentIterable<Hardware>() {
+         @Override
+         public Iterator<Hardware> iterator() {
+            return new AbstractIterator<Hardware>() {
+               private int index = 0;
+
+               @Override
+               protected Hardware computeNext() {
+                  if (index == SIZE) {
+                     return endOfData();
+                  }
+                  int disk = index % DISK.length;
+                  int ram = (index / DISK.length) % RAM.length;
+                  int cores = index / (DISK.length * RAM.length) + 1;
+                  index++;
+                  return build(cores, ram, disk);
+               }
+            };
+         }
+      };
+   }
+
+   /**
+    * The profile with the given id, or {@code null} if the id does not belong to the catalog. The disk size may also
+    * be given without decimals, as in the hardware ids of the nodes.
+    */
+   public Hardware get(String id) {
+      String[] parts = id == null ? new String[0] : id.split(",", 3);
+      if (parts.length != 3 || !parts[0].startsWith("cpu=") || !parts[1].startsWith("ram=")
+            || !parts[2].startsWith("disk=")) {
+         return null;
+      }
+      try {
+         int cores = Integer.parseInt(parts[0].substring("cpu=".length()));
+         int ram = Arrays.binarySearch(RAM, Integer.parseInt(parts[1].substring("ram=".length())));
+         String size = parts[2].substring("disk=".length()).replace(',', '.');
+         int disk = Arrays.binarySearch(DISK, Float.parseFloat(size));
+         if (cores < 1 || cores > MAX_CORES || ram < 0 || disk < 0) {
+            return null;
+         }
+         return build(cores, ram, disk);
+      } catch (NumberFormatException e) {
+         return null;
+      }
+   }
+
+   /**
+    * The smallest profile, ordered by cores, RAM and then disk size, with at least the given resources, or
+    * {@code null} if no profile is big enough.
+    */
+   public Hardware smallest(double minCores, int minRam, double minDisk) {
+      int cores = (int) Math.max(1, Math.ceil(minCores));
+      int ram = ceilingIndex(minRam, RAM);
+      int disk = ceilingIndex(minDisk, DISK);
+      if (cores > MAX_CORES || ram < 0 || disk < 0) {
+         return null;
+      }
+      return build(cores, ram, disk);
+   }
+
+   /**
+    * The biggest profile of the catalog.
+    */
+   public Hardware biggest() {
+      return build(MAX_CORES, RAM.length - 1, DISK.length - 1);
+   }
+
+   private static int ceilingIndex(double min, int[] values) {
+      for (int i = 0; i < values.length; i++) {
+         if (values[i] >= min) {
+            return i;
+         }
+      }
+      return -1;
+   }
+
+   private static int ceilingIndex(double min, float[] values) {
+      for (int i = 0; i < values.length; i++) {
+         if (values[i] >= min) {
+            return i;
+         }
+      }
+      return -1;
+   }
+
+   private static Hardware build(int cores, int ramIndex, int diskIndex) {
+      String id = "cpu=" + cores + ",ram=" + RAM[ramIndex] + ",disk=" + DISK_IDS[diskIndex];
+      return new HardwareBuilder()
+            .ids(id)
+            .ram(RAM[ramIndex])
+            .hypervisor("kvm")
+            .name(id)
+            .processor(new Processor(cores, 1d))
+            .volume(new VolumeImpl(DISK[diskIndex], true, true))
+            .build();
+   }
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.jclouds.profitbricks.rest.compute.internal;
+
+import java.util.Set;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+
+import org.jclouds.collect.Memoized;
+import org.jclouds.compute.domain.Hardware;
+import org.jclouds.compute.domain.Image;
+import org.jclouds.compute.domain.TemplateBuilder;
+import org.jclouds.compute.domain.internal.ArbitraryCpuRamTemplateBuilderImpl;
+import org.jclouds.compute.options.TemplateOptions;
+import org.jclouds.compute.suppliers.ImageCacheSupplier;
+import org.jclouds.domain.Location;
+
+import com.google.common.base.Supplier;
+
+/**
+ * Resolves the hardware of templates from the {@link HardwareCatalog} instead of scanning every profile, when the
+ * template only asks for a hardware id or for minimum resources.
+ */
+public class ProfitBricksTemplateBuilderImpl extends ArbitraryCpuRamTemplateBuilderImpl {
+
+   private final HardwareCatalog catalog;
+
+   @Inject
+   protected ProfitBricksTemplateBuilderImpl(@Memoized Supplier<Set<? extends Location>> locations,
+         ImageCacheSupplier images, @Memoized Supplier<Set<? extends Hardware>> hardwares,
+         Supplier<Location> defaultLocation, @Named("DEFAULT") Provider<TemplateOptions> optionsProvider,
+         @Named("DEFAULT") Provider<TemplateBuilder> defaultTemplateProvider, HardwareCatalog catalog) {
+      super(locations, images, hardwares, defaultLocation, optionsProvider, defaultTemplateProvider);
+      this.catalog = catalog;
+   }
+
+   @Override
+   protected Hardware findHardwareWithId(Set<? extends Hardware> hardwaresToSearch) {
+      Hardware hardware = catalog.get(hardwareId);
+      return hardware != null ? hardware : super.findHardwareWithId(hardwaresToSearch);
+   }
+
+   @Override
+   protected Hardware resolveHardware(Set<? extends Hardware> hardwarel, Iterable<? extends Image> images) {
+      if (hardwareId == null && !fastest && (hypervisor == null || "kvm".matches(hypervisor))) {
+         Hardware smallest = catalog.smallest(minCores, minRam, minDisk);
+         if (smallest != null) {
+            return biggest ? catalog.biggest() : smallest;
+         }
+      }
+      return super.resolveHardware(hardwarel, images);
+   }
+}
@@ -22,11 +22,31 @@ public class ProfitBricksComputeProperties {
    public static final String POLL_PREDICATE_DATACENTER = "jclouds.profitbricks.rest.predicate.datacenter";
    public static final String POLL_PREDICATE_SNAPSHOT = "jclouds.profitbricks.rest.predicate.snapshot";
    public static final String POLL_PREDICATE_NIC = "jclouds.profitbricks.rest.predicate.nic";
+   public static final String POLL_PREDICATE_REQUEST = "jclouds.profitbricks.rest.predicate.request";
 
    public static final String POLL_TIMEOUT = "jclouds.profitbricks.rest.poll.timeout";
    public static final String POLL_PERIOD = "jclouds.profitbricks.rest.operation.poll.initial-period";
    public static final String POLL_MAX_PERIOD = "jclouds.profitbricks.rest.operation.poll.max-period";
 
+   /**
+    * Interval, in milliseconds, at which the shared status poller looks for pending checks that are due.
+    */
+   public static final String POLL_TICK = "jclouds.profitbricks.rest.poll.tick";
+
+   /**
+    * Maximum number of data centers listed, or servers fetched, at the same time when listing nodes.
+    */
+   public static final String LIST_NODES_CONCURRENCY = "jclouds.profitbricks.rest.list.nodes.concurrency";
+
+   /**
+    * Suffixes appended to a predicate name (e.g. {@link #POLL_PREDICATE_SERVER}) to override, in seconds, the delay
+    * before its first check, its initial and maximum polling periods and its timeout.
+    */
+   public static final String POLL_INITIAL_DELAY_SUFFIX = ".initial-delay";
+   public static final String POLL_INITIAL_PERIOD_SUFFIX = ".initial-period";
+   public static final String POLL_MAX_PERIOD_SUFFIX = ".max-period";
+   public static final String POLL_TIMEOUT_SUFFIX = ".timeout";
+
    private ProfitBricksComputeProperties() {
       throw new AssertionError("Intentionally unimplemented");
    }
@@ -17,27 +17,32 @@
 package org.apache.jclouds.profitbricks.rest.config;
 
 import static com.google.common.base.Preconditions.checkNotNull;
-import static org.jclouds.util.Predicates2.retry;
+import static org.apache.jclouds.profitbricks.rest.config.ProfitBricksComputeProperties.POLL_PREDICATE_REQUEST;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
 
 import java.net.URI;
 import java.util.concurrent.TimeUnit;
 
+import javax.inject.Named;
 import javax.inject.Singleton;
 
 import org.apache.jclouds.profitbricks.rest.ProfitBricksApi;
 import org.apache.jclouds.profitbricks.rest.compute.config.ProfitBricksComputeServiceContextModule.ComputeConstants;
 import org.apache.jclouds.profitbricks.rest.domain.RequestStatus;
 import org.apache.jclouds.profitbricks.rest.handlers.ProfitBricksHttpErrorHandler;
+import org.apache.jclouds.profitbricks.rest.util.StatusPoller;
 import org.jclouds.http.HttpErrorHandler;
 import org.jclouds.http.annotation.ClientError;
 import org.jclouds.http.annotation.Redirection;
 import org.jclouds.http.annotation.ServerError;
 import org.jclouds.json.config.GsonModule.DateAdapter;
 import org.jclouds.json.config.GsonModule.Iso8601DateAdapter;
+import org.jclouds.lifecycle.Closer;
 import org.jclouds.rest.ConfiguresHttpApi;
 import org.jclouds.rest.config.HttpApiModule;
 
 import com.google.common.base.Predicate;
+import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.inject.Provides;
 
 @ConfiguresHttpApi
@@ -58,9 +63,18 @@ public class ProfitBricksHttpApiModule extends HttpApiModule<ProfitBricksApi> {
 
    @Provides
    @Singleton
-   Predicate<URI> provideRequestCompletedPredicate(final ProfitBricksApi api, ComputeConstants constants) {
-      return retry(new RequestCompletedPredicate(api), constants.pollTimeout(), constants.pollPeriod(),
-            constants.pollMaxPeriod(), TimeUnit.SECONDS);
+   Predicate<URI> provideRequestCompletedPredicate(final ProfitBricksApi api, StatusPoller poller,
+         ComputeConstants constants) {
+      return poller.predicate(new RequestCompletedPredicate(api), constants.pollingPolicy(POLL_PREDICATE_REQUEST));
+   }
+
+   @Provides
+   @Singleton
+   StatusPoller provideStatusPoller(@Named(PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
+         ComputeConstants constants, Closer closer) {
+      StatusPoller poller = new StatusPoller(userExecutor, constants.pollTick(), TimeUnit.MILLISECONDS);
+      closer.addToClose(poller);
+      return poller;
    }
 
    private static class RequestCompletedPredicate implements Predicate<URI> {
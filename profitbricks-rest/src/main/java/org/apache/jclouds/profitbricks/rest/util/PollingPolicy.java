@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.jclouds.profitbricks.rest.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.concurrent.TimeUnit;
+
+import com.google.auto.value.AutoValue;
+
+/**
+ * How a {@link StatusPoller} polls a pending resource: the delay before the first check, the initial and maximum
+ * periods between checks, and the time after which it gives up. All values are kept in nanoseconds.
+ */
+@AutoValue
+public abstract class PollingPolicy {
+
+   public abstract long initialDelay();
+   public abstract long initialPeriod();
+   public abstract long maxPeriod();
+   public abstract long timeout();
+
+   public static PollingPolicy create(long initialDelay, long initialPeriod, long maxPeriod, long timeout,
+         TimeUnit unit) {
+      checkArgument(initialDelay >= 0, "initialDelay must not be negative");
+      checkArgument(initialPeriod > 0, "initialPeriod must be positive");
+      checkArgument(maxPeriod >= initialPeriod, "maxPeriod must not be lower than initialPeriod");
+      checkArgument(timeout >= 0, "timeout must not be negative");
+      return new AutoValue_PollingPolicy(unit.toNanos(initialDelay), unit.toNanos(initialPeriod),
+            unit.toNanos(maxPeriod), unit.toNanos(timeout));
+   }
+
+}
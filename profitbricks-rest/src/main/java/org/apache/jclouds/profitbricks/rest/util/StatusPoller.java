@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.jclouds.profitbricks.rest.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.Resource;
+
+import org.jclouds.logging.Logger;
+
+import com.google.common.base.Predicate;
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Polls the status of many pending resources, scheduling them from a single thread.
+ * <p>
+ * Every tick hands the resources whose next poll is due to the given executor, with at most one check in flight per
+ * resource, so a slow status request only delays the resource it belongs to. Each resource backs off exponentially from the initial
+ * period of its {@link PollingPolicy} up to the maximum period, waiting a random delay between half and all of the
+ * current period, so that short operations are noticed quickly and long waits do not poll the API in lockstep.
+ */
+public class StatusPoller implements Closeable {
+
+   @Resource
+   protected Logger logger = Logger.NULL;
+
+   private static final Random JITTER = new Random();
+
+   private final Queue<PendingCheck<?>> pending = new ConcurrentLinkedQueue<PendingCheck<?>>();
+
+   private final ScheduledExecutorService scheduler;
+
+   private final Executor executor;
+
+   /**
+    * @param executor runs the status checks, the tick thread only decides which checks are due
+    */
+   public StatusPoller(Executor executor, long tick, TimeUnit unit) {
+      checkArgument(tick > 0, "tick must be positive");
+      this.executor = checkNotNull(executor, "executor");
+      this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("profitbricks-status-poller-%d").setDaemon(true).build());
+      this.scheduler.scheduleWithFixedDelay(new Runnable() {
+         @Override
+         public void run() {
+            tick();
+         }
+      }, tick, tick, unit);
+   }
+
+   /**
+    * Polls the given check until it holds, returning a future that is {@code true} once it does and {@code false} if
+    * the policy timeout expires first. Cancelling the future stops polling the resource.
+    */
+   public <T> ListenableFuture<Boolean> poll(Predicate<T> check, T input, PollingPolicy policy) {
+      checkState(!scheduler.isShutdown(), "the status poller is closed");
+      PendingCheck<T> pendingCheck = new PendingCheck<T>(checkNotNull(check, "check"), input,
+            checkNotNull(policy, "policy"), System.nanoTime());
+      pending.add(pendingCheck);
+      return pendingCheck.result;
+   }
+
+   /**
+    * A predicate that blocks until the given check holds, as {@link org.jclouds.util.Predicates2#retry} does, but
+    * leaves the polling to this poller. Interrupting the waiting thread stops polling and returns {@code false}.
+    */
+   public <T> Predicate<T> predicate(final Predicate<T> check, final PollingPolicy policy) {
+      return new Predicate<T>() {
+         @Override
+         public boolean apply(T input) {
+            ListenableFuture<Boolean> result = poll(check, input, policy);
+            try {
+               return result.get();
+            } catch (InterruptedException e) {
+               result.cancel(false);
+               Thread.currentThread().interrupt();
+               logger.warn("polling %s on %s interrupted, returning false", check, input);
+               return false;
+            } catch (ExecutionException e) {
+               throw Throwables.propagate(e.getCause());
+            }
+         }
+
+         @Override
+         public String toString() {
+            return "poll(" + check + ", " + policy + ")";
+         }
+      };
+   }
+
+   void tick() {
+      long now = System.nanoTime();
+      for (Iterator<PendingCheck<?>> it = pending.iterator(); it.hasNext();) {
+         PendingCheck<?> pendingCheck = it.next();
+         if (pendingCheck.result.isDone()) {
+            it.remove();
+         } else {
+            pendingCheck.submitIfDue(now, executor);
+         }
+      }
+   }
+
+   int pendingCount() {
+      int count = 0;
+      for (PendingCheck<?> pendingCheck : pending) {
+         if (!pendingCheck.result.isDone()) {
+            count++;
+         }
+      }
+      return count;
+   }
+
+   @Override
+   public void close() throws IOException {
+      scheduler.shutdownNow();
+      for (PendingCheck<?> pendingCheck : pending) {
+         pendingCheck.result.cancel(false);
+      }
+      pending.clear();
+   }
+
+   private static final class PendingCheck<T> implements Runnable {
+      private final Predicate<T> check;
+      private final T input;
+      private final PollingPolicy policy;
+      private final long deadline;
+      private final SettableFuture<Boolean> result = SettableFuture.create();
+      private final AtomicBoolean inFlight = new AtomicBoolean();
+      // Only written by the running check, and read by the tick thread once the check is no longer in flight
+      private volatile long period;
+      private volatile long due;
+
+      private PendingCheck(Predicate<T> check, T input, PollingPolicy policy, long start) {
+         this.check = check;
+         this.input = input;
+         this.policy = policy;
+         this.deadline = start + policy.timeout();
+         this.period = policy.initialPeriod();
+         this.due = start + policy.initialDelay();
+      }
+
+      /**
+       * Hands the check to the executor if its next poll is due and the previous one has completed.
+       */
+      private void submitIfDue(long now, Executor executor) {
+         if (inFlight.get() || now - due < 0 || !inFlight.compareAndSet(false, true)) {
+            return;
+         }
+         try {
+            executor.execute(this);
+         } catch (RejectedExecutionException e) {
+            inFlight.set(false);
+            result.setException(e);
+         }
+      }
+
+      @Override
+      public void run() {
+         try {
+            if (result.isDone()) {
+               return;
+            }
+            if (check.apply(input)) {
+               result.set(true);
+               return;
+            }
+            long now = System.nanoTime();
+            if (now - deadline >= 0) {
+               result.set(false);
+               return;
+            }
+            long delay = period / 2 + (long) (JITTER.nextDouble() * (period / 2));
+            due = Math.min(now + delay, deadline);
+            period = Math.min(period * 2, policy.maxPeriod());
+         } catch (RuntimeException e) {
+            result.setException(e);
+         } finally {
+            inFlight.set(false);
+         }
+      }
+   }
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.jclouds.profitbricks.rest.compute;
+
+import static org.testng.Assert.assertEquals;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.jclouds.profitbricks.rest.internal.BaseProfitBricksApiMockTest;
+import org.jclouds.lifecycle.Closer;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.inject.Injector;
+import com.squareup.okhttp.mockwebserver.Dispatcher;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
+
+@Test(groups = "unit", testName = "ProfitBricksComputeServiceAdapterMockTest", singleThreaded = true)
+public class ProfitBricksComputeServiceAdapterMockTest extends BaseProfitBricksApiMockTest {
+
+   private static final String DATACENTER = "datacenter-id";
+
+   private static final List<String> TEARDOWN = ImmutableList.of(
+         "GET /datacenters/datacenter-id",
+         "DELETE /datacenters/datacenter-id/volumes/server-1-boot",
+         "DELETE /datacenters/datacenter-id/volumes/server-1-data",
+         "DELETE /datacenters/datacenter-id/servers/server-1",
+         "DELETE /datacenters/datacenter-id/volumes/server-2-boot",
+         "DELETE /datacenters/datacenter-id/volumes/server-2-data",
+         "DELETE /datacenters/datacenter-id/servers/server-2",
+         "GET /datacenters/datacenter-id");
+
+   public void testDestroyNodesWaitsForTheDataCenterOnceBeforeAndAfter() throws Exception {
+      List<String> requests = Collections.synchronizedList(Lists.<String>newArrayList());
+      server.setDispatcher(new TeardownDispatcher(requests, ImmutableSet.<String>of()));
+
+      Set<String> destroyed = destroyNodes(DATACENTER + "/server-1", DATACENTER + "/server-2");
+
+      assertEquals(destroyed, ImmutableSet.of(DATACENTER + "/server-1", DATACENTER + "/server-2"));
+      assertFetchedThenTornDown(requests, TEARDOWN);
+   }
+
+   public void testFailedDeletionDoesNotStopTheOthers() throws Exception {
+      List<String> requests = Collections.synchronizedList(Lists.<String>newArrayList());
+      server.setDispatcher(new TeardownDispatcher(requests, ImmutableSet.of(
+            "DELETE /datacenters/datacenter-id/volumes/server-1-data",
+            "DELETE /datacenters/datacenter-id/servers/server-2")));
+
+      Set<String> destroyed = destroyNodes(DATACENTER + "/server-1", DATACENTER + "/server-2");
+
+      // the failures are only logged, every other resource is still deleted in the same batch
+      assertEquals(destroyed, ImmutableSet.of(DATACENTER + "/server-1"));
+      assertFetchedThenTornDown(requests, TEARDOWN);
+   }
+
+   private Set<String> destroyNodes(String... ids) throws Exception {
+      Injector injector = injector();
+      try {
+         return injector.getInstance(ProfitBricksComputeServiceAdapter.class).destroyNodes(ImmutableList.copyOf(ids));
+      } finally {
+         injector.getInstance(Closer.class).close();
+      }
+   }
+
+   private static void assertFetchedThenTornDown(List<String> requests, List<String> teardown) {
+      assertEquals(requests.size(), 2 + teardown.size(), "requests: " + requests);
+      // the servers are fetched concurrently
+      assertEquals(ImmutableSet.copyOf(requests.subList(0, 2)), ImmutableSet.of(
+            "GET /datacenters/datacenter-id/servers/server-1?depth=3",
+            "GET /datacenters/datacenter-id/servers/server-2?depth=3"));
+      assertEquals(requests.subList(2, requests.size()), teardown);
+   }
+
+   /**
+    * Serves servers with a boot and a data volume, an available data center, and accepts every deletion but the
+    * failing ones.
+    */
+   private class TeardownDispatcher extends Dispatcher {
+      private final Pattern serverPath = Pattern.compile("/datacenters/([^/]+)/servers/([^/?]+)\\?depth=3");
+      private final List<String> requests;
+      private final Set<String> failing;
+      private final String dataCenter = stringFromResource("/compute/datacenter.json");
+      private final String serverWithVolumes = stringFromResource("/compute/server-with-volumes.json");
+
+      TeardownDispatcher(List<String> requests, Set<String> failing) {
+         this.requests = requests;
+         this.failing = failing;
+      }
+
+      @Override
+      public MockResponse dispatch(RecordedRequest request) {
+         String call = request.getMethod() + " " + request.getPath();
+         requests.add(call);
+         if (failing.contains(call)) {
+            return new MockResponse().setStatus("HTTP/1.1 409 Conflict");
+         }
+         if (request.getMethod().equals("DELETE")) {
+            return new MockResponse().setStatus("HTTP/1.1 202 Accepted");
+         }
+         if (request.getPath().equals("/datacenters/" + DATACENTER)) {
+            return new MockResponse().setBody(dataCenter);
+         }
+         Matcher server = serverPath.matcher(request.getPath());
+         if (server.matches()) {
+            return new MockResponse().setBody(serverWithVolumes.replace("DATACENTER_ID", server.group(1))
+                  .replace("SERVER_ID", server.group(2)));
+         }
+         return response404();
+      }
+   }
+}
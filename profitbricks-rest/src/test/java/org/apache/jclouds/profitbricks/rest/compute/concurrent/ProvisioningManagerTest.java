@@ -16,12 +16,17 @@
  */
 package org.apache.jclouds.profitbricks.rest.compute.concurrent;
 
+import static com.google.common.util.concurrent.Uninterruptibles.awaitUninterruptibly;
 import static com.google.common.util.concurrent.Uninterruptibles.sleepUninterruptibly;
 import static java.util.logging.Logger.getAnonymousLogger;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.testng.annotations.Test;
@@ -31,6 +36,9 @@ import com.google.common.base.Predicates;
 import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
 import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ListenableFuture;
 
 @Test(groups = "unit", testName = "ProvisioningManagerTest")
 public class ProvisioningManagerTest {
@@ -64,6 +72,86 @@ public class ProvisioningManagerTest {
       assertEquals(completedJobs.get(), 1);
    }
 
+   @Test
+   public void testCoalescesDataCenterWaits() throws Exception {
+      for (int nodes : new int[] { 1, 10, 40 }) {
+         ProvisioningManager manager = new ProvisioningManager();
+         AtomicInteger waits = new AtomicInteger(0);
+         CountDownLatch firstWaitStarted = new CountDownLatch(1);
+         CountDownLatch allQueued = new CountDownLatch(1);
+         Predicate<String> dataCenterReady = countingPredicate(
+               blockFirstCall(firstWaitStarted, allQueued, sleepPredicate(50)), waits);
+         Supplier<Object> createServer = new Supplier<Object>() {
+            @Override
+            public Object get() {
+               sleepUninterruptibly(5, TimeUnit.MILLISECONDS);
+               return 0;
+            }
+         };
+
+         try {
+            List<ListenableFuture<Object>> results = Lists.newArrayList();
+            long start = System.nanoTime();
+            results.addAll(manager.submit(ImmutableList.of(
+                  new ProvisioningJob(dataCenterReady, null, "datacenter", createServer))));
+            // the lane holds the first node in its first data center wait while the other nodes are queued one by one
+            assertTrue(firstWaitStarted.await(10, TimeUnit.SECONDS), "the first data center wait did not start");
+            for (int i = 1; i < nodes; i++) {
+               results.addAll(manager.submit(ImmutableList.of(
+                     new ProvisioningJob(dataCenterReady, null, "datacenter", createServer))));
+            }
+            allQueued.countDown();
+            for (ListenableFuture<Object> result : results) {
+               assertEquals(result.get(10, TimeUnit.SECONDS), 0);
+            }
+            double timePerNode = (System.nanoTime() - start) / (double) nodes;
+            getAnonymousLogger().info(String.format("ProvisioningManagerTest: %d nodes, %d data center waits, %.1f ms/node",
+                  nodes, waits.get(), timePerNode / 1000000));
+
+            // two waits for the first node, and two for all the nodes queued behind it whatever their number, so the
+            // time spent waiting for the data center per node drops with the node count
+            assertEquals(waits.get(), nodes == 1 ? 2 : 4);
+         } finally {
+            allQueued.countDown();
+            manager.close();
+         }
+      }
+   }
+
+   @Test
+   public void testSubmittedJobsShareOneBatch() throws Exception {
+      ProvisioningManager manager = new ProvisioningManager();
+      AtomicInteger waits = new AtomicInteger(0);
+      Predicate<String> dataCenterReady = countingPredicate(sleepPredicate(50), waits);
+      AtomicInteger completedJobs = new AtomicInteger(0);
+
+      try {
+         List<ProvisioningJob> deletions = Lists.newArrayList();
+         for (int i = 0; i < 10; i++) {
+            final int volume = i;
+            deletions.add(new ProvisioningJob(dataCenterReady, null, "datacenter", new Supplier<Object>() {
+               @Override
+               public Object get() {
+                  return volume;
+               }
+            }));
+         }
+         deletions.add(new MockJob(0, "other-datacenter", completedJobs));
+
+         List<ListenableFuture<Object>> results = manager.submit(deletions);
+         assertEquals(results.size(), 11);
+         for (int i = 0; i < 10; i++) {
+            assertEquals(results.get(i).get(), i);
+         }
+         assertEquals(results.get(10).get(), 0);
+         // one wait before starting the jobs of the data center and one after, for all of them
+         assertEquals(waits.get(), 2);
+         assertEquals(completedJobs.get(), 1);
+      } finally {
+         manager.close();
+      }
+   }
+
    private static class MockJob extends ProvisioningJob {
 
       private final long delay;
@@ -76,11 +164,16 @@ public class ProvisioningManagerTest {
       }
 
       @Override
-      public Integer call() throws Exception {
+      Object start() {
          getAnonymousLogger().info("ProvisioningManagerTest: Starting " + this);
-         super.call();
+         return super.start();
+      }
+
+      @Override
+      void awaitCompletion(Object result) {
+         super.awaitCompletion(result);
          getAnonymousLogger().info("ProvisioningManagerTest: Completed " + this);
-         return completedJobs.incrementAndGet();
+         completedJobs.incrementAndGet();
       }
 
       @Override
@@ -106,6 +199,31 @@ public class ProvisioningManagerTest {
       }
    }
 
+   private static Predicate<String> countingPredicate(final Predicate<String> delegate, final AtomicInteger count) {
+      return new Predicate<String>() {
+         @Override
+         public boolean apply(String input) {
+            count.incrementAndGet();
+            return delegate.apply(input);
+         }
+      };
+   }
+
+   private static Predicate<String> blockFirstCall(final CountDownLatch started, final CountDownLatch release,
+         final Predicate<String> delegate) {
+      final AtomicBoolean first = new AtomicBoolean(true);
+      return new Predicate<String>() {
+         @Override
+         public boolean apply(String input) {
+            if (first.compareAndSet(true, false)) {
+               started.countDown();
+               awaitUninterruptibly(release);
+            }
+            return delegate.apply(input);
+         }
+      };
+   }
+
    private static Predicate<String> sleepPredicate(final long delay) {
       return new Predicate<String>() {
          @Override
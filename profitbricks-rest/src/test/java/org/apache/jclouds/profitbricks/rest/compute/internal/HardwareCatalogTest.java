@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.jclouds.profitbricks.rest.compute.internal;
+
+import static org.jclouds.compute.util.ComputeServiceUtils.getCores;
+import static org.jclouds.compute.util.ComputeServiceUtils.getSpace;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.util.List;
+
+import org.jclouds.compute.domain.Hardware;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Function;
+import com.google.common.base.Predicate;
+import com.google.common.collect.ComparisonChain;
+import com.google.common.collect.Ordering;
+
+@Test(groups = "unit", testName = "HardwareCatalogTest")
+public class HardwareCatalogTest {
+
+   private final HardwareCatalog catalog = new HardwareCatalog();
+
+   private static final Ordering<Hardware> BY_SIZE = new Ordering<Hardware>() {
+      @Override
+      public int compare(Hardware left, Hardware right) {
+         return ComparisonChain.start().compare(getCores(left), getCores(right)).compare(left.getRam(), right.getRam())
+               .compare(getSpace(left), getSpace(right)).result();
+      }
+   };
+
+   public void testListsEveryProfileOnce() {
+      List<Hardware> profiles = catalog.list().toList();
+      assertEquals(profiles.size(), 48 * 9 * 10);
+      assertEquals(catalog.size(), profiles.size());
+      assertEquals(catalog.list().transform(new Function<Hardware, String>() {
+         @Override
+         public String apply(Hardware input) {
+            return input.getId();
+         }
+      }).toSet().size(), profiles.size());
+      assertEquals(profiles.get(0).getId(), String.format("cpu=%d,ram=%s,disk=%f", 1, 1024, 10f));
+      assertEquals(profiles.get(profiles.size() - 1).getId(), String.format("cpu=%d,ram=%s,disk=%f", 48, 32768, 500f));
+   }
+
+   public void testGetBuildsTheListedProfile() {
+      for (Hardware hardware : catalog.list()) {
+         assertEquals(catalog.get(hardware.getId()), hardware);
+      }
+   }
+
+   public void testGetAcceptsNodeHardwareIds() {
+      Hardware hardware = catalog.get("cpu=2,ram=2048,disk=20");
+      assertEquals(getCores(hardware), 2d);
+      assertEquals(hardware.getRam(), 2048);
+      assertEquals(getSpace(hardware), 20d);
+   }
+
+   public void testGetUnknownIds() {
+      assertNull(catalog.get(null));
+      assertNull(catalog.get("automatic:cores=2;ram=2048;disk=20"));
+      assertNull(catalog.get("cpu=49,ram=2048,disk=20"));
+      assertNull(catalog.get("cpu=2,ram=3000,disk=20"));
+      assertNull(catalog.get("cpu=2,ram=2048,disk=25"));
+      assertNull(catalog.get("cpu=two,ram=2048,disk=20"));
+   }
+
+   public void testSmallestMatchesScanningAllProfiles() {
+      for (double minCores : new double[]{0, 1, 1.5, 2, 16, 47.5, 48}) {
+         for (int minRam : new int[]{0, 512, 1024, 3000, 16384, 32768}) {
+            for (double minDisk : new double[]{0, 10, 15, 100, 499, 500}) {
+               assertEquals(catalog.smallest(minCores, minRam, minDisk), scan(minCores, minRam, minDisk),
+                     String.format("minCores=%s, minRam=%s, minDisk=%s", minCores, minRam, minDisk));
+            }
+         }
+      }
+   }
+
+   public void testSmallestOutOfRange() {
+      assertNull(catalog.smallest(49, 1024, 10));
+      assertNull(catalog.smallest(1, 32769, 10));
+      assertNull(catalog.smallest(1, 1024, 501));
+   }
+
+   public void testBiggest() {
+      assertEquals(catalog.biggest(), BY_SIZE.max(catalog.list()));
+   }
+
+   private Hardware scan(final double minCores, final int minRam, final double minDisk) {
+      return BY_SIZE.min(catalog.list().filter(new Predicate<Hardware>() {
+         @Override
+         public boolean apply(Hardware input) {
+            return getCores(input) >= minCores && input.getRam() >= minRam && getSpace(input) >= minDisk;
+         }
+      }));
+   }
+}
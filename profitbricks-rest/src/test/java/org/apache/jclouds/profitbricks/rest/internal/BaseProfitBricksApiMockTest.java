@@ -37,6 +37,7 @@ import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.io.Resources;
 import com.google.gson.JsonParser;
+import com.google.inject.Injector;
 import com.google.inject.Module;
 import com.squareup.okhttp.mockwebserver.MockResponse;
 import com.squareup.okhttp.mockwebserver.MockWebServer;
@@ -74,6 +75,16 @@ public class BaseProfitBricksApiMockTest {
       api.close();
    }
 
+   /** Injector of the whole provider, to test the compute abstraction against the mock server. */
+   protected Injector injector() {
+      return ContextBuilder.newBuilder("profitbricks-rest")
+              .credentials("username", "password")
+              .endpoint(url(""))
+              .modules(modules)
+              .overrides(overrides())
+              .buildInjector();
+   }
+
    protected Properties overrides() {
       return new Properties();
    }
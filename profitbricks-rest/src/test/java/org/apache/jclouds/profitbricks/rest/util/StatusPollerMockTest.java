@@ -0,0 +1,227 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.jclouds.profitbricks.rest.util;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.jclouds.profitbricks.rest.domain.State;
+import org.apache.jclouds.profitbricks.rest.ids.ServerRef;
+import org.apache.jclouds.profitbricks.rest.internal.BaseProfitBricksApiMockTest;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.squareup.okhttp.mockwebserver.Dispatcher;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
+
+@Test(groups = "unit", testName = "StatusPollerMockTest", singleThreaded = true)
+public class StatusPollerMockTest extends BaseProfitBricksApiMockTest {
+
+   private static final PollingPolicy POLICY = PollingPolicy.create(0, 50, 400, 10000, MILLISECONDS);
+
+   private final ExecutorService executor = Executors.newCachedThreadPool();
+
+   @AfterClass(alwaysRun = true)
+   public void shutdownExecutor() {
+      executor.shutdownNow();
+   }
+
+   public void testNoticesStateChangesShortlyAfterTheyHappen() throws Exception {
+      int servers = 10;
+      Random random = new Random();
+      long start = System.nanoTime();
+      final Map<String, Long> flipAt = new ConcurrentHashMap<String, Long>();
+      for (int i = 0; i < servers; i++) {
+         flipAt.put("server-" + i, start + MILLISECONDS.toNanos(200 + random.nextInt(1800)));
+      }
+      final AtomicInteger requests = new AtomicInteger();
+      server.setDispatcher(new FlippingDispatcher(flipAt, requests));
+
+      StatusPoller poller = new StatusPoller(executor, 10, MILLISECONDS);
+      try {
+         Map<String, ListenableFuture<Boolean>> results = new ConcurrentHashMap<String, ListenableFuture<Boolean>>();
+         final Map<String, Long> noticedAt = new ConcurrentHashMap<String, Long>();
+         for (final String serverId : flipAt.keySet()) {
+            ListenableFuture<Boolean> result = poller.poll(new Predicate<ServerRef>() {
+               @Override
+               public boolean apply(ServerRef input) {
+                  boolean available = new ServerAvailable().apply(input);
+                  if (available) {
+                     noticedAt.put(input.serverId(), System.nanoTime());
+                  }
+                  return available;
+               }
+            }, ServerRef.create("datacenter-id", serverId), POLICY);
+            results.put(serverId, result);
+         }
+
+         List<Boolean> all = Futures.allAsList(results.values()).get(30, SECONDS);
+         assertFalse(all.contains(Boolean.FALSE), "all servers should be available");
+         assertEquals(poller.pendingCount(), 0);
+
+         for (String serverId : flipAt.keySet()) {
+            long latency = NANOSECONDS.toMillis(noticedAt.get(serverId) - flipAt.get(serverId));
+            // At most one (jittered) maximum period after the flip, far from the 10 seconds of the old fixed sleep
+            assertTrue(latency < 400 + 500, serverId + " noticed " + latency + "ms after it became available");
+         }
+         // Polling every 50ms without backing off would need about 20 requests per second of waiting
+         assertTrue(requests.get() < servers * 20, "issued " + requests.get() + " requests");
+      } finally {
+         poller.close();
+      }
+   }
+
+   public void testReturnsFalseOnTimeout() throws Exception {
+      server.setDispatcher(new FlippingDispatcher(new ConcurrentHashMap<String, Long>(), new AtomicInteger()));
+      StatusPoller poller = new StatusPoller(executor, 10, MILLISECONDS);
+      try {
+         Predicate<ServerRef> available = poller.predicate(new ServerAvailable(),
+               PollingPolicy.create(0, 50, 100, 500, MILLISECONDS));
+         long start = System.nanoTime();
+         assertFalse(available.apply(ServerRef.create("datacenter-id", "server-id")));
+         assertTrue(NANOSECONDS.toMillis(System.nanoTime() - start) >= 500);
+         assertEquals(poller.pendingCount(), 0);
+      } finally {
+         poller.close();
+      }
+   }
+
+   public void testInterruptStopsPolling() throws Exception {
+      server.setDispatcher(new FlippingDispatcher(new ConcurrentHashMap<String, Long>(), new AtomicInteger()));
+      final StatusPoller poller = new StatusPoller(executor, 10, MILLISECONDS);
+      try {
+         final AtomicBoolean result = new AtomicBoolean(true);
+         final AtomicBoolean interrupted = new AtomicBoolean(false);
+         Thread waiter = new Thread(new Runnable() {
+            @Override
+            public void run() {
+               result.set(poller.predicate(new ServerAvailable(), POLICY)
+                     .apply(ServerRef.create("datacenter-id", "server-id")));
+               interrupted.set(Thread.currentThread().isInterrupted());
+            }
+         });
+         waiter.start();
+         Thread.sleep(200);
+         waiter.interrupt();
+         waiter.join(5000);
+
+         assertFalse(waiter.isAlive());
+         assertFalse(result.get());
+         assertTrue(interrupted.get(), "the interrupt flag should be restored");
+         assertEquals(poller.pendingCount(), 0);
+      } finally {
+         poller.close();
+      }
+   }
+
+   public void testHungCheckDoesNotDelayOtherResources() throws Exception {
+      final CountDownLatch release = new CountDownLatch(1);
+      final AtomicInteger hungCalls = new AtomicInteger();
+      final AtomicInteger inFlight = new AtomicInteger();
+      final AtomicBoolean overlapped = new AtomicBoolean(false);
+      StatusPoller poller = new StatusPoller(executor, 10, MILLISECONDS);
+      try {
+         ListenableFuture<Boolean> hung = poller.poll(new Predicate<String>() {
+            @Override
+            public boolean apply(String input) {
+               if (inFlight.incrementAndGet() > 1) {
+                  overlapped.set(true);
+               }
+               hungCalls.incrementAndGet();
+               try {
+                  release.await();
+               } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+               } finally {
+                  inFlight.decrementAndGet();
+               }
+               return true;
+            }
+         }, "hung", POLICY);
+         final AtomicInteger calls = new AtomicInteger();
+         ListenableFuture<Boolean> other = poller.poll(new Predicate<String>() {
+            @Override
+            public boolean apply(String input) {
+               return calls.incrementAndGet() >= 3;
+            }
+         }, "other", POLICY);
+
+         assertTrue(other.get(5, SECONDS), "the other resource should not wait for the hung check");
+         assertFalse(hung.isDone());
+         assertEquals(hungCalls.get(), 1, "a resource should have at most one check in flight");
+
+         release.countDown();
+         assertTrue(hung.get(5, SECONDS));
+         assertFalse(overlapped.get());
+      } finally {
+         release.countDown();
+         poller.close();
+      }
+   }
+
+   private class ServerAvailable implements Predicate<ServerRef> {
+      @Override
+      public boolean apply(ServerRef input) {
+         return api.serverApi().getServer(input.dataCenterId(), input.serverId()).metadata().state()
+               == State.AVAILABLE;
+      }
+   }
+
+   /**
+    * Serves every server as busy until its flip time, and as available afterwards.
+    */
+   private class FlippingDispatcher extends Dispatcher {
+      private final Map<String, Long> flipAt;
+      private final AtomicInteger requests;
+      private final String inProcess = stringFromResource("/compute/predicate/server-inprocess.json");
+      private final String available = stringFromResource("/compute/predicate/server.json");
+
+      FlippingDispatcher(Map<String, Long> flipAt, AtomicInteger requests) {
+         this.flipAt = flipAt;
+         this.requests = requests;
+      }
+
+      @Override
+      public MockResponse dispatch(RecordedRequest request) {
+         requests.incrementAndGet();
+         List<String> segments = Lists.newArrayList(request.getPath().split("[/?]"));
+         String serverId = segments.get(segments.indexOf("servers") + 1);
+         Long flip = flipAt.get(serverId);
+         boolean flipped = flip != null && System.nanoTime() - flip >= 0;
+         return new MockResponse().setBody(flipped ? available : inProcess);
+      }
+   }
+}
@@ -20,14 +20,18 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import javax.annotation.Resource;
 import javax.inject.Inject;
 import javax.inject.Named;
+import javax.inject.Singleton;
 
 import org.jclouds.compute.ComputeServiceAdapter;
 import org.jclouds.compute.domain.Hardware;
@@ -59,7 +63,12 @@ import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
+import com.google.common.io.ByteSource;
+import com.google.common.io.Files;
+import com.google.common.io.Resources;
 
+@Singleton
 public class VagrantComputeServiceAdapter implements ComputeServiceAdapter<VagrantNode, Hardware, Image, Location> {
    private static final Pattern PATTERN_IP_ADDR = Pattern.compile("inet ([0-9\\.]+)/(\\d+)");
    private static final Pattern PATTERN_IPCONFIG = Pattern.compile("IPv4 Address[ .]+: ([0-9\\.]+)");
@@ -75,6 +84,7 @@ public class VagrantComputeServiceAdapter implements ComputeServiceAdapter<Vagra
    private final Supplier<? extends Map<String, Hardware>> hardwareSupplier;
    private final Supplier<Collection<Image>> imageListSupplier;
    private final Function<String, Image> imageIdToImage;
+   private final Set<String> preparedMachines = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
 
    @Inject
    VagrantComputeServiceAdapter(@Named(VagrantConstants.JCLOUDS_VAGRANT_HOME) String home,
@@ -101,7 +111,9 @@ public class VagrantComputeServiceAdapter implements ComputeServiceAdapter<Vagra
       String machineName = removeFromStart(name, group);
       File nodePath = new File(home, group);
 
-      init(nodePath, machineName, template);
+      if (!preparedMachines.remove(group + "/" + machineName)) {
+         init(nodePath, machineName, template);
+      }
 
       NodeAndInitialCredentials<VagrantNode> node = startMachine(nodePath, group, machineName,
             template.getImage(), template.getHardware());
@@ -109,6 +121,24 @@ public class VagrantComputeServiceAdapter implements ComputeServiceAdapter<Vagra
       return node;
    }
 
+   /**
+    * Writes the Vagrantfile and the configs of all the machines of a group before any of them is started. The Vagrant
+    * process of each machine loads the configs of its siblings, so they must not change while the group is starting.
+    *
+    * @return the ids of the nodes keyed by their names
+    */
+   public Map<String, String> prepareNodesInGroup(String group, Iterable<String> names, Template template) {
+      File nodePath = new File(home, group);
+      Map<String, String> ids = Maps.newLinkedHashMap();
+      for (String name : names) {
+         String machineName = removeFromStart(name, group);
+         init(nodePath, machineName, template);
+         ids.put(name, group + "/" + machineName);
+      }
+      preparedMachines.addAll(ids.values());
+      return ids;
+   }
+
    private NodeAndInitialCredentials<VagrantNode> startMachine(File path, String group, String name, Image image, Hardware hardware) {
       String provider = image.getUserMetadata().get(VagrantConstants.USER_META_PROVIDER);
 
@@ -201,9 +231,13 @@ public class VagrantComputeServiceAdapter implements ComputeServiceAdapter<Vagra
 
    private void writeVagrantfile(File path) throws IOException {
       path.mkdirs();
-      VagrantUtils.write(
-            new File(path, VagrantConstants.VAGRANTFILE),
-            getClass().getClassLoader().getResourceAsStream(VagrantConstants.VAGRANTFILE));
+      File vagrantfile = new File(path, VagrantConstants.VAGRANTFILE);
+      ByteSource content = Resources.asByteSource(getClass().getClassLoader().getResource(VagrantConstants.VAGRANTFILE));
+      // Don't rewrite it under machines of the group which are being started
+      if (vagrantfile.exists() && content.contentEquals(Files.asByteSource(vagrantfile))) {
+         return;
+      }
+      VagrantUtils.write(vagrantfile, content.openStream());
    }
 
    private void initMachineConfig(File path, String name, Template template) {
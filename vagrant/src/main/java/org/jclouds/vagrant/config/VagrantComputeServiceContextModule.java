@@ -27,6 +27,7 @@ import org.jclouds.compute.domain.Image;
 import org.jclouds.compute.domain.NodeMetadata;
 import org.jclouds.compute.domain.internal.ArbitraryCpuRamTemplateBuilderImpl;
 import org.jclouds.compute.domain.internal.TemplateBuilderImpl;
+import org.jclouds.compute.strategy.CreateNodesInGroupThenAddToSet;
 import org.jclouds.compute.strategy.PopulateDefaultLoginCredentialsForImageStrategy;
 import org.jclouds.domain.Location;
 import org.jclouds.functions.IdentityFunction;
@@ -37,10 +38,12 @@ import org.jclouds.vagrant.domain.VagrantNode;
 import org.jclouds.vagrant.functions.BoxToImage;
 import org.jclouds.vagrant.functions.MachineToNodeMetadata;
 import org.jclouds.vagrant.functions.OutdatedBoxesFilter;
+import org.jclouds.vagrant.internal.BoxCatalog;
 import org.jclouds.vagrant.internal.ImageSupplier;
 import org.jclouds.vagrant.internal.VagrantCliFacade;
 import org.jclouds.vagrant.internal.VagrantExistingMachines;
 import org.jclouds.vagrant.internal.VagrantWireLogger;
+import org.jclouds.vagrant.strategy.PrepareMachinesThenCreateNodes;
 import org.jclouds.vagrant.strategy.VagrantDefaultImageCredentials;
 import org.jclouds.vagrant.suppliers.VagrantHardwareSupplier;
 
@@ -79,6 +82,8 @@ public class VagrantComputeServiceContextModule extends ComputeServiceAdapterCon
       }).to(new TypeLiteral<ImageSupplier<Box>>() {});
       bind(new TypeLiteral<Function<String, Image>>() {
       }).to(new TypeLiteral<ImageSupplier<Box>>() {});
+      bind(new TypeLiteral<VagrantBoxApiFacade<Box>>() {
+      }).to(BoxCatalog.class);
       bind(new TypeLiteral<Supplier<Collection<VagrantNode>>>() {
       }).to(VagrantExistingMachines.class);
       install(new FactoryModuleBuilder()
@@ -88,6 +93,7 @@ public class VagrantComputeServiceContextModule extends ComputeServiceAdapterCon
             .implement(new TypeLiteral<VagrantBoxApiFacade<Box>>() {}, VagrantCliFacade.class)
             .build(new TypeLiteral<VagrantBoxApiFacade.Factory<Box>>() {}));
       bind(PopulateDefaultLoginCredentialsForImageStrategy.class).to(VagrantDefaultImageCredentials.class);
+      bind(CreateNodesInGroupThenAddToSet.class).to(PrepareMachinesThenCreateNodes.class);
       bind(TemplateBuilderImpl.class).to(ArbitraryCpuRamTemplateBuilderImpl.class);
       bind(CommandIOListener.class).to(VagrantWireLogger.class).in(Singleton.class);
    }
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.vagrant.internal;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.jclouds.vagrant.api.VagrantBoxApiFacade;
+import org.jclouds.vagrant.reference.VagrantConstants;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import vagrant.api.domain.Box;
+
+/**
+ * Lists the installed boxes by reading the boxes folder of the Vagrant home directly, laid out as
+ * {@code boxes/<name>/<version>/<provider>}, instead of spawning {@code vagrant box list}. The listing is kept until
+ * one of the folders it was read from is modified, so adding or removing a box, a version or a provider is picked up
+ * by the next call.
+ */
+@Singleton
+public class BoxCatalog implements VagrantBoxApiFacade<Box> {
+   /**
+    * Modification times closer than this to the scan are not trusted, some file systems only keep whole seconds.
+    */
+   private static final long MODIFIED_RESOLUTION = TimeUnit.SECONDS.toMillis(2);
+   private static final long UNSETTLED = -1;
+   private static final String BOX_METADATA = "metadata.json";
+
+   private static class Snapshot {
+      private final Map<File, Long> folders;
+      private final Collection<Box> boxes;
+
+      Snapshot(Map<File, Long> folders, Collection<Box> boxes) {
+         this.folders = folders;
+         this.boxes = boxes;
+      }
+
+      boolean isCurrent() {
+         for (Map.Entry<File, Long> folder : folders.entrySet()) {
+            if (folder.getKey().lastModified() != folder.getValue()) {
+               return false;
+            }
+         }
+         return true;
+      }
+   }
+
+   private final File boxesFolder;
+   private volatile Snapshot snapshot;
+
+   @Inject
+   BoxCatalog() {
+      this(BoxConfig.getVagrantHome());
+   }
+
+   @VisibleForTesting
+   BoxCatalog(File vagrantHome) {
+      this.boxesFolder = new File(vagrantHome, VagrantConstants.VAGRANT_BOXES_SUBFOLDER);
+   }
+
+   /**
+    * The same box instances are returned for as long as the boxes folder doesn't change.
+    */
+   @Override
+   public Collection<Box> listBoxes() {
+      Snapshot current = snapshot;
+      if (current == null || !current.isCurrent()) {
+         current = scan();
+         snapshot = current;
+      }
+      return current.boxes;
+   }
+
+   @Override
+   public Box getBox(String boxName) {
+      for (Box box : listBoxes()) {
+         if (box.getName().equals(boxName)) {
+            return box;
+         }
+      }
+      return null;
+   }
+
+   private Snapshot scan() {
+      long scanStart = System.currentTimeMillis();
+      ImmutableMap.Builder<File, Long> folders = ImmutableMap.builder();
+      ImmutableList.Builder<Box> boxes = ImmutableList.builder();
+      folders.put(boxesFolder, modified(boxesFolder, scanStart));
+      for (File nameFolder : listFolders(boxesFolder)) {
+         folders.put(nameFolder, modified(nameFolder, scanStart));
+         String name = nameFolder.getName().replace(VagrantConstants.ESCAPE_SLASH, "/");
+         for (File versionFolder : listFolders(nameFolder)) {
+            folders.put(versionFolder, modified(versionFolder, scanStart));
+            for (File providerFolder : listFolders(versionFolder)) {
+               folders.put(providerFolder, modified(providerFolder, scanStart));
+               // Boxes still being added don't have their metadata yet
+               if (new File(providerFolder, BOX_METADATA).isFile()) {
+                  boxes.add(new Box(name, versionFolder.getName(), providerFolder.getName()));
+               }
+            }
+         }
+      }
+      return new Snapshot(folders.build(), boxes.build());
+   }
+
+   private static long modified(File folder, long scanStart) {
+      long modified = folder.lastModified();
+      return scanStart - modified > MODIFIED_RESOLUTION ? modified : UNSETTLED;
+   }
+
+   private static Collection<File> listFolders(File folder) {
+      File[] files = folder.listFiles();
+      if (files == null) {
+         return ImmutableList.of();
+      }
+      ImmutableList.Builder<File> folders = ImmutableList.builder();
+      for (File file : files) {
+         if (file.isDirectory()) {
+            folders.add(file);
+         }
+      }
+      return folders.build();
+   }
+
+}
@@ -18,23 +18,40 @@ package org.jclouds.vagrant.internal;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import javax.inject.Singleton;
+
 import org.jclouds.compute.domain.Image;
 import org.jclouds.vagrant.reference.VagrantConstants;
 
 import com.google.common.base.Charsets;
 import com.google.common.base.Optional;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.io.Files;
 
 import vagrant.api.domain.Box;
 
+/**
+ * Values of a box Vagrantfile. Each key is looked up once per box, the factory keeps the configs of the boxes it
+ * has read until their Vagrantfile changes. Like {@link BoxCatalog}, it doesn't trust modification times too close to
+ * the read, so a Vagrantfile changed twice within the timestamp resolution of the file system is read again.
+ */
 public class BoxConfig {
+   @Singleton
    public static class Factory {
+      private final Cache<File, BoxConfig> configs = CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHED_CONFIGS)
+            .build();
+
       public BoxConfig newInstance(Image image) {
          String provider = image.getUserMetadata().get(VagrantConstants.USER_META_PROVIDER);
-         return new BoxConfig(getVagrantHome(), image.getName(), image.getVersion(), provider);
+         return newInstance(getVagrantHome(), image.getName(), image.getVersion(), provider);
       }
 
       public BoxConfig newInstance(Box box) {
@@ -42,24 +59,37 @@ public class BoxConfig {
       }
 
       public BoxConfig newInstance(File vagrantHome, Box box) {
-         return new BoxConfig(vagrantHome, box.getName(), box.getVersion(), box.getProvider());
+         return newInstance(vagrantHome, box.getName(), box.getVersion(), box.getProvider());
       }
 
-      private File getVagrantHome() {
-         Optional<String> home = Optional.fromNullable(System.getenv(VagrantConstants.ENV_VAGRANT_HOME));
-         return new File(home.or(VagrantConstants.ENV_VAGRANT_HOME_DEFAULT));
+      private BoxConfig newInstance(File vagrantHome, String name, String version, String provider) {
+         File vagrantfilePath = new File(getProviderPath(vagrantHome, name, version, provider), VagrantConstants.VAGRANTFILE);
+         BoxConfig config = configs.getIfPresent(vagrantfilePath);
+         if (config == null || config.modified != vagrantfilePath.lastModified()) {
+            config = new BoxConfig(vagrantHome, name, version, provider);
+            configs.put(vagrantfilePath, config);
+         }
+         return config;
       }
 
    }
 
-   private String config;
-   private File providerPath;
+   private static final int MAX_CACHED_CONFIGS = 100;
+
+   /**
+    * Modification times closer than this to the read are not trusted, some file systems only keep whole seconds.
+    */
+   private static final long MODIFIED_RESOLUTION = TimeUnit.SECONDS.toMillis(2);
+   private static final long UNSETTLED = -1;
+
+   private final String config;
+   private final File providerPath;
+   private final long modified;
+   private final Map<String, Optional<String>> keys = new ConcurrentHashMap<String, Optional<String>>();
+   private final Map<String, Optional<String>> stringKeys = new ConcurrentHashMap<String, Optional<String>>();
 
    protected BoxConfig(File vagrantHome, String name, String version, String provider) {
-      File boxes = new File(vagrantHome, VagrantConstants.VAGRANT_BOXES_SUBFOLDER);
-      File boxPath = new File(boxes, name.replace("/", VagrantConstants.ESCAPE_SLASH));
-      File versionPath = new File(boxPath, version);
-      File providerPath = new File(versionPath, provider);
+      File providerPath = getProviderPath(vagrantHome, name, version, provider);
       File vagrantfilePath = new File(providerPath, VagrantConstants.VAGRANTFILE);
 
       if (!vagrantfilePath.exists()) {
@@ -67,6 +97,9 @@ public class BoxConfig {
                " at " + vagrantfilePath.getAbsolutePath() + " not found");
       }
 
+      long readStart = System.currentTimeMillis();
+      long lastModified = vagrantfilePath.lastModified();
+      modified = readStart - lastModified > MODIFIED_RESOLUTION ? lastModified : UNSETTLED;
       try {
          config = Files.toString(vagrantfilePath, Charsets.UTF_8);
       } catch (IOException e) {
@@ -77,24 +110,44 @@ public class BoxConfig {
       this.providerPath = providerPath;
    }
 
+   static File getVagrantHome() {
+      Optional<String> home = Optional.fromNullable(System.getenv(VagrantConstants.ENV_VAGRANT_HOME));
+      return new File(home.or(VagrantConstants.ENV_VAGRANT_HOME_DEFAULT));
+   }
+
+   private static File getProviderPath(File vagrantHome, String name, String version, String provider) {
+      File boxes = new File(vagrantHome, VagrantConstants.VAGRANT_BOXES_SUBFOLDER);
+      File boxPath = new File(boxes, name.replace("/", VagrantConstants.ESCAPE_SLASH));
+      File versionPath = new File(boxPath, version);
+      return new File(versionPath, provider);
+   }
+
    public File getFolder() {
       return providerPath;
    }
 
    public Optional<String> getKey(String key) {
-      String keyQuoted = Pattern.quote(key);
-      String search = keyQuoted + "\\s*=\\s*(.*)";
-      Matcher matcher = Pattern.compile(search).matcher(config);
-      if (matcher.find()) {
-         return Optional.of(matcher.group(1).trim());
-      } else {
-         return Optional.absent();
+      Optional<String> value = keys.get(key);
+      if (value == null) {
+         value = find(Pattern.quote(key) + "\\s*=\\s*(.*)");
+         if (value.isPresent()) {
+            value = Optional.of(value.get().trim());
+         }
+         keys.put(key, value);
       }
+      return value;
    }
 
    public Optional<String> getStringKey(String key) {
-      String keyQuoted = Pattern.quote(key);
-      String search = keyQuoted + "\\s*=\\s*\"(.*)\"";
+      Optional<String> value = stringKeys.get(key);
+      if (value == null) {
+         value = find(Pattern.quote(key) + "\\s*=\\s*\"(.*)\"");
+         stringKeys.put(key, value);
+      }
+      return value;
+   }
+
+   private Optional<String> find(String search) {
       Matcher matcher = Pattern.compile(search).matcher(config);
       if (matcher.find()) {
          return Optional.of(matcher.group(1));
@@ -17,39 +17,63 @@
 package org.jclouds.vagrant.internal;
 
 import java.util.Collection;
+import java.util.Map;
+
+import javax.inject.Singleton;
 
 import org.jclouds.compute.domain.Image;
 import org.jclouds.vagrant.api.VagrantBoxApiFacade;
 
 import com.google.common.base.Function;
 import com.google.common.base.Supplier;
-import com.google.common.collect.Collections2;
+import com.google.common.collect.ImmutableMap;
 import com.google.inject.Inject;
 
+/**
+ * Images of the latest version of each installed box. They are rebuilt only when the box listing changes.
+ */
+@Singleton
 public class ImageSupplier<B> implements Supplier<Collection<Image>>, Function<String, Image> {
    private final Function<Collection<B>, Collection<B>> outdatedBoxesFilter;
-   private final VagrantBoxApiFacade.Factory<B> cliFactory;
+   private final VagrantBoxApiFacade<B> boxCatalog;
    private final Function<B, Image> boxToImage;
 
+   // Guarded by this
+   private Collection<B> boxes;
+   private Map<String, Image> images;
+
    @Inject
    ImageSupplier(Function<Collection<B>, Collection<B>> outdatedBoxesFilter,
-         VagrantBoxApiFacade.Factory<B> cliFactory,
+         VagrantBoxApiFacade<B> boxCatalog,
          Function<B, Image> boxToImage) {
       this.outdatedBoxesFilter = outdatedBoxesFilter;
-      this.cliFactory = cliFactory;
+      this.boxCatalog = boxCatalog;
       this.boxToImage = boxToImage;
    }
 
    @Override
    public Collection<Image> get() {
-      Collection<B> boxes = outdatedBoxesFilter.apply(cliFactory.create().listBoxes());
-      return Collections2.transform(boxes, boxToImage);
+      return images().values();
    }
 
    @Override
    public Image apply(String id) {
-      B box = cliFactory.create().getBox(id);
-      return boxToImage.apply(box);
+      return images().get(id);
+   }
+
+   private synchronized Map<String, Image> images() {
+      Collection<B> current = boxCatalog.listBoxes();
+      // The catalog returns the same listing until the boxes change
+      if (current != boxes) {
+         ImmutableMap.Builder<String, Image> builder = ImmutableMap.builder();
+         for (B box : outdatedBoxesFilter.apply(current)) {
+            Image image = boxToImage.apply(box);
+            builder.put(image.getId(), image);
+         }
+         images = builder.build();
+         boxes = current;
+      }
+      return images;
    }
 
 }
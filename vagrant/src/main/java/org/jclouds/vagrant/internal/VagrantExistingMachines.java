@@ -17,12 +17,17 @@
 package org.jclouds.vagrant.internal;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Resource;
 import javax.inject.Inject;
 import javax.inject.Named;
+import javax.inject.Singleton;
 
 import org.jclouds.compute.domain.Hardware;
 import org.jclouds.compute.domain.HardwareBuilder;
@@ -39,52 +44,160 @@ import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 
+/**
+ * Loads the machines found under the jclouds Vagrant home. The box and hardware of the parsed configs are kept in an
+ * on-disk index and each call only rescans the group folders modified since the previous one, so machines created or
+ * destroyed by other processes sharing the home show up without parsing everything again. Those fields are only
+ * written when a machine is created, so later changes to its config, such as updated credentials, don't need to be
+ * picked up.
+ */
+@Singleton
 public class VagrantExistingMachines implements Supplier<Collection<VagrantNode>> {
+   /**
+    * Modification times closer than this to the scan are not trusted, some file systems only keep whole seconds.
+    */
+   private static final long MODIFIED_RESOLUTION = TimeUnit.SECONDS.toMillis(2);
+
    @Resource
    protected Logger logger = Logger.NULL;
 
    private final File home;
+   private final File indexFile;
    private final MachineConfig.Factory machineConfigFactory;
    private final Supplier<Collection<Image>> imageLister;
    private final Supplier<? extends Map<String, Hardware>> hardwareSupplier;
 
+   // Guarded by this. Unusable machines map to absent until their config changes.
+   private VagrantMachineIndex index;
+   private long indexModified;
+   private final Map<String, Optional<VagrantNode>> nodes = Maps.newHashMap();
+
    @Inject
    VagrantExistingMachines(@Named(VagrantConstants.JCLOUDS_VAGRANT_HOME) String home,
          MachineConfig.Factory machineConfigFactory,
          Supplier<Collection<Image>> imageLister,
          Supplier<? extends Map<String, Hardware>> hardwareSupplier) {
       this.home = new File(home);
+      this.indexFile = new File(this.home, VagrantConstants.MACHINES_INDEX);
       this.machineConfigFactory = machineConfigFactory;
       this.imageLister = imageLister;
       this.hardwareSupplier = hardwareSupplier;
    }
 
    @Override
-   public Collection<VagrantNode> get() {
+   public synchronized Collection<VagrantNode> get() {
+      if (index == null || indexFile.lastModified() != indexModified) {
+         loadIndex();
+      }
       File[] groups = home.listFiles();
       if (groups == null) return ImmutableList.of();
-      Map<String, Image> images = getImages();
-      Collection<VagrantNode> nodes = Lists.newArrayList();
+
+      long scanStart = System.currentTimeMillis();
+      boolean changed = false;
+      Set<String> existingGroups = Sets.newHashSet();
       for (File group : groups) {
-         File[] machines = new File(group, VagrantConstants.MACHINES_CONFIG_SUBFOLDER).listFiles();
-         if (machines == null) continue;
-         for (File machine : machines) {
-            if (machine.getName().endsWith(VagrantConstants.MACHINES_CONFIG_EXTENSION)) {
-               try {
-                  VagrantNode node = createMachine(group, machine, images);
-                  if (node != null) {
-                     nodes.add(node);
-                  }
-               } catch (RuntimeException e) {
-                  // Skip image, something is broken about it.
-                  // Most probable cause is that another process just deleted it.
-                  logger.debug("Failed loading machine " + machine.getAbsolutePath() + ". Skipping.", e);
-               }
+         File machines = new File(group, VagrantConstants.MACHINES_CONFIG_SUBFOLDER);
+         long modified = machines.lastModified();
+         if (modified == 0) continue;
+         existingGroups.add(group.getName());
+         Long indexed = index.groupModified(group.getName());
+         if (indexed == null || indexed != modified || !isSettled(modified, scanStart)) {
+            scanGroup(group, machines, scanStart);
+            index.putGroup(group.getName(), isSettled(modified, scanStart) ? modified : VagrantMachineIndex.UNSETTLED);
+            changed = true;
+         }
+      }
+      changed |= index.retainGroups(existingGroups);
+      nodes.keySet().retainAll(index.machineIds());
+
+      if (changed) {
+         try {
+            index.save(indexFile);
+            indexModified = indexFile.lastModified();
+         } catch (IOException e) {
+            logger.debug("Failed writing machine index " + indexFile.getAbsolutePath() + ".", e);
+         }
+      }
+      return buildNodes();
+   }
+
+   /**
+    * Picks up the index written by another process, keeping the nodes whose config didn't change.
+    */
+   private void loadIndex() {
+      indexModified = indexFile.lastModified();
+      VagrantMachineIndex loaded = VagrantMachineIndex.load(indexFile);
+      if (index != null) {
+         for (Iterator<String> it = nodes.keySet().iterator(); it.hasNext();) {
+            String id = it.next();
+            VagrantMachineIndex.Machine previous = index.machine(id);
+            VagrantMachineIndex.Machine current = loaded.machine(id);
+            if (previous == null || current == null || previous.modified() != current.modified()) {
+               it.remove();
             }
          }
       }
-      return nodes;
+      index = loaded;
+   }
+
+   private void scanGroup(File group, File machinesFolder, long scanStart) {
+      File[] machines = machinesFolder.listFiles();
+      if (machines == null) return;
+      Set<String> existingMachines = Sets.newHashSet();
+      for (File machine : machines) {
+         if (machine.getName().endsWith(VagrantConstants.MACHINES_CONFIG_EXTENSION)) {
+            String machineName = machine.getName().replace(VagrantConstants.MACHINES_CONFIG_EXTENSION, "");
+            String id = group.getName() + "/" + machineName;
+            existingMachines.add(id);
+            long modified = machine.lastModified();
+            VagrantMachineIndex.Machine indexed = index.machine(id);
+            if (indexed != null && indexed.modified() == modified && isSettled(modified, scanStart)) {
+               continue;
+            }
+            nodes.remove(id);
+            try {
+               Map<String, Object> config = machineConfigFactory.newInstance(group, machineName).load();
+               index.putMachine(id, new VagrantMachineIndex.Machine(
+                     isSettled(modified, scanStart) ? modified : VagrantMachineIndex.UNSETTLED, config));
+            } catch (RuntimeException e) {
+               // Skip machine, something is broken about it.
+               // Most probable cause is that another process just deleted it.
+               existingMachines.remove(id);
+               logger.debug("Failed loading machine " + machine.getAbsolutePath() + ". Skipping.", e);
+            }
+         }
+      }
+      index.retainMachines(group.getName(), existingMachines);
+   }
+
+   private static boolean isSettled(long modified, long scanStart) {
+      return scanStart - modified > MODIFIED_RESOLUTION;
+   }
+
+   private Collection<VagrantNode> buildNodes() {
+      Map<String, Image> images = null;
+      Collection<VagrantNode> result = Lists.newArrayList();
+      for (String id : index.machineIds()) {
+         Optional<VagrantNode> node = nodes.get(id);
+         if (node == null) {
+            if (images == null) {
+               images = getImages();
+            }
+            try {
+               node = Optional.fromNullable(createMachine(id, index.machine(id).config(), images));
+            } catch (RuntimeException e) {
+               logger.debug("Failed loading machine " + id + ". Skipping.", e);
+               node = Optional.absent();
+            }
+            nodes.put(id, node);
+         }
+         if (node.isPresent()) {
+            result.add(node.get());
+         }
+      }
+      return result;
    }
 
    private Map<String, Image> getImages() {
@@ -99,15 +212,15 @@ public class VagrantExistingMachines implements Supplier<Collection<VagrantNode>
    // Build minimum viable VagrantNode. Just enough to allow users to halt the machine.
    // If this is found to be inadequate need to keep the missing information in the config
    // file as we can't always fetch it at this point (machine is halted or Windows).
-   private VagrantNode createMachine(File group, File machine, Map<String, Image> images) {
-      String machineName = machine.getName().replace(VagrantConstants.MACHINES_CONFIG_EXTENSION, "");
-      String id = group.getName() + "/" + machineName;
-      Map<String, Object> config = machineConfigFactory.newInstance(group, machineName).load();
+   private VagrantNode createMachine(String id, Map<String, Object> config, Map<String, Image> images) {
+      String groupName = id.substring(0, id.indexOf('/'));
+      String machineName = id.substring(groupName.length() + 1);
+      File group = new File(home, groupName);
       String imageName = (String) config.get(VagrantConstants.CONFIG_BOX);
       Image image = images.get(imageName);
       if (image == null) {
          // Machine is unusable if its image is not available, can't be running or started.
-         logger.debug("Skipping machine " + machine.getAbsolutePath() +
+         logger.debug("Skipping machine " + id +
                " because image " + imageName + " no longer available.");
          return null;
       }
@@ -0,0 +1,256 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.vagrant.internal;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import org.jclouds.util.Closeables2;
+import org.jclouds.vagrant.reference.VagrantConstants;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Predicates;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+
+/**
+ * The fields of the machine configs of the jclouds Vagrant home needed to list the machines, together with the
+ * modification times of the files and folders they were read from. It is stored in a single properties file so a new
+ * process only has to parse the configs that changed since the index was last written.
+ * <p>
+ * Only the box and the hardware are kept. They are set when the machine is created and never change, so the index
+ * doesn't go stale when the config is rewritten later on, and the credentials stored in the config never end up in
+ * the index.
+ * <p>
+ * The index is only a cache of what is on disk. Several processes sharing the same home may overwrite each other's
+ * index, which only costs the next reader a few extra parses.
+ */
+class VagrantMachineIndex {
+
+   /**
+    * Modification time recorded for files which were changed too recently to be trusted, file systems with a
+    * coarse timestamp resolution could hide a second change in the same tick.
+    */
+   static final long UNSETTLED = -1;
+
+   private static final Set<String> FIELDS = ImmutableSet.of(VagrantConstants.CONFIG_BOX,
+         VagrantConstants.CONFIG_HARDWARE_ID, VagrantConstants.CONFIG_CPUS, VagrantConstants.CONFIG_MEMORY);
+
+   // Can't clash with a group as it contains a slash. Indexes written before the fields were restricted don't have it
+   // and are discarded.
+   private static final String FORMAT_KEY = "/format";
+   private static final String FORMAT = "2";
+
+   private static final String MODIFIED = "modified";
+   private static final String CONFIG_PREFIX = "config.";
+
+   static class Machine {
+      private final long modified;
+      private final Map<String, Object> config;
+
+      /**
+       * @param config the machine config, only the fields needed to list the machine are kept
+       */
+      Machine(long modified, Map<String, Object> config) {
+         this.modified = modified;
+         this.config = ImmutableMap.copyOf(Maps.filterKeys(config, Predicates.in(FIELDS)));
+      }
+
+      long modified() {
+         return modified;
+      }
+
+      Map<String, Object> config() {
+         return config;
+      }
+   }
+
+   private final Map<String, Long> groups = Maps.newHashMap();
+   private final Map<String, Machine> machines = Maps.newHashMap();
+
+   Long groupModified(String group) {
+      return groups.get(group);
+   }
+
+   void putGroup(String group, long modified) {
+      groups.put(group, modified);
+   }
+
+   /**
+    * Drops the groups which no longer exist, together with their machines.
+    *
+    * @return whether anything was removed
+    */
+   boolean retainGroups(Set<String> existing) {
+      boolean removed = groups.keySet().retainAll(existing);
+      for (Iterator<String> it = machines.keySet().iterator(); it.hasNext();) {
+         if (!existing.contains(groupOf(it.next()))) {
+            it.remove();
+            removed = true;
+         }
+      }
+      return removed;
+   }
+
+   /**
+    * Drops the machines of the group which are not in the given ids.
+    *
+    * @return whether anything was removed
+    */
+   boolean retainMachines(String group, Set<String> existing) {
+      boolean removed = false;
+      for (Iterator<String> it = machines.keySet().iterator(); it.hasNext();) {
+         String id = it.next();
+         if (groupOf(id).equals(group) && !existing.contains(id)) {
+            it.remove();
+            removed = true;
+         }
+      }
+      return removed;
+   }
+
+   Machine machine(String id) {
+      return machines.get(id);
+   }
+
+   void putMachine(String id, Machine machine) {
+      machines.put(id, machine);
+   }
+
+   Collection<String> machineIds() {
+      return machines.keySet();
+   }
+
+   private static String groupOf(String id) {
+      return id.substring(0, id.indexOf('/'));
+   }
+
+   /**
+    * Reads the index, returning an empty one if it doesn't exist or can't be parsed.
+    */
+   static VagrantMachineIndex load(File file) {
+      VagrantMachineIndex index = new VagrantMachineIndex();
+      Properties properties = new Properties();
+      Reader in;
+      try {
+         in = new InputStreamReader(new FileInputStream(file), Charsets.UTF_8);
+      } catch (FileNotFoundException e) {
+         return index;
+      }
+      try {
+         properties.load(in);
+      } catch (IOException e) {
+         return index;
+      } finally {
+         Closeables2.closeQuietly(in);
+      }
+      if (!FORMAT.equals(properties.getProperty(FORMAT_KEY))) {
+         return index;
+      }
+
+      // Keys are "<group>" for groups and "<group>/<machine>/<field>" for machines.
+      // Neither group nor machine names can contain slashes.
+      Map<String, Long> modified = Maps.newHashMap();
+      Map<String, Map<String, Object>> configs = Maps.newHashMap();
+      try {
+         for (String key : properties.stringPropertyNames()) {
+            String value = properties.getProperty(key);
+            String[] parts = key.split("/", 3);
+            if (parts.length == 1) {
+               index.groups.put(key, Long.parseLong(value));
+            } else if (parts.length == 3) {
+               String id = parts[0] + "/" + parts[1];
+               if (parts[2].equals(MODIFIED)) {
+                  modified.put(id, Long.parseLong(value));
+               } else if (parts[2].startsWith(CONFIG_PREFIX)
+                     && FIELDS.contains(parts[2].substring(CONFIG_PREFIX.length()))) {
+                  Map<String, Object> config = configs.get(id);
+                  if (config == null) {
+                     config = new LinkedHashMap<String, Object>();
+                     configs.put(id, config);
+                  }
+                  config.put(parts[2].substring(CONFIG_PREFIX.length()), value);
+               }
+            }
+         }
+      } catch (NumberFormatException e) {
+         return new VagrantMachineIndex();
+      }
+
+      for (Map.Entry<String, Long> entry : modified.entrySet()) {
+         Map<String, Object> config = configs.get(entry.getKey());
+         if (config != null && index.groups.containsKey(groupOf(entry.getKey()))) {
+            index.machines.put(entry.getKey(), new Machine(entry.getValue(), config));
+         }
+      }
+      return index;
+   }
+
+   /**
+    * Writes the index to a temporary file next to the target and moves it in place, so concurrent readers never
+    * see a partially written index.
+    */
+   void save(File file) throws IOException {
+      Properties properties = new Properties();
+      properties.setProperty(FORMAT_KEY, FORMAT);
+      for (Map.Entry<String, Long> entry : groups.entrySet()) {
+         properties.setProperty(entry.getKey(), Long.toString(entry.getValue()));
+      }
+      for (Map.Entry<String, Machine> entry : machines.entrySet()) {
+         String prefix = entry.getKey() + "/";
+         properties.setProperty(prefix + MODIFIED, Long.toString(entry.getValue().modified()));
+         for (Map.Entry<String, Object> config : entry.getValue().config().entrySet()) {
+            properties.setProperty(prefix + CONFIG_PREFIX + config.getKey(), String.valueOf(config.getValue()));
+         }
+      }
+
+      File tmp = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+      try {
+         Writer out = new OutputStreamWriter(new FileOutputStream(tmp), Charsets.UTF_8);
+         try {
+            properties.store(out, null);
+         } finally {
+            Closeables2.closeQuietly(out);
+         }
+         try {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+         } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+         }
+      } finally {
+         tmp.delete();
+      }
+   }
+
+}
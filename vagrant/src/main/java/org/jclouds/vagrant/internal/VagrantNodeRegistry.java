@@ -16,14 +16,17 @@
  */
 package org.jclouds.vagrant.internal;
 
+import java.io.File;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.jclouds.vagrant.domain.VagrantNode;
+import org.jclouds.vagrant.reference.VagrantConstants;
 
 import com.google.common.base.Supplier;
-import com.google.common.base.Suppliers;
+import com.google.common.collect.Maps;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 
@@ -71,12 +74,12 @@ import com.google.inject.Singleton;
  * Worth mentioning that machines created by jclouds follow some conventions. Manually
  * created machines are not considered. The provider creates a yaml file describing the requirements
  * and some meta, then a generic Vagrantfile reads those and creates a machine based on them.
- * Presently the provider is only interested in machines it creates or machines created
- * from previous runs. That's a local "service" and no concurrent modifications of the machines
- * is expected. There could be parallel processes running but still each one would
- * manage its own machines. That's even strongly discouraged that since virtualbox (vboxmanage) has
- * problems when it's executed in parallel. Currently the vagrant bindings explicitly serialise
- * execs of vagrant.
+ * Nodes created by this process are registered with their full details. Machines created by other
+ * processes sharing the same home are picked up from their configs on disk, which are rescanned
+ * incrementally on every listing and on lookups of unknown ids. Nodes whose config is gone are dropped
+ * on the same refresh. Running vagrant commands against the machines of several processes in
+ * parallel is still discouraged since virtualbox (vboxmanage) has problems when it's executed in
+ * parallel. Currently the vagrant bindings explicitly serialise execs of vagrant.
  * <p>
  * 3. Machine status can reliably be inferred. The key here is that the vagrant commands are
  * synchronous. If "vagrant up" completes successfully then the status is RUNNING. If it fails
@@ -90,58 +93,65 @@ import com.google.inject.Singleton;
  * "vagrant up". It needs around a minute to return a usable machine (obviously depends on the
  * image and is dominated by OS boot). Whereas before introducing the registry it would take
  * at least 50% more. And it gets worse with the more machines being created in parallel.
- * <p>
- * Expiring (and refreshing) machine list while running might not be wanted - would result in
- * parallel execution of vagrant command against another's process machines. Virtualbox (vboxmanage)
- * fails indeterministically when executed in parallel. Expiring the status would be a nice
- * improvement.
  */
 @Singleton
 public class VagrantNodeRegistry {
 
-   private static class ConcurrentWrapperSupplier implements Supplier<Map<String, VagrantNode>> {
-      private Supplier<Collection<VagrantNode>> existingMachines;
-
-      public ConcurrentWrapperSupplier(Supplier<Collection<VagrantNode>> existingMachines) {
-         this.existingMachines = existingMachines;
-      }
-
-      @Override
-      public Map<String, VagrantNode> get() {
-         Map<String, VagrantNode> nodes = new ConcurrentHashMap<String, VagrantNode>();
-         for (VagrantNode node : existingMachines.get()) {
-            nodes.put(node.id(), node);
-         }
-         return nodes;
-      }
-
-   }
-
-   private final Supplier<Map<String, VagrantNode>> nodes;
+   private final Supplier<Collection<VagrantNode>> existingMachines;
+   private final Map<String, VagrantNode> nodes = new ConcurrentHashMap<String, VagrantNode>();
 
    @Inject
    VagrantNodeRegistry(Supplier<Collection<VagrantNode>> existingMachines) {
-      this.nodes = Suppliers.memoize(new ConcurrentWrapperSupplier(existingMachines));
+      this.existingMachines = existingMachines;
    }
 
    public VagrantNode get(String id) {
-      return nodes().get(id);
+      VagrantNode node = nodes.get(id);
+      if (node == null) {
+         refresh();
+         node = nodes.get(id);
+      }
+      return node;
    }
 
    public void add(VagrantNode node) {
-      nodes().put(node.id(), node);
+      nodes.put(node.id(), node);
    }
 
    public Collection<VagrantNode> list() {
-      return nodes().values();
+      refresh();
+      return nodes.values();
    }
 
    public void onTerminated(VagrantNode node) {
-      nodes().remove(node.id());
+      nodes.remove(node.id());
+   }
+
+   /**
+    * Adds the machines created by other processes and drops the ones whose config is gone. Registered nodes are
+    * kept as they carry more details than the ones loaded from disk.
+    */
+   private synchronized void refresh() {
+      Map<String, VagrantNode> existing = Maps.newHashMap();
+      for (VagrantNode node : existingMachines.get()) {
+         existing.put(node.id(), node);
+      }
+      for (Iterator<VagrantNode> it = nodes.values().iterator(); it.hasNext();) {
+         VagrantNode node = it.next();
+         if (!existing.containsKey(node.id()) && !configFile(node).exists()) {
+            it.remove();
+         }
+      }
+      for (VagrantNode node : existing.values()) {
+         if (!nodes.containsKey(node.id())) {
+            nodes.put(node.id(), node);
+         }
+      }
    }
 
-   private Map<String, VagrantNode> nodes() {
-      return nodes.get();
+   private static File configFile(VagrantNode node) {
+      return new File(new File(node.path(), VagrantConstants.MACHINES_CONFIG_SUBFOLDER),
+            node.name() + VagrantConstants.MACHINES_CONFIG_EXTENSION);
    }
 
 }
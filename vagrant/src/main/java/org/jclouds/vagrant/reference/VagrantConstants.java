@@ -53,6 +53,7 @@ public final class VagrantConstants {
    public static final String MACHINES_CONFIG_SUBFOLDER = "machines";
    public static final String MACHINES_CONFIG_EXTENSION = ".yaml";
    public static final String MACHINES_AUTO_HARDWARE = "automatic";
+   public static final String MACHINES_INDEX = ".machines.index";
 
    // Config file keys
    public static final String CONFIG_JCLOUDS_VERSION = "jcloudsVersion";
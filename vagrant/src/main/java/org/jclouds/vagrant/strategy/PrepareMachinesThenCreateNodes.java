@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.vagrant.strategy;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.Constants;
+import org.jclouds.compute.config.CustomizationResponse;
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.domain.NodeMetadataBuilder;
+import org.jclouds.compute.domain.Template;
+import org.jclouds.compute.functions.GroupNamingConvention;
+import org.jclouds.compute.strategy.CreateNodeWithGroupEncodedIntoName;
+import org.jclouds.compute.strategy.CustomizeNodeAndAddToGoodMapOrPutExceptionIntoBadMap;
+import org.jclouds.compute.strategy.ListNodesStrategy;
+import org.jclouds.compute.strategy.impl.CreateNodesWithGroupEncodedIntoNameThenAddToSet;
+import org.jclouds.vagrant.compute.VagrantComputeServiceAdapter;
+import org.jclouds.vagrant.domain.VagrantNode;
+import org.jclouds.vagrant.internal.VagrantNodeRegistry;
+
+import com.google.common.base.Function;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * Writes the configs of all the machines of a group before starting any of them, then starts them one after the
+ * other. The machines of a group share their Vagrantfile folder, so rewriting it while another machine boots could
+ * break that machine's Vagrant run. The starts are not run in parallel, the vagrant bindings serialise the execs of
+ * vagrant and VirtualBox doesn't support parallel starts. Customizing a started node doesn't hold back the start of
+ * the next machine.
+ * <p>
+ * A machine which fails to start is reported in the bad nodes in the {@code ERROR} state, so it can be destroyed like
+ * any other node.
+ */
+@Singleton
+public class PrepareMachinesThenCreateNodes extends CreateNodesWithGroupEncodedIntoNameThenAddToSet {
+
+   private final VagrantComputeServiceAdapter adapter;
+   private final VagrantNodeRegistry nodeRegistry;
+   private final Function<VagrantNode, NodeMetadata> nodeToNodeMetadata;
+
+   @Inject
+   protected PrepareMachinesThenCreateNodes(
+         CreateNodeWithGroupEncodedIntoName addNodeWithGroupStrategy,
+         ListNodesStrategy listNodesStrategy,
+         GroupNamingConvention.Factory namingConvention,
+         @Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
+         CustomizeNodeAndAddToGoodMapOrPutExceptionIntoBadMap.Factory customizeNodeAndAddToGoodMapOrPutExceptionIntoBadMapFactory,
+         VagrantComputeServiceAdapter adapter,
+         VagrantNodeRegistry nodeRegistry,
+         Function<VagrantNode, NodeMetadata> nodeToNodeMetadata) {
+      super(addNodeWithGroupStrategy, listNodesStrategy, namingConvention, userExecutor,
+            customizeNodeAndAddToGoodMapOrPutExceptionIntoBadMapFactory);
+      this.adapter = adapter;
+      this.nodeRegistry = nodeRegistry;
+      this.nodeToNodeMetadata = nodeToNodeMetadata;
+   }
+
+   @Override
+   public Map<?, ListenableFuture<Void>> execute(String group, int count, Template template, Set<NodeMetadata> goodNodes,
+         Map<NodeMetadata, Exception> badNodes, Multimap<NodeMetadata, CustomizationResponse> customizationResponses) {
+      Map<String, String> ids = adapter.prepareNodesInGroup(group, getNextNames(group, template, count), template);
+
+      Function<AtomicReference<NodeMetadata>, Void> customizer = customizeNodeAndAddToGoodMapOrPutExceptionIntoBadMapFactory
+            .create(template.getOptions(), goodNodes, badNodes, customizationResponses);
+      final List<StartNode> pending = Lists.newArrayList();
+      Map<String, ListenableFuture<Void>> responses = Maps.newLinkedHashMap();
+      for (Map.Entry<String, String> entry : ids.entrySet()) {
+         StartNode startNode = new StartNode(group, entry.getKey(), entry.getValue(), template, customizer, badNodes);
+         pending.add(startNode);
+         responses.put(entry.getKey(), startNode.result);
+      }
+      if (!pending.isEmpty()) {
+         userExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+               for (StartNode startNode : pending) {
+                  startNode.start();
+               }
+            }
+         });
+      }
+      return responses;
+   }
+
+   private class StartNode {
+      private final String group;
+      private final String name;
+      private final String id;
+      private final Template template;
+      private final Function<AtomicReference<NodeMetadata>, Void> customizer;
+      private final Map<NodeMetadata, Exception> badNodes;
+      private final SettableFuture<Void> result = SettableFuture.create();
+
+      StartNode(String group, String name, String id, Template template,
+            Function<AtomicReference<NodeMetadata>, Void> customizer, Map<NodeMetadata, Exception> badNodes) {
+         this.group = group;
+         this.name = name;
+         this.id = id;
+         this.template = template;
+         this.customizer = customizer;
+         this.badNodes = badNodes;
+      }
+
+      void start() {
+         final NodeMetadata node;
+         try {
+            logger.debug(">> starting node(%s) in group(%s)", name, group);
+            node = addNodeWithGroupStrategy.createNodeWithGroupEncodedIntoName(group, name, template);
+            logger.debug("<< started node(%s)", node.getId());
+         } catch (RuntimeException e) {
+            VagrantNode failed = nodeRegistry.get(id);
+            if (failed == null) {
+               result.setException(e);
+               return;
+            }
+            logger.error(e, "<< failed starting node(%s)", id);
+            synchronized (badNodes) {
+               badNodes.put(NodeMetadataBuilder.fromNodeMetadata(nodeToNodeMetadata.apply(failed))
+                     .status(NodeMetadata.Status.ERROR)
+                     .build(), e);
+            }
+            result.set(null);
+            return;
+         }
+         // Customization only waits on the node, it doesn't hold back other machines of the group
+         try {
+            userExecutor.execute(new Runnable() {
+               @Override
+               public void run() {
+                  try {
+                     result.set(customizer.apply(new AtomicReference<NodeMetadata>(node)));
+                  } catch (RuntimeException e) {
+                     result.setException(e);
+                  }
+               }
+            });
+         } catch (RuntimeException e) {
+            result.setException(e);
+         }
+      }
+   }
+
+}
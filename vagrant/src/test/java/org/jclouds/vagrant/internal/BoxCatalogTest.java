@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.vagrant.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Set;
+
+import org.jclouds.vagrant.reference.VagrantConstants;
+import org.jclouds.vagrant.util.VagrantUtils;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import com.google.common.io.Files;
+
+import vagrant.api.domain.Box;
+
+public class BoxCatalogTest {
+
+   @Test
+   public void testListBoxes() throws IOException {
+      File vagrantHome = Files.createTempDir();
+      addBox(vagrantHome, "jclouds/vagrant", "1.0", "virtualbox");
+      addBox(vagrantHome, "jclouds/vagrant", "1.1", "virtualbox");
+      addBox(vagrantHome, "centos", "0", "virtualbox");
+      // Still being added
+      new File(vagrantHome, "boxes/centos/0/vmware").mkdirs();
+      settle(vagrantHome);
+
+      BoxCatalog catalog = new BoxCatalog(vagrantHome);
+      Collection<Box> boxes = catalog.listBoxes();
+      assertEquals(toStrings(boxes), ImmutableSet.of(
+            "jclouds/vagrant 1.0 virtualbox",
+            "jclouds/vagrant 1.1 virtualbox",
+            "centos 0 virtualbox"));
+      assertSame(catalog.listBoxes(), boxes);
+      assertEquals(catalog.getBox("centos").getVersion(), "0");
+      assertNull(catalog.getBox("ubuntu"));
+
+      addBox(vagrantHome, "jclouds/vagrant", "1.2", "virtualbox");
+      assertEquals(catalog.listBoxes().size(), 4);
+
+      VagrantUtils.deleteFolder(vagrantHome);
+   }
+
+   @Test
+   public void testMissingVagrantHome() {
+      BoxCatalog catalog = new BoxCatalog(new File(Files.createTempDir(), "missing"));
+      assertEquals(catalog.listBoxes().size(), 0);
+   }
+
+   private Set<String> toStrings(Collection<Box> boxes) {
+      Set<String> result = Sets.newHashSet();
+      for (Box box : boxes) {
+         result.add(box.getName() + " " + box.getVersion() + " " + box.getProvider());
+      }
+      return result;
+   }
+
+   private void addBox(File vagrantHome, String name, String version, String provider) throws IOException {
+      File boxes = new File(vagrantHome, VagrantConstants.VAGRANT_BOXES_SUBFOLDER);
+      File providerFolder = new File(boxes, name.replace("/", VagrantConstants.ESCAPE_SLASH) + "/" + version + "/" + provider);
+      providerFolder.mkdirs();
+      Files.write("{}", new File(providerFolder, "metadata.json"), Charsets.UTF_8);
+   }
+
+   // Move the folders to the past, so the catalog can rely on their modification times
+   private void settle(File folder) {
+      File[] files = folder.listFiles();
+      if (files != null) {
+         for (File file : files) {
+            settle(file);
+         }
+      }
+      folder.setLastModified(System.currentTimeMillis() - 60000);
+   }
+
+}
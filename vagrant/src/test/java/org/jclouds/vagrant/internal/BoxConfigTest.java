@@ -17,6 +17,8 @@
 package org.jclouds.vagrant.internal;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
 
 import java.io.File;
 import java.io.IOException;
@@ -25,6 +27,7 @@ import org.jclouds.vagrant.reference.VagrantConstants;
 import org.jclouds.vagrant.util.VagrantUtils;
 import org.testng.annotations.Test;
 
+import com.google.common.base.Charsets;
 import com.google.common.base.Optional;
 import com.google.common.io.Files;
 import com.google.common.io.Resources;
@@ -57,4 +60,34 @@ public class BoxConfigTest {
       VagrantUtils.deleteFolder(vagrantHome);
    }
 
+   @Test
+   public void testFactoryReusesConfigs() throws IOException {
+      File vagrantHome = new File(Files.createTempDir(), "jclouds/vagrant");
+      File boxFolder = new File(vagrantHome, "boxes/jclouds-VAGRANTSLASH-vagrant/0/virtualbox");
+      boxFolder.mkdirs();
+      File boxPath = new File(boxFolder, VagrantConstants.VAGRANTFILE);
+      Resources.asByteSource(getClass().getResource("/Vagrantfile.boxconfig")).copyTo(Files.asByteSink(boxPath));
+      boxPath.setLastModified(System.currentTimeMillis() - 60000);
+
+      BoxConfig.Factory factory = new BoxConfig.Factory();
+      Box box = new Box("jclouds/vagrant", "0", "virtualbox");
+      BoxConfig boxConfig = factory.newInstance(vagrantHome, box);
+      assertSame(factory.newInstance(vagrantHome, box), boxConfig);
+      assertEquals(boxConfig.getKey(VagrantConstants.KEY_VM_GUEST), Optional.of(VagrantConstants.VM_GUEST_WINDOWS));
+
+      // The box got replaced
+      Files.write("config.vm.guest = :linux", boxPath, Charsets.UTF_8);
+      BoxConfig replaced = factory.newInstance(vagrantHome, box);
+      assertNotSame(replaced, boxConfig);
+      assertEquals(replaced.getKey(VagrantConstants.KEY_VM_GUEST), Optional.of(":linux"));
+
+      // Replaced again within the timestamp resolution, a freshly modified Vagrantfile is not trusted
+      long modified = boxPath.lastModified();
+      Files.write("config.vm.guest = :solaris", boxPath, Charsets.UTF_8);
+      boxPath.setLastModified(modified);
+      assertEquals(factory.newInstance(vagrantHome, box).getKey(VagrantConstants.KEY_VM_GUEST), Optional.of(":solaris"));
+
+      VagrantUtils.deleteFolder(vagrantHome);
+   }
+
 }
@@ -17,6 +17,8 @@
 package org.jclouds.vagrant.internal;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
@@ -61,6 +63,96 @@ public class VagrantNodeLoaderTest {
         doTest(hardwareConfig, expectedHardware);
     }
 
+    @Test
+    public void testRescansOnlyChangedMachines() throws Exception {
+        File home = Files.createTempDir();
+        File group = new File(home, "groupId");
+        File machines = new File(group, VagrantConstants.MACHINES_CONFIG_SUBFOLDER);
+        machines.mkdirs();
+        writeMachine(machines, "first");
+
+        Map<String, Object> config = ImmutableMap.<String, Object>of(
+                VagrantConstants.CONFIG_BOX, "centos/7",
+                VagrantConstants.CONFIG_HARDWARE_ID, VagrantConstants.MACHINES_AUTO_HARDWARE,
+                VagrantConstants.CONFIG_CPUS, "1",
+                VagrantConstants.CONFIG_MEMORY, "512");
+        MachineConfig firstConfig = EasyMock.createMock(MachineConfig.class);
+        EasyMock.expect(firstConfig.load()).andReturn(config).once();
+        MachineConfig secondConfig = EasyMock.createMock(MachineConfig.class);
+        EasyMock.expect(secondConfig.load()).andReturn(config).once();
+        MachineConfig.Factory factory = EasyMock.createMock(MachineConfig.Factory.class);
+        EasyMock.expect(factory.newInstance(group, "first")).andReturn(firstConfig).once();
+        EasyMock.expect(factory.newInstance(group, "second")).andReturn(secondConfig).once();
+
+        Image image = EasyMock.createMock(Image.class);
+        EasyMock.expect(image.getId()).andReturn("centos/7").anyTimes();
+        @SuppressWarnings("unchecked")
+        Supplier<Collection<Image>> imageSupplier = EasyMock.createMock(Supplier.class);
+        EasyMock.expect(imageSupplier.get()).andReturn(ImmutableList.<Image>of(image)).anyTimes();
+        @SuppressWarnings("unchecked")
+        Supplier<Map<String, Hardware>> hardwareSupplier = EasyMock.createMock(Supplier.class);
+
+        EasyMock.replay(firstConfig, secondConfig, factory, image, imageSupplier, hardwareSupplier);
+
+        VagrantExistingMachines nodeLoader = new VagrantExistingMachines(home.getAbsolutePath(), factory, imageSupplier, hardwareSupplier);
+        assertEquals(nodeLoader.get().size(), 1);
+
+        // A second process reads the parsed config from the index and only parses the new machine
+        writeMachine(machines, "second");
+        VagrantExistingMachines otherLoader = new VagrantExistingMachines(home.getAbsolutePath(), factory, imageSupplier, hardwareSupplier);
+        assertEquals(otherLoader.get().size(), 2);
+        assertEquals(nodeLoader.get().size(), 2);
+
+        new File(machines, "first" + VagrantConstants.MACHINES_CONFIG_EXTENSION).delete();
+        machines.setLastModified(System.currentTimeMillis() - 50000);
+        assertEquals(Iterables.getOnlyElement(nodeLoader.get()).name(), "second");
+
+        EasyMock.verify(firstConfig, secondConfig, factory);
+        VagrantUtils.deleteFolder(home);
+    }
+
+    @Test
+    public void testIndexesOnlyListingFields() throws Exception {
+        File home = Files.createTempDir();
+        File group = new File(home, "groupId");
+        File machines = new File(group, VagrantConstants.MACHINES_CONFIG_SUBFOLDER);
+        machines.mkdirs();
+        writeMachine(machines, "first");
+
+        MachineConfig config = EasyMock.createMock(MachineConfig.class);
+        EasyMock.expect(config.load()).andReturn(ImmutableMap.<String, Object>of(
+                VagrantConstants.CONFIG_BOX, "centos/7",
+                VagrantConstants.CONFIG_HARDWARE_ID, "small",
+                VagrantConstants.CONFIG_USERNAME, "vagrant",
+                VagrantConstants.CONFIG_PASSWORD, "secret"));
+        MachineConfig.Factory factory = EasyMock.createMock(MachineConfig.Factory.class);
+        EasyMock.expect(factory.newInstance(group, "first")).andReturn(config);
+        @SuppressWarnings("unchecked")
+        Supplier<Collection<Image>> imageSupplier = EasyMock.createMock(Supplier.class);
+        EasyMock.expect(imageSupplier.get()).andReturn(ImmutableList.<Image>of());
+        @SuppressWarnings("unchecked")
+        Supplier<Map<String, Hardware>> hardwareSupplier = EasyMock.createMock(Supplier.class);
+        EasyMock.replay(config, factory, imageSupplier, hardwareSupplier);
+
+        new VagrantExistingMachines(home.getAbsolutePath(), factory, imageSupplier, hardwareSupplier).get();
+
+        String index = Files.toString(new File(home, VagrantConstants.MACHINES_INDEX), Charsets.UTF_8);
+        assertTrue(index.contains("centos/7"), index);
+        assertTrue(index.contains(VagrantConstants.CONFIG_HARDWARE_ID), index);
+        assertFalse(index.contains("secret"), index);
+        assertFalse(index.contains(VagrantConstants.CONFIG_USERNAME), index);
+        VagrantUtils.deleteFolder(home);
+    }
+
+    // Machines written in the past, so the loader doesn't need to rescan them to be on the safe side
+    private void writeMachine(File machines, String machineName) throws IOException {
+        File machine = new File(machines, machineName + VagrantConstants.MACHINES_CONFIG_EXTENSION);
+        Files.write("dummy", machine, Charsets.UTF_8);
+        long modified = System.currentTimeMillis() - 60000 + machines.list().length * 1000;
+        machine.setLastModified(modified);
+        machines.setLastModified(modified);
+    }
+
     protected void doTest(ImmutableMap<String, Object> hardwareConfig, Hardware expectedHardware) throws IOException {
         String groupName = "groupId";
         String machineName = "machineId";
@@ -33,16 +33,44 @@ import org.jclouds.vagrant.domain.VagrantNode;
 import org.testng.annotations.Test;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 
 public class VagrantNodeRegistryTest {
 
    @Test
    public void testNodeRegistry() {
       VagrantExistingMachines loader = EasyMock.createMock(VagrantExistingMachines.class);
-      EasyMock.expect(loader.get()).andReturn(ImmutableList.<VagrantNode>of());
+      EasyMock.expect(loader.get()).andReturn(ImmutableList.<VagrantNode>of()).anyTimes();
       EasyMock.replay(loader);
 
       VagrantNodeRegistry registry = new VagrantNodeRegistry(loader);
+      VagrantNode node = createNode("vagrant", "node");
+
+      assertNull(registry.get(node.id()));
+      registry.add(node);
+      assertEquals(registry.get(node.id()), node);
+      registry.onTerminated(node);
+      assertNull(registry.get(node.id()));
+   }
+
+   @Test
+   public void testPicksUpChangesOnDisk() {
+      VagrantNode existing = createNode("vagrant", "existing");
+      VagrantNode external = createNode("vagrant", "external");
+      VagrantExistingMachines loader = EasyMock.createMock(VagrantExistingMachines.class);
+      EasyMock.expect(loader.get()).andReturn(ImmutableList.of(existing));
+      EasyMock.expect(loader.get()).andReturn(ImmutableList.of(existing, external));
+      EasyMock.expect(loader.get()).andReturn(ImmutableList.of(external));
+      EasyMock.replay(loader);
+
+      VagrantNodeRegistry registry = new VagrantNodeRegistry(loader);
+      assertEquals(ImmutableSet.copyOf(registry.list()), ImmutableSet.of(existing));
+      assertEquals(registry.get(external.id()), external);
+      assertEquals(ImmutableSet.copyOf(registry.list()), ImmutableSet.of(external));
+      EasyMock.verify(loader);
+   }
+
+   private VagrantNode createNode(String group, String name) {
       OperatingSystem os = new OperatingSystem(OsFamily.UNRECOGNIZED, "Jclouds OS", "10", "x64", "Jclouds Test Image", true);
       Image image = new ImageBuilder()
             .ids("jclouds/box")
@@ -52,21 +80,15 @@ public class VagrantNodeRegistryTest {
       Hardware hardware = new HardwareBuilder().ids("mini").ram(100).processor(new Processor(1.0, 1)).build();
 
       ImmutableList<String> networks = ImmutableList.of("172.28.128.3");
-      VagrantNode node = VagrantNode.builder()
+      return VagrantNode.builder()
             .setPath(new File("/path/to/machine"))
-            .setId("vagrant/node")
-            .setGroup("vagrant")
-            .setName("node")
+            .setId(group + "/" + name)
+            .setGroup(group)
+            .setName(name)
             .setImage(image)
             .setNetworks(networks)
             .setHardware(hardware)
-            .setHostname("vagrant-node")
+            .setHostname("vagrant-" + name)
             .build();
-
-      assertNull(registry.get(node.id()));
-      registry.add(node);
-      assertEquals(registry.get(node.id()), node);
-      registry.onTerminated(node);
-      assertNull(registry.get(node.id()));
    }
 }
@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.vagrant.strategy;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.eq;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.getCurrentArguments;
+import static org.easymock.EasyMock.same;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.easymock.EasyMock;
+import org.easymock.IAnswer;
+import org.jclouds.compute.config.CustomizationResponse;
+import org.jclouds.compute.domain.Hardware;
+import org.jclouds.compute.domain.HardwareBuilder;
+import org.jclouds.compute.domain.Image;
+import org.jclouds.compute.domain.ImageBuilder;
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.domain.NodeMetadataBuilder;
+import org.jclouds.compute.domain.OperatingSystem;
+import org.jclouds.compute.domain.OsFamily;
+import org.jclouds.compute.domain.Processor;
+import org.jclouds.compute.domain.Template;
+import org.jclouds.compute.functions.GroupNamingConvention;
+import org.jclouds.compute.options.TemplateOptions;
+import org.jclouds.compute.strategy.CreateNodeWithGroupEncodedIntoName;
+import org.jclouds.compute.strategy.CustomizeNodeAndAddToGoodMapOrPutExceptionIntoBadMap;
+import org.jclouds.compute.strategy.ListNodesStrategy;
+import org.jclouds.vagrant.compute.VagrantComputeServiceAdapter;
+import org.jclouds.vagrant.domain.VagrantNode;
+import org.jclouds.vagrant.internal.VagrantNodeRegistry;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+
+public class PrepareMachinesThenCreateNodesTest {
+
+   private static final String GROUP = "vagrant";
+
+   @Test
+   public void testFailedMachineIsReportedInErrorState() throws Exception {
+      final Set<String> names = ImmutableSet.of("vagrant-a", "vagrant-b", "vagrant-bad", "vagrant-c");
+      Map<String, String> ids = Maps.newLinkedHashMap();
+      for (String name : names) {
+         ids.put(name, GROUP + "/" + name.substring(GROUP.length() + 1));
+      }
+      final RuntimeException upFailure = new IllegalStateException("vagrant up failed");
+      final AtomicInteger starting = new AtomicInteger();
+      final AtomicInteger maxStarting = new AtomicInteger();
+
+      TemplateOptions options = new TemplateOptions();
+      Template template = EasyMock.createMock(Template.class);
+      expect(template.getOptions()).andReturn(options).anyTimes();
+      VagrantComputeServiceAdapter adapter = EasyMock.createMock(VagrantComputeServiceAdapter.class);
+      expect(adapter.prepareNodesInGroup(eq(GROUP), eq(names), same(template))).andReturn(ids);
+      VagrantNode badNode = createNode(GROUP, "bad");
+      VagrantNodeRegistry nodeRegistry = EasyMock.createMock(VagrantNodeRegistry.class);
+      expect(nodeRegistry.get(badNode.id())).andReturn(badNode);
+      CustomizeNodeAndAddToGoodMapOrPutExceptionIntoBadMap customizer =
+            EasyMock.createMock(CustomizeNodeAndAddToGoodMapOrPutExceptionIntoBadMap.class);
+      final Set<NodeMetadata> goodNodes = Collections.synchronizedSet(Sets.<NodeMetadata>newLinkedHashSet());
+      expect(customizer.apply(anyObject(AtomicReference.class))).andAnswer(new IAnswer<Void>() {
+         @SuppressWarnings("unchecked")
+         @Override
+         public Void answer() {
+            goodNodes.add(((AtomicReference<NodeMetadata>) getCurrentArguments()[0]).get());
+            return null;
+         }
+      }).times(3);
+      CustomizeNodeAndAddToGoodMapOrPutExceptionIntoBadMap.Factory customizerFactory =
+            EasyMock.createMock(CustomizeNodeAndAddToGoodMapOrPutExceptionIntoBadMap.Factory.class);
+      Map<NodeMetadata, Exception> badNodes = Maps.newLinkedHashMap();
+      Multimap<NodeMetadata, CustomizationResponse> customizationResponses = LinkedHashMultimap.create();
+      expect(customizerFactory.create(same(options), same(goodNodes), same(badNodes), same(customizationResponses)))
+            .andReturn(customizer);
+      EasyMock.replay(template, adapter, nodeRegistry, customizer, customizerFactory);
+
+      CreateNodeWithGroupEncodedIntoName createNode = new CreateNodeWithGroupEncodedIntoName() {
+         @Override
+         public NodeMetadata createNodeWithGroupEncodedIntoName(String group, String name, Template template) {
+            int current = starting.incrementAndGet();
+            synchronized (maxStarting) {
+               maxStarting.set(Math.max(maxStarting.get(), current));
+            }
+            try {
+               Thread.sleep(50);
+               if (name.endsWith("bad")) {
+                  throw upFailure;
+               }
+               return new NodeMetadataBuilder().ids(group + "/" + name.substring(group.length() + 1)).name(name)
+                     .group(group).status(NodeMetadata.Status.RUNNING).build();
+            } catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+               throw new IllegalStateException(e);
+            } finally {
+               starting.decrementAndGet();
+            }
+         }
+      };
+      Function<VagrantNode, NodeMetadata> nodeToNodeMetadata = new Function<VagrantNode, NodeMetadata>() {
+         @Override
+         public NodeMetadata apply(VagrantNode input) {
+            return new NodeMetadataBuilder().ids(input.id()).name(input.name()).group(input.group())
+                  .status(NodeMetadata.Status.RUNNING).build();
+         }
+      };
+
+      ExecutorService executor = Executors.newCachedThreadPool();
+      try {
+         PrepareMachinesThenCreateNodes strategy = new PrepareMachinesThenCreateNodes(createNode,
+               EasyMock.createMock(ListNodesStrategy.class), EasyMock.createMock(GroupNamingConvention.Factory.class),
+               MoreExecutors.listeningDecorator(executor), customizerFactory, adapter, nodeRegistry,
+               nodeToNodeMetadata) {
+            @Override
+            protected Set<String> getNextNames(String group, Template template, int count) {
+               return names;
+            }
+         };
+
+         Map<?, ListenableFuture<Void>> responses = strategy.execute(GROUP, names.size(), template, goodNodes, badNodes,
+               customizationResponses);
+         assertEquals(responses.keySet(), names);
+         Futures.allAsList(responses.values()).get(10, TimeUnit.SECONDS);
+      } finally {
+         executor.shutdownNow();
+      }
+
+      EasyMock.verify(adapter, nodeRegistry, customizer, customizerFactory);
+      assertEquals(maxStarting.get(), 1, maxStarting.get() + " machines were started at the same time");
+      assertEquals(goodNodes.size(), 3);
+      for (NodeMetadata node : goodNodes) {
+         assertTrue(ImmutableList.of("vagrant/a", "vagrant/b", "vagrant/c").contains(node.getId()), node.getId());
+      }
+      assertEquals(badNodes.size(), 1);
+      Map.Entry<NodeMetadata, Exception> bad = badNodes.entrySet().iterator().next();
+      assertEquals(bad.getKey().getId(), badNode.id());
+      assertEquals(bad.getKey().getStatus(), NodeMetadata.Status.ERROR);
+      assertSame(bad.getValue(), upFailure);
+   }
+
+   private VagrantNode createNode(String group, String name) {
+      OperatingSystem os = new OperatingSystem(OsFamily.UNRECOGNIZED, "Jclouds OS", "10", "x64", "Jclouds Test Image", true);
+      Image image = new ImageBuilder()
+            .ids("jclouds/box")
+            .operatingSystem(os)
+            .status(Image.Status.AVAILABLE)
+            .build();
+      Hardware hardware = new HardwareBuilder().ids("mini").ram(100).processor(new Processor(1.0, 1)).build();
+
+      return VagrantNode.builder()
+            .setPath(new File("/path/to/machine"))
+            .setId(group + "/" + name)
+            .setGroup(group)
+            .setName(name)
+            .setImage(image)
+            .setNetworks(ImmutableList.of("172.28.128.3"))
+            .setHardware(hardware)
+            .setHostname("vagrant-" + name)
+            .build();
+   }
+}